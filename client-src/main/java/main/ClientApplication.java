@@ -21,6 +21,8 @@ public class ClientApplication extends Application {
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(ClientApplication.class.getResource("client-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), WINDOW_WIDTH, WINDOW_HEIGHT);
+        ClientController controller = fxmlLoader.getController();
+        controller.init(ClientSettings.fromNamedParameters(getParameters().getNamed()));
         stage.setTitle("Client");
         stage.setScene(scene);
         stage.show();
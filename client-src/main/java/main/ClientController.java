@@ -7,8 +7,11 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import main.tasks.ConnectToMasterTask;
 import main.classes.Job;
+import main.enums.JobKind;
 import main.enums.JobType;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * This class is responsible for handling all the GUI events for the Client application, including launching the
  * background tasks to both request Jobs and retrieve their results with the help of the Client class
@@ -17,6 +20,7 @@ public class ClientController {
     private final int PORT_NUM = 30001;   // clients communicate on a different port number than slaves so that they don't interfere
     private IPConnection ipConnection;
     private ClientModel clientModel;
+    private ClientSettings settings;
     private ConnectToMasterTask connectToMasterTask;
 
     // JavaFx controls:
@@ -33,6 +37,12 @@ public class ClientController {
     @FXML
     public ChoiceBox<String> jobTypeChoiceBox;
     @FXML
+    public ChoiceBox<String> jobKindChoiceBox;
+    @FXML
+    public TextField jobSizeTextField;
+    @FXML
+    public TextField jobInputTextField;
+    @FXML
     public ListView<String> pendingJobsListView;
     @FXML
     public ListView<String> returnedJobsListView;
@@ -42,12 +52,35 @@ public class ClientController {
         clientModel = new ClientModel(pendingJobsListView, returnedJobsListView, pendingJobsHeaderLabel, completedJobsHeaderLabel);
     }
 
+    /**
+     * Set the settings to connect to the master with. This is called by the ClientApplication class when the
+     * application is started.
+     * */
+    public void init(ClientSettings settings) {
+        this.settings = settings;
+    }
+
     @FXML
     public void requestNewJob(ActionEvent actionEvent) {
+        int jobSize = 0;  // 0 to use the job kind's default size
+        if (!jobSizeTextField.getText().isBlank()) {
+            try {
+                jobSize = Integer.parseInt(jobSizeTextField.getText().trim());
+            } catch (NumberFormatException e) {
+                jobSize = -1;
+            }
+            if (jobSize <= 0) {
+                Logging.consoleLogAndAppendToGUILogs("Please provide a positive job size, or leave it empty for the default size\n", statusLogsTextArea);
+                return;
+            }
+        }
         if (connectToMasterTask == null || !connectToMasterTask.isRunning()) {
             connectToMaster();
         }
         Job job = new Job(clientModel.getNextJobId(), JobType.valueOf(jobTypeChoiceBox.getValue()));
+        job.setJobKind(JobKind.valueOf(jobKindChoiceBox.getValue()));
+        job.setJobSize(jobSize);
+        job.setInput(jobInputTextField.getText().getBytes(StandardCharsets.UTF_8));
         try {
             clientModel.enqueueJobToRequest(job);
         } catch (InterruptedException e) {
@@ -70,7 +103,7 @@ public class ClientController {
         }
 
         // Create and launch task to connect to socket, which will launch the individual threads
-        connectToMasterTask = new ConnectToMasterTask(ipConnection, clientModel, statusLogsTextArea);
+        connectToMasterTask = new ConnectToMasterTask(ipConnection, clientModel, settings, statusLogsTextArea);
         statusLabel.textProperty().bind(connectToMasterTask.messageProperty());  // (allow task to update status label)
         Thread connectThread = new Thread(connectToMasterTask, "Thread-ConnectToMaster");
         connectThread.setDaemon(true);
@@ -6,16 +6,20 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import main.classes.Job;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class holds all the Job data for the Client's core operations.
  * This includes <code><i>BlockingQueues</i></code> for the jobs requested as well as for the jobs that have
  * already been completed.
+ * Only the number of jobs requested and completed is kept for good. The completed jobs list in the GUI shows only the
+ * most recent MAX_COMPLETED_JOBS_SHOWN jobs, so that the client's memory doesn't grow with its uptime.
  */
 public class ClientModel {
+    public static final int MAX_COMPLETED_JOBS_SHOWN = 1000;
     private final Object lastJobIdLock = new Object();
     private int lastJobId = -1;
 
@@ -25,8 +29,8 @@ public class ClientModel {
      * The queue is <i>dequeued</i> when a job is ready to be requested from the master (handled by the SendJobRequestTask).
      */
     private final LinkedBlockingQueue<Job> jobsToRequest = new LinkedBlockingQueue<>();
-    private final ArrayList<Job> allJobsRequested = new ArrayList<>();
-    private final ArrayList<Job> allJobsCompleted = new ArrayList<>();
+    private final LongAdder numJobsRequested = new LongAdder();
+    private final LongAdder numJobsCompleted = new LongAdder();
 
     // GUI items
     private final ListView<String> pendingJobsListView, completedJobsListView;
@@ -45,9 +49,7 @@ public class ClientModel {
      * */
     public void enqueueJobToRequest(Job jobToRun) throws InterruptedException {
         jobsToRequest.put(new Job(jobToRun));  // synchronization not needed here because the queue is thread-safe
-        synchronized (allJobsRequested) {
-            allJobsRequested.add(new Job(jobToRun));
-        }
+        numJobsRequested.increment();
         Platform.runLater(() -> {
             pendingJobsListView.getItems().add(jobToRun.toString());
             pendingJobsHeaderLabel.setText("Pending Jobs (" + pendingJobsListView.getItems().size() + ")");
@@ -61,13 +63,22 @@ public class ClientModel {
         return jobsToRequest.take();  // synchronization not needed here because the queue is thread-safe
     }
 
+    /**
+     * Get a batch of the next jobs to be requested from the master. This waits for at least one job, and then takes
+     * any other jobs already queued, until there are <code>maxJobs</code> jobs.
+     *
+     * @param jobs the collection to add the jobs to
+     * @return the number of jobs added
+     */
+    public int dequeJobsToRequest(Collection<Job> jobs, int maxJobs) throws InterruptedException {
+        jobs.add(jobsToRequest.take());
+        return 1 + jobsToRequest.drainTo(jobs, maxJobs - 1);
+    }
+
     /**
      * Remove a job requested that is now completed
      * */
     public void removeJobRequested(Job job) {
-        synchronized (allJobsRequested) {
-            allJobsRequested.remove(job);
-        }
         Platform.runLater(() -> {
             pendingJobsListView.getItems().removeIf(jobStr -> job.equals(new Job(jobStr)));
             pendingJobsHeaderLabel.setText("Pending Jobs" + (!pendingJobsListView.getItems().isEmpty() ? " (" +
@@ -76,18 +87,33 @@ public class ClientModel {
     }
 
     /**
-     * Add a completed job to the collection and update the GUI
+     * Count a completed job and update the GUI
      * */
     public void addJobCompleted(Job job) {
-        synchronized (allJobsCompleted) {
-            allJobsCompleted.add(job);
-        }
+        numJobsCompleted.increment();
         Platform.runLater(() -> {
             completedJobsListView.getItems().add(0, job.toString());
-            completedJobsHeaderLabel.setText("Completed Jobs (" + completedJobsListView.getItems().size() + ")");
+            if (completedJobsListView.getItems().size() > MAX_COMPLETED_JOBS_SHOWN) {
+                completedJobsListView.getItems().remove(MAX_COMPLETED_JOBS_SHOWN);
+            }
+            completedJobsHeaderLabel.setText("Completed Jobs (" + numJobsCompleted.sum() + ")");
         });
     }
 
+    /**
+     * @return the number of jobs ever requested by this client
+     */
+    public long getNumJobsRequested() {
+        return numJobsRequested.sum();
+    }
+
+    /**
+     * @return the number of jobs ever completed for this client
+     */
+    public long getNumJobsCompleted() {
+        return numJobsCompleted.sum();
+    }
+
     /**
      * @return the next job Id available
      * */
@@ -0,0 +1,87 @@
+package main;
+
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.enums.Compression;
+import main.classes.JobSender;
+
+import java.util.Map;
+
+/**
+ * This class holds the Client's optional settings, which are read from named command-line arguments, e.g.,
+ * <code>--maxChunkLength=4096</code>. Any setting that is not provided, or is invalid, keeps its default value.
+ * <ul>
+ *     <li><code>maxChunkLength</code> - the maximum length of each chunk of a job's input sent in packets of its own
+ *     (see MultiPacketTransfers). Defaults to MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH.</li>
+ *     <li><code>compression</code> - the compression to ask the master to use for the inputs and results sent in
+ *     packets of their own (see Compression). Defaults to NONE, which is never requested, so that this client can
+ *     connect to a master that does not support compression.</li>
+ *     <li><code>compressionThreshold</code> - the minimum length, in bytes, of an input to compress. Defaults to
+ *     MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD.</li>
+ *     <li><code>requestBatchSize</code> - the maximum number of queued jobs requested from the master together, as one
+ *     batch (see SendJobRequestTask). Defaults to 1, i.e., each job is requested on its own, and is at most
+ *     JobSender.MAX_BATCH_SIZE. Batches are only understood by masters that support them.</li>
+ * </ul>
+ */
+public class ClientSettings {
+    private int maxChunkLength = MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH;
+    private Compression compression = Compression.NONE;
+    private int compressionThreshold = MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD;
+    private int requestBatchSize = 1;
+
+    /**
+     * Create the settings from the application's named parameters
+     */
+    public static ClientSettings fromNamedParameters(Map<String, String> namedParameters) {
+        ClientSettings settings = new ClientSettings();
+        String maxChunkLength = namedParameters.get("maxChunkLength");
+        if (maxChunkLength != null) {
+            try {
+                settings.maxChunkLength = Math.max(1, Integer.parseInt(maxChunkLength));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid maxChunkLength '" + maxChunkLength + "' - using " + settings.maxChunkLength + "\n");
+            }
+        }
+        String compression = namedParameters.get("compression");
+        if (compression != null) {
+            try {
+                settings.compression = Compression.valueOf(compression.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logging.consoleLog("Invalid compression '" + compression + "' - using " + settings.compression + "\n");
+            }
+        }
+        String compressionThreshold = namedParameters.get("compressionThreshold");
+        if (compressionThreshold != null) {
+            try {
+                settings.compressionThreshold = Math.max(0, Integer.parseInt(compressionThreshold));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid compressionThreshold '" + compressionThreshold + "' - using " + settings.compressionThreshold + "\n");
+            }
+        }
+        String requestBatchSize = namedParameters.get("requestBatchSize");
+        if (requestBatchSize != null) {
+            try {
+                settings.requestBatchSize = Math.min(JobSender.MAX_BATCH_SIZE, Math.max(1, Integer.parseInt(requestBatchSize)));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid requestBatchSize '" + requestBatchSize + "' - using " + settings.requestBatchSize + "\n");
+            }
+        }
+        return settings;
+    }
+
+    public int getMaxChunkLength() {
+        return maxChunkLength;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public int getRequestBatchSize() {
+        return requestBatchSize;
+    }
+}
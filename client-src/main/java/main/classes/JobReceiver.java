@@ -1,30 +1,83 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.MultiPacketTransfers.ReceivedTransfer;
 import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
+import PacketCommunication.enums.Compression;
 import PacketCommunication.enums.PacketArgKey;
 import javafx.scene.control.TextArea;
 import main.Logging;
 import main.enums.JobType;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This abstract class is used for receiving and extracting Jobs from packets
  */
 public abstract class JobReceiver extends PacketReceiver {
     /**
-     * Receive a job from a packet read from the given BufferedReader
+     * Receive a job from the packets read from the given PacketFrameReader. If the job's result is too long for the
+     * job's packet, the job is only returned once the result's packets have been received. In the meantime, packets of
+     * other jobs' results, and packets about the inputs sent over the same connection, are handled as they are read
+     * (see MultiPacketTransfers), as is the master's acknowledgement of the compression requested (see
+     * ConnectToMasterTask).
+     * @param out the PacketFrameWriter of the same connection, to acknowledge results or request their missing packets
      * */
-    public Job receiveJob(BufferedReader in, TextArea logsTextArea) throws IOException {
-        PacketDecoder packetDecoder = receiveOnePacket(in);
-        if (packetDecoder == null) {
-            Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
-                    " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
-            return null;
+    public Job receiveJob(PacketFrameReader in, PacketFrameWriter out, MultiPacketTransfers transfers,
+                          TextArea logsTextArea) throws IOException {
+        while (true) {
+            PacketDecoder packetDecoder = receiveOnePacket(in);
+            if (packetDecoder == null) {
+                Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
+                        " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
+                return null;
+            }
+            if (MultiPacketTransfers.isMissingPacketsPacket(packetDecoder)) {
+                transfers.onMissingPacketsPacket(packetDecoder, out::writePacket);
+                continue;
+            }
+            if (MultiPacketTransfers.isCompressionPacket(packetDecoder)) {
+                Compression compression = transfers.negotiateCompression(packetDecoder.getArg(PacketArgKey.COMPRESSION));
+                Logging.consoleLogAndAppendToGUILogs("Using " + compression + " compression\n", logsTextArea);
+                continue;
+            }
+            if (MultiPacketTransfers.isTransferPacket(packetDecoder)) {
+                ReceivedTransfer transfer = transfers.onTransferPacket(packetDecoder, out::writePacket);
+                if (transfer == null) {
+                    continue;
+                }
+                Job job = getJobFromPacket(transfer.getFirstPacket(), logsTextArea);
+                byte[] result = transfer.getPayload();
+                if (job == null || result == null) {
+                    Logging.consoleLogAndAppendToGUILogs("Error while receiving the result of job #" +
+                            packetDecoder.getArg(PacketArgKey.JOB_ID) + ". Some of the result's packets were invalid\n", logsTextArea);
+                    return null;
+                }
+                job.setResult(new String(result, StandardCharsets.UTF_8));
+                return job;
+            }
+            Job job = receiveJobPacket(packetDecoder, logsTextArea);
+            if (job == null || !packetDecoder.containsArg(PacketArgKey.RESULT_LENGTH)) {
+                return job;
+            }
+            int resultLength = getResultLength(packetDecoder);
+            if (resultLength <= 0 || !transfers.startReceiving(packetDecoder.getArg(PacketArgKey.JOB_ID), packetDecoder, resultLength)) {
+                Logging.consoleLogAndAppendToGUILogs("Error while receiving job #" +
+                        packetDecoder.getArg(PacketArgKey.JOB_ID) + " - invalid result length\n", logsTextArea);
+                return null;
+            }
         }
+    }
 
+    /**
+     * Receive a job from its own packet
+     * @return the job, or <code>null</code> if the packet is invalid
+     * */
+    private Job receiveJobPacket(PacketDecoder packetDecoder, TextArea logsTextArea) {
         if (!packetContainsValidJob(packetDecoder)) {
             Logging.consoleLogAndAppendToGUILogs("Error while receiving Job. Received " +
                     "Packet without expected args\n", logsTextArea);
@@ -36,10 +89,22 @@ public abstract class JobReceiver extends PacketReceiver {
             Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
                     " Received packet with invalid structure, packet likely corrupt.\n\tPacket: '" +
                     packetDecoder.getPacketString() + "'\n", logsTextArea);
+            return null;
         }
         return job;
     }
 
+    /**
+     * @return the length of the result given in the job's packet, or -1 if the length is invalid
+     * */
+    private static int getResultLength(PacketDecoder jobPacket) {
+        try {
+            return jobPacket.getIntArg(PacketArgKey.RESULT_LENGTH);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private boolean packetContainsValidJob(PacketDecoder packetDecoder) {
         return packetDecoder.containsArg(PacketArgKey.JOB_ID) && packetDecoder.containsArg(PacketArgKey.JOB_SUCCEEDED);
     }
@@ -47,9 +112,9 @@ public abstract class JobReceiver extends PacketReceiver {
     private Job getJobFromPacket(PacketDecoder packetDecoder, TextArea logsTextArea) {
         Job job = new Job();
         try {
-            job.setJobId(Integer.parseInt(packetDecoder.getArg(PacketArgKey.JOB_ID)));
+            job.setJobId(packetDecoder.getLongArg(PacketArgKey.JOB_ID));
             job.setJobType(JobType.valueOf(packetDecoder.getArg(PacketArgKey.JOB_TYPE)));
-            job.setSucceeded(Boolean.parseBoolean(packetDecoder.getArg(PacketArgKey.JOB_SUCCEEDED)));
+            job.setSucceeded(packetDecoder.getBooleanArg(PacketArgKey.JOB_SUCCEEDED));
             job.setResult(packetDecoder.getMessage());
             return job;
         } catch (IllegalArgumentException e) {
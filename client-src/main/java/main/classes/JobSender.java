@@ -1,29 +1,128 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
 import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameWriter;
 import PacketCommunication.enums.PacketArgKey;
+import main.enums.JobKind;
 import javafx.concurrent.Task;
 
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * This abstract class is used for sending a job as a packet
  */
 public abstract class JobSender extends Task<Void> {
+    public static final int MAX_BATCH_SIZE = 4096;  // the most jobs sent in one batch packet, as the master rejects larger batches
+
     /**
-     * Pack the given job into a packet and output it to the given PrintWriter
+     * Pack the given job into a packet and write it to the given PacketFrameWriter. The job kind and size are only sent
+     * for jobs that aren't of the DEFAULT kind, so that masters that don't know of job kinds can still read the packet.
+     * If the job has an input, the packet holds the input's length, and the input itself is then written in packets of
+     * its own, each holding the job's id, compressed if the transfers compress it. The input is kept until the master
+     * acknowledges it (see MultiPacketTransfers).
      * */
-    public boolean sendJob(Job jobToSend, PrintWriter out) {
-        HashMap<PacketArgKey, String> args = new HashMap<>();
-        args.put(PacketArgKey.JOB_ID, String.valueOf(jobToSend.getJobId()));
-        args.put(PacketArgKey.JOB_TYPE, String.valueOf(jobToSend.getJobType()));
-        args.put(PacketArgKey.JOB_SUCCEEDED, String.valueOf(jobToSend.getSucceeded()));
-        PacketEncoder packetEncoder = new PacketEncoder(args);
+    public boolean sendJob(Job jobToSend, PacketFrameWriter out, MultiPacketTransfers transfers) {
+        PacketEncoder packetEncoder = new PacketEncoder();
+        packetEncoder.setArg(PacketArgKey.JOB_ID, jobToSend.getJobId());
+        packetEncoder.setArg(PacketArgKey.JOB_TYPE, String.valueOf(jobToSend.getJobType()));
+        packetEncoder.setArg(PacketArgKey.JOB_SUCCEEDED, jobToSend.getSucceeded());
+        if (jobToSend.getJobKind() != JobKind.DEFAULT) {
+            packetEncoder.setArg(PacketArgKey.JOB_KIND, jobToSend.getJobKind().name());
+            packetEncoder.setArg(PacketArgKey.JOB_SIZE, jobToSend.getJobSize());
+        }
+        if (jobToSend.getInput().length > 0) {
+            packetEncoder.setArg(PacketArgKey.INPUT_LENGTH, jobToSend.getInput().length);
+        }
         packetEncoder.setMessage(jobToSend.getResult());
-        out.print(packetEncoder);
-        return !out.checkError();
+        byte[] sentInput = jobToSend.getInput().length > 0 ? transfers.compress(jobToSend.getInput(), packetEncoder) : null;
+        if (!out.writePacket(packetEncoder)) {
+            return false;
+        }
+        if (sentInput == null) {
+            return true;
+        }
+        HashMap<PacketArgKey, String> inputArgs = new HashMap<>();
+        inputArgs.put(PacketArgKey.JOB_ID, String.valueOf(jobToSend.getJobId()));
+        MultiPacketEncoder inputPackets = new MultiPacketEncoder(inputArgs, new HashMap<>(), sentInput, transfers.getMaxChunkLength());
+        return transfers.send(String.valueOf(jobToSend.getJobId()), inputPackets, out::writePacket);
+    }
+
+    /**
+     * Pack the given jobs into as few packets as possible and write them to the given PacketFrameWriter. Jobs without an
+     * input are packed together into batch packets, each holding the jobs' ids, types and successes (and kinds and
+     * sizes, if any of them isn't of the DEFAULT kind) as array args, and their messages one after the other as its
+     * message, with the length of each in the MESSAGE_LENGTHS arg. A batch packet holds at most MAX_BATCH_SIZE jobs, and its
+     * message is at most the transfers' max chunk length. Jobs with an input, and batches of a single job, are sent on their own (see sendJob).
+     * @return <code>true</code> if all the jobs were written, else <code>false</code>
+     * */
+    public boolean sendJobs(List<Job> jobsToSend, PacketFrameWriter out, MultiPacketTransfers transfers) {
+        List<Job> batch = new ArrayList<>();
+        int batchMessageLength = 0;
+        for (Job job : jobsToSend) {
+            int messageLength = job.getResult() != null ? job.getResult().length() : 0;
+            if (job.getInput().length > 0 || messageLength > transfers.getMaxChunkLength()) {
+                if (!sendJob(job, out, transfers)) {
+                    return false;
+                }
+                continue;
+            }
+            if ((batchMessageLength + messageLength > transfers.getMaxChunkLength() || batch.size() == MAX_BATCH_SIZE)
+                    && !batch.isEmpty()) {
+                if (!sendBatch(batch, out, transfers)) {
+                    return false;
+                }
+                batch.clear();
+                batchMessageLength = 0;
+            }
+            batch.add(job);
+            batchMessageLength += messageLength;
+        }
+        return batch.isEmpty() || sendBatch(batch, out, transfers);
+    }
+
+    /**
+     * Write the given jobs, which have no inputs and whose messages all fit in one packet together, as one batch packet
+     * (see sendJobs)
+     * */
+    private boolean sendBatch(List<Job> batch, PacketFrameWriter out, MultiPacketTransfers transfers) {
+        if (batch.size() == 1) {
+            return sendJob(batch.get(0), out, transfers);
+        }
+        long[] jobIds = new long[batch.size()];
+        Object[] jobTypes = new Object[batch.size()];
+        Object[] jobsSucceeded = new Object[batch.size()];
+        Object[] jobKinds = new Object[batch.size()];
+        Object[] jobSizes = new Object[batch.size()];
+        Object[] messageLengths = new Object[batch.size()];
+        boolean allDefaultKind = true;
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            Job job = batch.get(i);
+            String jobMessage = job.getResult() != null ? job.getResult() : "";
+            jobIds[i] = job.getJobId();
+            jobTypes[i] = job.getJobType();
+            jobsSucceeded[i] = job.getSucceeded();
+            jobKinds[i] = job.getJobKind().name();
+            jobSizes[i] = job.getJobSize();
+            allDefaultKind &= job.getJobKind() == JobKind.DEFAULT;
+            messageLengths[i] = jobMessage.length();
+            message.append(jobMessage);
+        }
+        PacketEncoder packetEncoder = new PacketEncoder();
+        packetEncoder.setArg(PacketArgKey.JOB_ID, jobIds);
+        packetEncoder.setArg(PacketArgKey.JOB_TYPE, jobTypes);
+        packetEncoder.setArg(PacketArgKey.JOB_SUCCEEDED, jobsSucceeded);
+        if (!allDefaultKind) {
+            packetEncoder.setArg(PacketArgKey.JOB_KIND, jobKinds);
+            packetEncoder.setArg(PacketArgKey.JOB_SIZE, jobSizes);
+        }
+        packetEncoder.setArg(PacketArgKey.MESSAGE_LENGTHS, messageLengths);
+        packetEncoder.setMessage(message.toString());
+        return out.writePacket(packetEncoder);
     }
 }
@@ -0,0 +1,35 @@
+package main.enums;
+
+/**
+ * enum representing the work a job does. This is separate from the JobType, which determines which slaves are optimized
+ * for the job.
+ * <ul>
+ *     <li>DEFAULT - the job is executed by the slave's JobHandler for the job's JobType (by default, this only
+ *     simulates work)</li>
+ * </ul>
+ * The other kinds are built-in CPU-bound benchmarks, executed by the slave itself regardless of its JobHandlers. Each
+ * takes a size, in the unit given below (if the size is not set, the kind's default size is used):
+ * <ul>
+ *     <li>SHA256 - SHA-256 digest over <i>size</i> MB of generated data</li>
+ *     <li>MATRIX_MULTIPLY - multiplication of two generated <i>size</i> x <i>size</i> float matrices</li>
+ *     <li>SORT - parallel sort of <i>size</i> thousand generated ints</li>
+ *     <li>MONTE_CARLO_PI - Monte Carlo estimate of pi from <i>size</i> million random points</li>
+ * </ul>
+ * */
+public enum JobKind {
+    DEFAULT(0),
+    SHA256(64),
+    MATRIX_MULTIPLY(512),
+    SORT(10_000),
+    MONTE_CARLO_PI(100);
+
+    private final int defaultSize;
+
+    JobKind(int defaultSize) {
+        this.defaultSize = defaultSize;
+    }
+
+    public int getDefaultSize() {
+        return defaultSize;
+    }
+}
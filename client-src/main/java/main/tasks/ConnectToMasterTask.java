@@ -2,15 +2,19 @@
 package main.tasks;
 
 import PacketCommunication.IPConnection;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
+import PacketCommunication.enums.Compression;
+import PacketCommunication.enums.PacketArgKey;
 import javafx.concurrent.Task;
 import javafx.scene.control.TextArea;
 import main.ClientModel;
+import main.ClientSettings;
 import main.Logging;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 
 /**
@@ -21,17 +25,33 @@ public class ConnectToMasterTask extends Task<Void> {
     private final IPConnection ipConnection;
     private final TextArea logsTextArea;
     private final ClientModel clientModel;
+    private final ClientSettings settings;
     private ReceiveJobResultTask receiveJobResultTask;
     private SendJobRequestTask sendJobRequestTask;
     private Thread receiveJobResultThread;
     private Thread sendJobRequestsThread;
 
-    public ConnectToMasterTask(IPConnection ipConnection, ClientModel clientModel, TextArea logsTextArea) {
+    public ConnectToMasterTask(IPConnection ipConnection, ClientModel clientModel, ClientSettings settings, TextArea logsTextArea) {
         this.ipConnection = ipConnection;
         this.clientModel = clientModel;
+        this.settings = settings;
         this.logsTextArea = logsTextArea;
     }
 
+    /**
+     * If a compression is set, ask the master to compress the inputs and results sent in packets of their own. Inputs
+     * are sent uncompressed until the master's acknowledgement is received (see JobReceiver).
+     * @return <code>true</code> if the request was sent (or didn't need to be), else <code>false</code>
+     */
+    private boolean requestCompression(PacketFrameWriter masterOut) {
+        if (settings.getCompression() == Compression.NONE) {
+            return true;
+        }
+        PacketEncoder packetEncoder = new PacketEncoder();
+        packetEncoder.setArg(PacketArgKey.COMPRESSION, settings.getCompression().name());
+        return masterOut.writePacket(packetEncoder);
+    }
+
     /**
      * Connect to the Master and launch the input and output threads. Join those threads so that the socket is open until
      * they are done. If this task is cancelled, cancel the child tasks as well.
@@ -41,15 +61,19 @@ public class ConnectToMasterTask extends Task<Void> {
         updateMessage("Connecting to Master...");
         Logging.consoleLogAndAppendToGUILogs("Connecting to Master...\n", logsTextArea);
         try (Socket socket = new Socket(ipConnection.getIp(), ipConnection.getPort());
-             PrintWriter masterOut = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader masterIn = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             PacketFrameWriter masterOut = new PacketFrameWriter(socket.getOutputStream());
+             PacketFrameReader masterIn = new PacketFrameReader(socket.getInputStream());
         ) {
             updateMessage("Connected to Master");
             Logging.consoleLogAndAppendToGUILogs("Connected to Master\nReady to receive packet\n", logsTextArea);
 
+            MultiPacketTransfers transfers = new MultiPacketTransfers(settings.getMaxChunkLength(), settings.getCompression(),
+                    settings.getCompressionThreshold());
+            requestCompression(masterOut);
+
             // launch threads for input and output to the master:
-            sendJobRequestTask = new SendJobRequestTask(clientModel, masterOut, logsTextArea);
-            receiveJobResultTask = new ReceiveJobResultTask(clientModel, masterIn, logsTextArea);
+            sendJobRequestTask = new SendJobRequestTask(clientModel, masterOut, transfers, logsTextArea, settings.getRequestBatchSize());
+            receiveJobResultTask = new ReceiveJobResultTask(clientModel, masterIn, masterOut, transfers, logsTextArea);
             sendJobRequestsThread = new Thread(sendJobRequestTask, "Thread-SendJobRequests");
             receiveJobResultThread = new Thread(receiveJobResultTask, "Thread-ReceiveJobResults");
 
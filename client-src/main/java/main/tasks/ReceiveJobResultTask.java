@@ -1,13 +1,15 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.ClientModel;
 import main.Logging;
 import main.classes.Job;
 import main.classes.JobReceiver;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 
 /**
@@ -15,12 +17,17 @@ import java.io.IOException;
  */
 public class ReceiveJobResultTask extends JobReceiver {
     private final ClientModel clientModel;
-    private final BufferedReader socketIn;
+    private final PacketFrameReader socketIn;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
 
-    public ReceiveJobResultTask(ClientModel clientModel, BufferedReader socketIn, TextArea logsTextArea) {
+    public ReceiveJobResultTask(ClientModel clientModel, PacketFrameReader socketIn, PacketFrameWriter socketOut,
+                                MultiPacketTransfers transfers, TextArea logsTextArea) {
         this.clientModel = clientModel;
         this.socketIn = socketIn;
+        this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
     }
 
@@ -31,7 +38,7 @@ public class ReceiveJobResultTask extends JobReceiver {
     protected Void call() {
         try (socketIn) {
             while (!isCancelled()) {
-                Job job = receiveJob(socketIn, logsTextArea);
+                Job job = receiveJob(socketIn, socketOut, transfers, logsTextArea);
                 if (job == null) {
                     Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job result from Master\n", logsTextArea);
                     continue;
@@ -1,26 +1,36 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.ClientModel;
 import main.Logging;
 import main.classes.Job;
 import main.classes.JobSender;
 
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * This task is responsible for sending the job requests to the master
+ * This task is responsible for sending the job requests to the master.
+ * When the batch size is more than 1, the jobs queued are instead taken in batches, and requested together in as few
+ * packets as possible (see JobSender.sendJobs).
  */
 public class SendJobRequestTask extends JobSender {
     private final ClientModel clientModel;
-    private final PrintWriter socketOut;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
+    private final int batchSize;  // the maximum number of jobs requested together
 
-    public SendJobRequestTask( ClientModel clientModel, PrintWriter socketOut, TextArea logsTextArea) {
+    public SendJobRequestTask( ClientModel clientModel, PacketFrameWriter socketOut, MultiPacketTransfers transfers, TextArea logsTextArea,
+                               int batchSize) {
         this.clientModel = clientModel;
         this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
+        this.batchSize = batchSize;
     }
 
 
@@ -32,6 +42,9 @@ public class SendJobRequestTask extends JobSender {
      */
     @Override
     protected Void call() {
+        if (batchSize > 1) {
+            return sendJobRequestBatches();
+        }
         Job jobToSend = null;
         try (socketOut) {
             while (!isCancelled()) {
@@ -43,7 +56,7 @@ public class SendJobRequestTask extends JobSender {
                 }
 
                 if (jobToSend != null) {
-                    boolean succeeded = sendJob(jobToSend, socketOut);
+                    boolean succeeded = sendJob(jobToSend, socketOut, transfers);
                     if (succeeded) {
                         Logging.consoleLogAndAppendToGUILogs("Sent job request to master: [" + jobToSend + "]\n", logsTextArea);
                     } else {
@@ -58,4 +71,34 @@ public class SendJobRequestTask extends JobSender {
             return null;
         }
     }
+
+    /**
+     * Request jobs from the master in batches of up to batchSize jobs, until cancelled or an error occurs
+     */
+    private Void sendJobRequestBatches() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        try (socketOut) {
+            while (!isCancelled()) {
+                batch.clear();
+                try {
+                    clientModel.dequeJobsToRequest(batch, batchSize);
+                } catch (InterruptedException e) {
+                    Logging.consoleLogAndAppendToGUILogs("Thread interrupted or cancelled while waiting to dequeue" +
+                            "the next jobs to request:\n" + e.getMessage() + "\n", logsTextArea);
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                if (sendJobs(batch, socketOut, transfers)) {
+                    Logging.consoleLogAndAppendToGUILogs("Sent " + batch.size() + " job requests to master: " + batch + "\n", logsTextArea);
+                } else {
+                    Logging.consoleLogAndAppendToGUILogs(("Unable to connect to master and send job requests -> " + batch + "\n"), logsTextArea);
+                }
+            }
+            Logging.consoleLogAndAppendToGUILogs("Send job request task cancelled by Client program\n", logsTextArea);
+            socketOut.close();
+            return null;
+        }
+    }
 }
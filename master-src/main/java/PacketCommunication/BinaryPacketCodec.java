@@ -0,0 +1,311 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.PacketArgKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class encodes packets into, and decodes packets from, the binary wire format. This is a compact alternative
+ * to the text format that avoids building and parsing the header as a String.
+ * <p>
+ * A binary packet is laid out as follows:
+ * <ul>
+ *     <li>fixed header: the length of the rest of the packet as a 4-byte big-endian int, a magic byte, and a flags byte</li>
+ *     <li>the number of args, as a varint</li>
+ *     <li>for each arg: the ordinal of its PacketArgKey as a varint, a byte indicating the value's type, and the
+ *     value itself (ints as zigzag varints, longs as zigzag varlongs, booleans as a single byte, Strings as a varint
+ *     length and UTF-8 bytes, and long arrays as a varint length and the zigzag varlong of each element)</li>
+ *     <li>the length of the message payload as a varint, followed by the payload's raw (UTF-8) bytes</li>
+ * </ul>
+ * If the PAYLOAD flag is set, the message is a chunk of a payload of bytes (see MultiPacketEncoder), and its bytes are
+ * the chunk itself, rather than the UTF-8 bytes of its hex encoding as in the text format.
+ * </p>
+ */
+public class BinaryPacketCodec {
+    public static final int LENGTH_FIELD_NUM_BYTES = 4;
+    public static final int MAX_PACKET_LENGTH = 64 * 1024 * 1024;  // the largest length field accepted when reading
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final byte NO_FLAGS = 0;
+    private static final byte FLAG_PAYLOAD = 1;
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_LONG_ARRAY = 4;
+    private static final PacketArgKey[] ARG_KEYS = PacketArgKey.values();
+
+    /**
+     * @return the bytes of the given packet in the binary format, including the fixed header
+     */
+    public static byte[] encode(PacketEncoder packet) {
+        HashMap<PacketArgKey, Object> args = packet.getArgValues();
+        byte[] payload = packet.getPayload();
+        byte[] message = payload != null ? payload : packet.getMessage().getBytes(StandardCharsets.UTF_8);
+        int messageOffset = payload != null ? packet.getPayloadFrom() : 0;
+        int messageLength = payload != null ? packet.getPayloadTo() - packet.getPayloadFrom() : message.length;
+        ByteWriter writer = new ByteWriter(messageLength + 16 * (args.size() + 1));
+        writer.skip(LENGTH_FIELD_NUM_BYTES);  // filled in once the length is known
+        writer.writeByte(MAGIC);
+        writer.writeByte(payload != null ? FLAG_PAYLOAD : NO_FLAGS);
+        writer.writeVarint(args.size());
+        for (Map.Entry<PacketArgKey, Object> arg : args.entrySet()) {
+            writer.writeVarint(arg.getKey().ordinal());
+            Object value = arg.getValue();
+            if (value instanceof Integer) {
+                writer.writeByte(TYPE_INT);
+                writer.writeVarint(zigzagEncode((Integer) value));
+            } else if (value instanceof Long) {
+                writer.writeByte(TYPE_LONG);
+                writer.writeVarlong(zigzagEncode((long) (Long) value));
+            } else if (value instanceof Boolean) {
+                writer.writeByte(TYPE_BOOLEAN);
+                writer.writeByte((Boolean) value ? 1 : 0);
+            } else if (value instanceof long[]) {
+                long[] values = (long[]) value;
+                writer.writeByte(TYPE_LONG_ARRAY);
+                writer.writeVarint(values.length);
+                for (long element : values) {
+                    writer.writeVarlong(zigzagEncode(element));
+                }
+            } else {
+                byte[] valueBytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+                writer.writeByte(TYPE_STRING);
+                writer.writeVarint(valueBytes.length);
+                writer.writeBytes(valueBytes, 0, valueBytes.length);
+            }
+        }
+        writer.writeVarint(messageLength);
+        writer.writeBytes(message, messageOffset, messageLength);
+        writer.writeIntAt(0, writer.length() - LENGTH_FIELD_NUM_BYTES);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decode a binary packet. The given bytes are those following the packet's length field.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid binary packet
+     */
+    public static PacketDecoder decode(byte[] bytes, int offset, int length) {
+        ByteReader reader = new ByteReader(bytes, offset, length);
+        if (reader.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Packet is not in the binary format");
+        }
+        byte flags = reader.readByte();
+        int numArgs = reader.readVarint();
+        HashMap<PacketArgKey, Object> args = new HashMap<>();
+        for (int i = 0; i < numArgs; i++) {
+            int ordinal = reader.readVarint();
+            if (ordinal < 0 || ordinal >= ARG_KEYS.length) {
+                throw new IllegalArgumentException(ordinal + " is not a valid PacketArg ordinal");
+            }
+            byte type = reader.readByte();
+            switch (type) {
+                case TYPE_INT:
+                    args.put(ARG_KEYS[ordinal], zigzagDecode(reader.readVarint()));
+                    break;
+                case TYPE_LONG:
+                    args.put(ARG_KEYS[ordinal], zigzagDecode(reader.readVarlong()));
+                    break;
+                case TYPE_BOOLEAN:
+                    args.put(ARG_KEYS[ordinal], reader.readByte() != 0);
+                    break;
+                case TYPE_LONG_ARRAY:
+                    args.put(ARG_KEYS[ordinal], reader.readVarlongs(reader.readVarint()));
+                    break;
+                case TYPE_STRING:
+                    args.put(ARG_KEYS[ordinal], reader.readString(reader.readVarint()));
+                    break;
+                default:
+                    throw new IllegalArgumentException(type + " is not a valid binary arg type");
+            }
+        }
+        if ((flags & FLAG_PAYLOAD) != 0) {
+            return new PacketDecoder(args, reader.readBytes(reader.readVarint()));
+        }
+        String message = reader.readString(reader.readVarint());
+        return new PacketDecoder(args, message);
+    }
+
+    /**
+     * @return the length of the packet following the length field, read from the first 4 bytes at the given offset
+     */
+    public static int readLengthField(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static int zigzagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigzagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * A growable byte array to encode a packet into
+     */
+    private static class ByteWriter {
+        private byte[] bytes;
+        private int length = 0;
+
+        ByteWriter(int initialCapacity) {
+            bytes = new byte[initialCapacity];
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(length + 1);
+            bytes[length++] = (byte) b;
+        }
+
+        void writeBytes(byte[] source, int offset, int numBytes) {
+            ensureCapacity(length + numBytes);
+            System.arraycopy(source, offset, bytes, length, numBytes);
+            length += numBytes;
+        }
+
+        /**
+         * Write an unsigned varint - 7 bits per byte, with the high bit set on all but the last byte
+         */
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        /**
+         * Write an unsigned varlong - the 64-bit counterpart of writeVarint
+         */
+        void writeVarlong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeIntAt(int position, int value) {
+            bytes[position] = (byte) (value >>> 24);
+            bytes[position + 1] = (byte) (value >>> 16);
+            bytes[position + 2] = (byte) (value >>> 8);
+            bytes[position + 3] = (byte) value;
+        }
+
+        void skip(int numBytes) {
+            ensureCapacity(length + numBytes);
+            length += numBytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] toByteArray() {
+            if (bytes.length == length) {
+                return bytes;
+            }
+            byte[] trimmed = new byte[length];
+            System.arraycopy(bytes, 0, trimmed, 0, length);
+            return trimmed;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (bytes.length < capacity) {
+                byte[] newBytes = new byte[Math.max(capacity, bytes.length * 2)];
+                System.arraycopy(bytes, 0, newBytes, 0, length);
+                bytes = newBytes;
+            }
+        }
+    }
+
+    /**
+     * Reads the fields of a binary packet, checking that they don't run past the end of the packet
+     */
+    private static class ByteReader {
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+
+        ByteReader(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        byte readByte() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Binary packet ended unexpectedly");
+            }
+            return bytes[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary packet");
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varlong in binary packet");
+        }
+
+        /**
+         * Read the given number of zigzag varlongs
+         */
+        long[] readVarlongs(int numValues) {
+            checkRemaining(numValues);  // each value takes up at least one byte
+            long[] values = new long[numValues];
+            for (int i = 0; i < numValues; i++) {
+                values[i] = zigzagDecode(readVarlong());
+            }
+            return values;
+        }
+
+        String readString(int numBytes) {
+            checkRemaining(numBytes);
+            String value = new String(bytes, position, numBytes, StandardCharsets.UTF_8);
+            position += numBytes;
+            return value;
+        }
+
+        byte[] readBytes(int numBytes) {
+            checkRemaining(numBytes);
+            byte[] value = Arrays.copyOfRange(bytes, position, position + numBytes);
+            position += numBytes;
+            return value;
+        }
+
+        private void checkRemaining(int numBytes) {
+            if (numBytes < 0 || numBytes > end - position) {
+                throw new IllegalArgumentException("Binary packet ended unexpectedly");
+            }
+        }
+    }
+}
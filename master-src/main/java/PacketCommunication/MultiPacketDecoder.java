@@ -5,6 +5,7 @@ import PacketCommunication.enums.PacketArgKey;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Set;
 
@@ -15,19 +16,35 @@ import java.util.Set;
  * If the packets do not include a message and only include headers, a map of the args is built and retrievable from this
  * class.
  * Args only relevant for this class's internal works are not exposed (e.g., sequence numbers).
+ * The full length of a message or payload is known from its first packet (see MultiPacketEncoder), so each chunk is
+ * decoded straight into its place in a buffer of the full length, whatever order the packets arrive in.
  */
 public class MultiPacketDecoder {
     private final HashMap<PacketArgKey, String> args = new HashMap<>();
-    private String[] packetMessages;
+    private char[] message;  // null until the first packet of a message is received
     private HashSet<Integer> missingPackets;
-    private final StringBuilder fullMessage = new StringBuilder();
+    private String fullMessage;
     private int totalPackets = 0;
     private int receivedPackets = 0;
     private float percentComplete = 0;
+    private byte[] payload;  // null if this decoder builds a message
+    private int chunkLength;
 
     public MultiPacketDecoder() {
     }
 
+    /**
+     * Constructor for decoding a payload of bytes of the given length
+     *
+     * @throws IllegalArgumentException if the length is negative or over MultiPacketTransfers.MAX_PAYLOAD_LENGTH
+     */
+    public MultiPacketDecoder(int payloadLength) {
+        if (payloadLength < 0 || payloadLength > MultiPacketTransfers.MAX_PAYLOAD_LENGTH) {
+            throw new IllegalArgumentException("Invalid payload length " + payloadLength);
+        }
+        payload = new byte[payloadLength];
+    }
+
     public MultiPacketDecoder(List<PacketDecoder> packetDecoders) {
         packetDecoders.forEach(this::addPacket);
     }
@@ -42,10 +59,17 @@ public class MultiPacketDecoder {
     public void addPacket(PacketDecoder packetDecoder) {
         boolean packetContainsMessage = packetDecoder.containsArg(PacketArgKey.SEQUENCE_NUM);
         if (packetContainsMessage) {
-            boolean arrayNotYetCreated = packetMessages == null;
-            if (arrayNotYetCreated) {
+            boolean firstPacketOfSequence = missingPackets == null;
+            if (firstPacketOfSequence) {
                 totalPackets = Integer.parseInt(packetDecoder.getArg(PacketArgKey.TOTAL_PACKETS));
-                packetMessages = new String[totalPackets];
+                if (payload == null) {
+                    int messageLength = packetDecoder.getIntArg(PacketArgKey.MESSAGE_LENGTH);
+                    if (messageLength < 0 || messageLength > MultiPacketTransfers.MAX_PAYLOAD_LENGTH) {
+                        throw new IllegalArgumentException("Invalid message length " + messageLength);
+                    }
+                    message = new char[messageLength];
+                }
+                chunkLength = MultiPacketEncoder.getChunkLength(payload == null ? message.length : payload.length, totalPackets);
                 missingPackets = new HashSet<>();
                 for (int i = 0; i < totalPackets; i++) {
                     missingPackets.add(i);
@@ -55,8 +79,7 @@ public class MultiPacketDecoder {
             boolean containsSequenceNum = packetDecoder.containsArg(PacketArgKey.SEQUENCE_NUM);
             if (containsSequenceNum) {  // else, packet will be left as missing, and will hopefully be sent correctly later with the SEQUENCE_NUM
                 int sequenceNum = Integer.parseInt(packetDecoder.getArg(PacketArgKey.SEQUENCE_NUM));
-                if (missingPackets.contains(sequenceNum)) {
-                    packetMessages[sequenceNum] = packetDecoder.getMessage();
+                if (missingPackets.contains(sequenceNum) && addMessage(sequenceNum, packetDecoder)) {
                     missingPackets.remove(sequenceNum);
                     receivedPackets++;
                     percentComplete = (receivedPackets / (float) totalPackets) * 100;
@@ -72,23 +95,73 @@ public class MultiPacketDecoder {
         }
     }
 
+    /**
+     * Copy the message of the packet with the given sequence number into its place in the full message. A payload
+     * chunk is copied into its place in the payload - as is if the packet holds its raw bytes, else hex decoded.
+     *
+     * @return <code>false</code> if the message is not a valid chunk, so the packet is still missing
+     */
+    private boolean addMessage(int sequenceNum, PacketDecoder packetDecoder) {
+        int fullLength = payload == null ? message.length : payload.length;
+        int offset = sequenceNum * chunkLength;
+        int length = Math.min(fullLength - offset, chunkLength);
+        if (sequenceNum < 0 || sequenceNum >= totalPackets || length < 0) {
+            return false;
+        }
+        byte[] rawChunk = packetDecoder.getPayload();
+        if (payload != null && rawChunk != null) {
+            if (rawChunk.length != length) {
+                return false;
+            }
+            System.arraycopy(rawChunk, 0, payload, offset, length);
+            return true;
+        }
+        String chunk = packetDecoder.getMessage();
+        if (chunk.length() != (payload == null ? length : length * 2)) {
+            return false;
+        }
+        if (payload == null) {
+            chunk.getChars(0, length, message, offset);
+            return true;
+        }
+        try {
+            for (int i = 0; i < length; i++) {
+                payload[offset + i] = (byte) HexFormat.fromHexDigits(chunk, i * 2, i * 2 + 2);
+            }
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the payload, if all of its packets have been received, else <code>null</code>
+     */
+    public byte[] getPayload() {
+        return payload != null && receivedAllPackets() ? payload : null;
+    }
+
     /**
      * @param onlyIfComplete whether to only return the message if all packets from the sequence have been received
      * @return the full message from all packets in this sequence
      */
     public String getFullMessage(boolean onlyIfComplete) {
+        if (message == null) {
+            return receivedAllPackets() || !onlyIfComplete ? "" : null;
+        }
         if (receivedAllPackets()) {
-            if (fullMessage.length() == 0) {  // no need to build up the message if we've already stored it
-                for (String msg : packetMessages) {
-                    fullMessage.append(msg);
-                }
+            if (fullMessage == null) {  // no need to build up the message if we've already stored it
+                fullMessage = new String(message);
             }
-            return fullMessage.toString();
+            return fullMessage;
         }
         if (!onlyIfComplete) {
             StringBuilder incompleteMessage = new StringBuilder();
-            for (String msg : packetMessages) {
-                incompleteMessage.append(msg);
+            for (int sequenceNum = 0; sequenceNum < totalPackets; sequenceNum++) {
+                if (!missingPackets.contains(sequenceNum)) {
+                    int offset = sequenceNum * chunkLength;
+                    incompleteMessage.append(message, offset, Math.min(message.length - offset, chunkLength));
+                }
             }
             return incompleteMessage.toString();
         }
@@ -96,11 +169,37 @@ public class MultiPacketDecoder {
     }
 
     /**
-     * @return <code>true</code> if all packets for the larger message have been received or if the packets
+     * @return <code>true</code> if all packets for the larger message or payload have been received or if the packets
      * added to this decoder do not have a message, else <code>false</code>
      */
     public boolean receivedAllPackets() {
-        return missingPackets == null || getMissingPacketNumbers().size() == 0;
+        if (missingPackets == null) {
+            return payload == null || payload.length == 0;  // a payload is only complete once its packets are received
+        }
+        return missingPackets.isEmpty();
+    }
+
+    /**
+     * @return <code>true</code> if the sender marked the last packet it sent as completed, i.e., it has sent all of its
+     * packets, whether or not they were all received correctly
+     */
+    public boolean isSenderDone() {
+        return "T".equals(args.get(PacketArgKey.COMPLETED));
+    }
+
+    /**
+     * @param args any additional args to include in the packet (e.g., to identify which message it is for)
+     * @return a packet reporting the packets still missing to the sender, so that it can send only those again. A
+     * packet reporting 0 packets missing lets the sender know that the message was received.
+     */
+    public PacketEncoder getMissingPacketsPacket(HashMap<PacketArgKey, String> args) {
+        PacketEncoder packet = new PacketEncoder(args, new HashMap<>());
+        Set<Integer> missingPacketNums = missingPackets == null ? Set.of() : missingPackets;
+        packet.setArg(PacketArgKey.TOTAL_PACKETS_MISSING, missingPacketNums.size());
+        if (!missingPacketNums.isEmpty()) {
+            packet.setArg(PacketArgKey.MISSING_PACKET_NUMS, missingPacketNums.toArray(new Integer[0]));
+        }
+        return packet;
     }
 
     /**
@@ -8,62 +8,159 @@ import java.util.HashMap;
 
 /**
  * This class is responsible for taking a full message and encoding it into packet Strings formatted to be sent to or
- * from a Client
+ * from a Client.
+ * A payload of bytes can be encoded instead of a message. The payload is split into chunks of about equal size, and
+ * each chunk is sent as the message of its own packet - as raw bytes in the binary wire format, and hex encoded in the
+ * text wire format, which may only contain word characters (see PacketEncoder.setPayload).
+ * Messages are split into chunks in the same way, and each packet holds the full message's length, so that the
+ * receiver can put each chunk in its place as it arrives (see MultiPacketDecoder). The packets are only created as
+ * they are asked for, so that a large message or payload never has to be held as packets all at once, and so that any
+ * packets the receiver reports missing can be created again.
  */
 public class MultiPacketEncoder {
-    private final int MAX_MESSAGE_LENGTH = 100;
+    public static final int DEFAULT_MAX_CHUNK_LENGTH = 64 * 1024;
     private final ArrayList<PacketEncoder> packets = new ArrayList<>();
 
     private int totalPackets = 0;
+    private final HashMap<PacketArgKey, String> args;
+    private final HashMap<PacketArgKey, Object[]> arrayArgs;
+    private String message;  // null if this encoder holds a payload, or has no message
+    private byte[] payload;  // null if this encoder holds a message
+    private int chunkLength;
+
+    /**
+     * Constructor that creates the individual packet(s) for this message, with chunks of at most
+     * DEFAULT_MAX_CHUNK_LENGTH chars
+     */
+    public MultiPacketEncoder(HashMap<PacketArgKey, String> args, HashMap<PacketArgKey, Object[]> arrayArgs, String fullMessage) {
+        this(args, arrayArgs, fullMessage, DEFAULT_MAX_CHUNK_LENGTH);
+    }
 
     /**
      * Constructor that creates the individual packet(s) for this message
      *
-     * @param fullMessage the message to send, if applicable. If included, it will be broken up into packets each with a
-     *                    max length of MAX_MESSAGE_LENGTH. The Completed, TotalPackets, and SequenceNum args are
-     *                    automatically applied to the packets as broken down.
-     * @param args        the args to include in each packet. This is primarily used when trying to send a packet without any
-     *                    message (e.g., a packet sent from the client just indicating which packets it is missing). However, it
-     *                    can also be used to include additional args besides for the auto-generated ones when sending a message.
+     * @param fullMessage    the message to send, if applicable. If included, it will be broken up into packets each with
+     *                       a max length of maxChunkLength. The Completed, TotalPackets, SequenceNum and MessageLength
+     *                       args are automatically applied to the packets as broken down.
+     * @param args           the args to include in each packet. This is primarily used when trying to send a packet without any
+     *                       message (e.g., a packet sent from the client just indicating which packets it is missing). However, it
+     *                       can also be used to include additional args besides for the auto-generated ones when sending a message.
+     * @param maxChunkLength the maximum number of chars of the message to send in each packet
      */
-    public MultiPacketEncoder(HashMap<PacketArgKey, String> args, HashMap<PacketArgKey, Object[]> arrayArgs, String fullMessage) {
+    public MultiPacketEncoder(HashMap<PacketArgKey, String> args, HashMap<PacketArgKey, Object[]> arrayArgs, String fullMessage,
+                              int maxChunkLength) {
+        this.args = args;
+        this.arrayArgs = arrayArgs;
         boolean containsMessage = fullMessage != null && fullMessage.length() > 0;
         if (containsMessage) {
-            totalPackets = (fullMessage.length() / MAX_MESSAGE_LENGTH) +
-                    (fullMessage.length() % MAX_MESSAGE_LENGTH > 0 ? 1 : 0);
-            StringBuilder currMessage = new StringBuilder();
-            int sequenceNum = 0;
-            for (int charNum = 0; charNum < fullMessage.length(); charNum++) {
-                currMessage.append(fullMessage.charAt(charNum));
-                if ((charNum + 1) % MAX_MESSAGE_LENGTH == 0 || charNum == fullMessage.length() - 1) {
-                    PacketEncoder packet = new PacketEncoder(args, arrayArgs, currMessage.toString());
-
-                    // All packets are given a default value of F, even the last. It is up to the packet sender to modify
-                    // this value if it is the last packet they send, as they determine which packet is actually sent last.
-                    packet.setArg(PacketArgKey.COMPLETED, "F");
-                    packet.setArg(PacketArgKey.TOTAL_PACKETS, String.valueOf(totalPackets));
-                    packet.setArg(PacketArgKey.SEQUENCE_NUM, String.valueOf(sequenceNum));
-                    sequenceNum++;
-                    packets.add(packet);
-                    currMessage = new StringBuilder();
-                }
-            }
+            message = fullMessage;
+            totalPackets = getNumTotalPackets(fullMessage.length(), maxChunkLength);
+            chunkLength = getChunkLength(fullMessage.length(), totalPackets);
         } else {
             packets.add(new PacketEncoder(args, arrayArgs));
         }
     }
 
+    /**
+     * Constructor for a payload of bytes, split into packets of at most <code>maxChunkLength</code> bytes each (before
+     * being hex encoded). The packets are created by <code>getPacket</code> as needed.
+     *
+     * @param args      the args to include in each packet, in addition to the auto-generated ones
+     */
+    public MultiPacketEncoder(HashMap<PacketArgKey, String> args, HashMap<PacketArgKey, Object[]> arrayArgs, byte[] payload,
+                              int maxChunkLength) {
+        this.args = args;
+        this.arrayArgs = arrayArgs;
+        this.payload = payload;
+        totalPackets = getNumTotalPackets(payload.length, maxChunkLength);
+        chunkLength = getChunkLength(payload.length, totalPackets);
+    }
+
+    /**
+     * @return the number of packets a message or payload of the given length is split into
+     */
+    public static int getNumTotalPackets(int length, int maxChunkLength) {
+        return (int) ((length + (long) maxChunkLength - 1) / maxChunkLength);
+    }
+
+    /**
+     * @return the length of each of the chunks of a message or payload, other than the last which may be shorter. The
+     * chunk length only depends on the full length and the number of packets, so that the receiver can tell where each
+     * chunk goes (see MultiPacketDecoder).
+     */
+    public static int getChunkLength(int length, int totalPackets) {
+        return totalPackets == 0 ? 0 : (int) ((length + (long) totalPackets - 1) / totalPackets);
+    }
+
     /**
      * @return an ArrayList of all the packets
      */
     public ArrayList<PacketEncoder> getPackets() {
+        if (packets.isEmpty()) {
+            for (int sequenceNum = 0; sequenceNum < totalPackets; sequenceNum++) {
+                packets.add(getPacket(sequenceNum));
+            }
+        }
         return packets;
     }
 
-    public int getNumTotalPackets() {
-        return totalPackets;
+    /**
+     * @return the packets with the given sequence numbers (e.g., those the receiver reported missing), in the given
+     * order. The last packet is marked as completed, so that the receiver knows when they were all sent.
+     */
+    public ArrayList<PacketEncoder> getPackets(int[] sequenceNums) {
+        ArrayList<PacketEncoder> requestedPackets = new ArrayList<>();
+        for (int i = 0; i < sequenceNums.length; i++) {
+            if (sequenceNums[i] < 0 || sequenceNums[i] >= totalPackets) {
+                continue;
+            }
+            PacketEncoder packet = getPacket(sequenceNums[i]);
+            packet.setArg(PacketArgKey.COMPLETED, i == sequenceNums.length - 1 ? "T" : "F");
+            requestedPackets.add(packet);
+        }
+        return requestedPackets;
     }
-}
 
+    /**
+     * @return the packet with the given sequence number. The packet is created anew each time, and the last packet is
+     * marked as completed.
+     */
+    public PacketEncoder getPacket(int sequenceNum) {
+        if (message == null && payload == null) {
+            return packets.get(sequenceNum);
+        }
+        int from = sequenceNum * chunkLength;
+        PacketEncoder packet;
+        if (payload != null) {
+            int to = Math.min(payload.length, from + chunkLength);
+            packet = new PacketEncoder(args, arrayArgs);
+            packet.setPayload(payload, from, to);
+        } else {
+            int to = Math.min(message.length(), from + chunkLength);
+            packet = new PacketEncoder(args, arrayArgs, message.substring(from, to));
+            packet.setArg(PacketArgKey.MESSAGE_LENGTH, message.length());
+        }
+        packet.setArg(PacketArgKey.COMPLETED, sequenceNum == totalPackets - 1 ? "T" : "F");
+        packet.setArg(PacketArgKey.TOTAL_PACKETS, totalPackets);
+        packet.setArg(PacketArgKey.SEQUENCE_NUM, sequenceNum);
+        return packet;
+    }
 
+    /**
+     * Write all the packets, in order, to the given PacketFrameWriter
+     *
+     * @return <code>true</code> if all the packets were written, else <code>false</code>
+     */
+    public boolean writePackets(PacketFrameWriter out) {
+        for (int sequenceNum = 0; sequenceNum < getNumTotalPackets(); sequenceNum++) {
+            if (!out.writePacket(getPacket(sequenceNum))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    public int getNumTotalPackets() {
+        return message == null && payload == null ? packets.size() : totalPackets;
+    }
+}
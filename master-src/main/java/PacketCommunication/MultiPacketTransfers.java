@@ -0,0 +1,266 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.Compression;
+import PacketCommunication.enums.PacketArgKey;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * This class keeps track of the multi-packet transfers (see MultiPacketEncoder) sent and received over a single
+ * connection, each identified by the JOB_ID arg of its packets.
+ * A sent transfer is kept until the receiver acknowledges it, with a packet reporting 0 packets missing. If the
+ * receiver instead reports that some packets are missing (e.g., their contents were invalid), only those packets are
+ * sent again.
+ * A received transfer is decoded as its packets arrive. Once the sender has sent all its packets, the receiver either
+ * acknowledges the transfer or requests the packets still missing, up to MAX_MISSING_PACKETS_REQUESTS times.
+ * If the peers agreed on a compression (see <code>negotiateCompression</code>), payloads of at least the compression
+ * threshold are sent compressed. The packet announcing such a transfer is flagged with the COMPRESSION arg and the
+ * COMPRESSED_LENGTH of the payload sent, so that smaller payloads and all other packets are left as they are.
+ * Transfers are sent from any thread, but should only be received by the connection's input thread.
+ */
+public class MultiPacketTransfers {
+    public static final int MAX_MISSING_PACKETS_REQUESTS = 3;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int MAX_PAYLOAD_LENGTH = BinaryPacketCodec.MAX_PACKET_LENGTH;  // the largest transfer accepted, so a peer can't force a huge allocation
+    private final int maxChunkLength;
+    private final Compression supportedCompression;
+    private final int compressionThreshold;
+    private volatile Compression compression = Compression.NONE;
+    private final ConcurrentHashMap<String, MultiPacketEncoder> sentTransfers = new ConcurrentHashMap<>();
+    private final HashMap<String, ReceivedTransfer> receivedTransfers = new HashMap<>();
+
+    /**
+     * @param maxChunkLength the maximum length of the chunk sent in each packet of a transfer
+     */
+    public MultiPacketTransfers(int maxChunkLength) {
+        this(maxChunkLength, Compression.NONE, 0);
+    }
+
+    /**
+     * @param supportedCompression the compression this side of the connection is willing to use, if the peer agrees
+     * @param compressionThreshold the minimum length of a payload to compress
+     */
+    public MultiPacketTransfers(int maxChunkLength, Compression supportedCompression, int compressionThreshold) {
+        this.maxChunkLength = maxChunkLength;
+        this.supportedCompression = supportedCompression;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public int getMaxChunkLength() {
+        return maxChunkLength;
+    }
+
+    public Compression getSupportedCompression() {
+        return supportedCompression;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return <code>true</code> if the packet requests or acknowledges a compression, rather than being part of a job
+     */
+    public static boolean isCompressionPacket(PacketDecoder packet) {
+        return packet.containsArg(PacketArgKey.COMPRESSION) && !packet.containsArg(PacketArgKey.JOB_ID);
+    }
+
+    /**
+     * Agree on a compression with the peer. The peer's compression is used from now on if it is the one this side
+     * supports, else payloads stay uncompressed. The side that requested a compression calls this with the
+     * compression acknowledged, and the side that acknowledges it with the compression requested.
+     *
+     * @param peerCompression the name of the compression the peer requested or acknowledged
+     * @return the compression now in use, to acknowledge to the peer if it requested one
+     */
+    public Compression negotiateCompression(String peerCompression) {
+        Compression requested = Compression.valueOfOrNone(peerCompression);
+        compression = requested == supportedCompression ? requested : Compression.NONE;
+        return compression;
+    }
+
+    /**
+     * Compress the payload of a transfer about to be sent, if a compression is in use, the payload is at least the
+     * compression threshold, and compressing actually makes it shorter
+     *
+     * @param firstPacket the packet that will announce the transfer, which is flagged if the payload is compressed
+     * @return the payload to send - either the compressed payload, or the given one
+     */
+    public byte[] compress(byte[] payload, PacketEncoder firstPacket) {
+        Compression compression = this.compression;
+        if (compression == Compression.NONE || payload.length < compressionThreshold) {
+            return payload;
+        }
+        byte[] compressed = compression.compress(payload);
+        if (compressed == null) {
+            return payload;
+        }
+        firstPacket.setArg(PacketArgKey.COMPRESSION, compression.name());
+        firstPacket.setArg(PacketArgKey.COMPRESSED_LENGTH, compressed.length);
+        return compressed;
+    }
+
+    /**
+     * @return <code>true</code> if the packet is one of the packets of a transfer
+     */
+    public static boolean isTransferPacket(PacketDecoder packet) {
+        return packet.containsArg(PacketArgKey.SEQUENCE_NUM);
+    }
+
+    /**
+     * @return <code>true</code> if the packet reports the packets missing from a transfer
+     */
+    public static boolean isMissingPacketsPacket(PacketDecoder packet) {
+        return packet.containsArg(PacketArgKey.TOTAL_PACKETS_MISSING);
+    }
+
+    /**
+     * Send all the packets of a transfer, and keep the transfer until the receiver acknowledges it
+     *
+     * @param id  the JOB_ID of the transfer's packets
+     * @param out writes a packet to the connection, returning <code>false</code> if it couldn't be written
+     * @return <code>true</code> if all the packets were written, else <code>false</code>
+     */
+    public boolean send(String id, MultiPacketEncoder encoder, Predicate<PacketEncoder> out) {
+        sentTransfers.put(id, encoder);  // before writing, as the receiver may respond before the last write returns
+        for (int sequenceNum = 0; sequenceNum < encoder.getNumTotalPackets(); sequenceNum++) {
+            if (!out.test(encoder.getPacket(sequenceNum))) {
+                sentTransfers.remove(id);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Handle a packet reporting the packets missing from a sent transfer. If no packets are missing, the transfer is
+     * complete and is forgotten, else the missing packets are sent again.
+     *
+     * @return <code>false</code> if the missing packets couldn't be written, else <code>true</code>
+     */
+    public boolean onMissingPacketsPacket(PacketDecoder packet, Predicate<PacketEncoder> out) {
+        String id = packet.getArg(PacketArgKey.JOB_ID);
+        int numMissing = packet.getIntArg(PacketArgKey.TOTAL_PACKETS_MISSING);
+        MultiPacketEncoder encoder = numMissing == 0 ? sentTransfers.remove(id) : sentTransfers.get(id);
+        if (numMissing == 0 || encoder == null) {
+            return true;
+        }
+        int[] missingPacketNums = packet.getIntArrayArg(PacketArgKey.MISSING_PACKET_NUMS);
+        if (missingPacketNums == null) {
+            return true;
+        }
+        for (PacketEncoder missingPacket : encoder.getPackets(missingPacketNums)) {
+            if (!out.test(missingPacket)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start receiving a transfer, whose packets are then passed to <code>onTransferPacket</code>
+     *
+     * @param firstPacket the packet that announced the transfer (e.g., the header of the job it is for)
+     * @param length      the length of the transfer's payload, before any compression
+     * @return <code>false</code> if the length, or the first packet's COMPRESSED_LENGTH, is invalid or over
+     * MAX_PAYLOAD_LENGTH, else <code>true</code>
+     */
+    public boolean startReceiving(String id, PacketDecoder firstPacket, int length) {
+        if (length < 0 || length > MAX_PAYLOAD_LENGTH) {
+            return false;
+        }
+        int sentLength = length;
+        if (firstPacket.containsArg(PacketArgKey.COMPRESSED_LENGTH)) {
+            try {
+                sentLength = firstPacket.getIntArg(PacketArgKey.COMPRESSED_LENGTH);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (sentLength <= 0 || sentLength > MAX_PAYLOAD_LENGTH) {
+                return false;
+            }
+        }
+        receivedTransfers.put(id, new ReceivedTransfer(firstPacket, new MultiPacketDecoder(sentLength), length));
+        return true;
+    }
+
+    /**
+     * Add a packet to the transfer it is part of. Once the sender has sent all of its packets, the transfer is either
+     * acknowledged, or the packets still missing are requested.
+     *
+     * @param out writes a packet to the connection
+     * @return the transfer once it is done - either complete, or with packets still missing after
+     * MAX_MISSING_PACKETS_REQUESTS requests - else <code>null</code> (also if the packet isn't part of any transfer)
+     */
+    public ReceivedTransfer onTransferPacket(PacketDecoder packet, Predicate<PacketEncoder> out) {
+        String id = packet.getArg(PacketArgKey.JOB_ID);
+        ReceivedTransfer transfer = receivedTransfers.get(id);
+        if (transfer == null) {
+            return null;
+        }
+        transfer.decoder.addPacket(packet);
+        if (!transfer.isComplete() && !transfer.decoder.isSenderDone()) {
+            return null;
+        }
+
+        HashMap<PacketArgKey, String> args = new HashMap<>();
+        args.put(PacketArgKey.JOB_ID, id);
+        if (transfer.isComplete() || ++transfer.numMissingPacketsRequests > MAX_MISSING_PACKETS_REQUESTS) {
+            receivedTransfers.remove(id);
+            PacketEncoder ack = new PacketEncoder(args);
+            ack.setArg(PacketArgKey.TOTAL_PACKETS_MISSING, 0);  // so the sender forgets the transfer either way
+            out.test(ack);
+            return transfer;
+        }
+        out.test(transfer.decoder.getMissingPacketsPacket(args));
+        return null;
+    }
+
+    /**
+     * A transfer being received, with the packet that announced it
+     */
+    public static class ReceivedTransfer {
+        private final PacketDecoder firstPacket;
+        private final MultiPacketDecoder decoder;
+        private final int length;
+        private int numMissingPacketsRequests = 0;
+
+        private ReceivedTransfer(PacketDecoder firstPacket, MultiPacketDecoder decoder, int length) {
+            this.firstPacket = firstPacket;
+            this.decoder = decoder;
+            this.length = length;
+        }
+
+        public PacketDecoder getFirstPacket() {
+            return firstPacket;
+        }
+
+        public MultiPacketDecoder getDecoder() {
+            return decoder;
+        }
+
+        public boolean isComplete() {
+            return decoder.receivedAllPackets();
+        }
+
+        /**
+         * @return the transfer's payload, decompressed if it was sent compressed, or <code>null</code> if the transfer
+         * isn't complete or its payload couldn't be decompressed
+         */
+        public byte[] getPayload() {
+            if (!isComplete()) {
+                return null;
+            }
+            if (!firstPacket.containsArg(PacketArgKey.COMPRESSED_LENGTH)) {
+                return decoder.getPayload();
+            }
+            String compression = firstPacket.getArg(PacketArgKey.COMPRESSION);
+            if (Compression.valueOfOrNone(compression) == Compression.NONE) {
+                return null;  // unknown compression
+            }
+            return Compression.valueOf(compression).decompress(decoder.getPayload(), length);
+        }
+    }
+}
@@ -4,14 +4,17 @@ package PacketCommunication;
 import PacketCommunication.enums.PacketArgKey;
 
 import java.util.HashMap;
+import java.util.HexFormat;
 
 /**
  * This class decodes a string of tokens sent as a packet into a map of the args and the message string, if applicable
  */
 public class PacketDecoder {
-    private HashMap<PacketArgKey, String> args = new HashMap<>();
+    private HashMap<PacketArgKey, Object> args = new HashMap<>();  // values are Strings, or for binary packets, possibly Integers, Longs, Booleans or long arrays
     private final StringBuilder message = new StringBuilder();
+    private byte[] payload;  // for binary packets whose message is a chunk of a payload, the chunk's raw bytes
     private final StringBuilder packetString = new StringBuilder();
+    private final boolean isBinaryPacket;  // binary packets are already complete and parsed when constructed
 
     // Packet symbols:
     private final char LEADING_LENGTH_INDICATOR_CHAR = '(';
@@ -23,6 +26,21 @@ public class PacketDecoder {
     private final char TRAILING_ARRAY_INDICATOR = ']';
     private final char END_HEADER_INDICATOR = '\n';
 
+    // The states of isValidPacketSoFar, named for what is expected next:
+    private static final int INVALID = 0;
+    private static final int EXPECT_LENGTH_START = 1;
+    private static final int EXPECT_LENGTH_DIGIT = 2;
+    private static final int IN_LENGTH = 3;
+    private static final int EXPECT_KEY = 4;
+    private static final int IN_KEY = 5;
+    private static final int EXPECT_VALUE = 6;
+    private static final int IN_VALUE = 7;
+    private static final int EXPECT_ARRAY_VALUE_OR_END = 8;
+    private static final int EXPECT_ARRAY_VALUE = 9;
+    private static final int IN_ARRAY_VALUE = 10;
+    private static final int AFTER_VALUE = 11;
+    private static final int IN_MESSAGE = 12;
+
     /**
      * Length of the packet's length indicator, including parentheses.
      */
@@ -37,12 +55,32 @@ public class PacketDecoder {
      * Construct a packet with the packet String
      */
     public PacketDecoder(String packet) {
+        isBinaryPacket = false;
         packetString.append(packet);
         if (packetLengthMatchesIndicator()) {
             parseContents(packet);
         }
     }
 
+    /**
+     * Construct a packet from args and a message that were already decoded from the binary format (see BinaryPacketCodec)
+     */
+    PacketDecoder(HashMap<PacketArgKey, Object> args, String message) {
+        isBinaryPacket = true;
+        this.args = args;
+        this.message.append(message);
+    }
+
+    /**
+     * Construct a packet from args that were already decoded from the binary format, whose message is a chunk of a
+     * payload (see BinaryPacketCodec)
+     */
+    PacketDecoder(HashMap<PacketArgKey, Object> args, byte[] payload) {
+        isBinaryPacket = true;
+        this.args = args;
+        this.payload = payload;
+    }
+
     /**
      * Add additional characters to the packet string. Once the Packet class has received all the characters, the Packet
      * is parsed.
@@ -61,8 +99,13 @@ public class PacketDecoder {
     }
 
     public HashMap<PacketArgKey, String> getArgs() {
-        if (packetLengthMatchesIndicator())
-            return (HashMap<PacketArgKey, String>) args.clone();
+        if (packetLengthMatchesIndicator()) {
+            HashMap<PacketArgKey, String> argStrings = new HashMap<>();
+            for (PacketArgKey key : args.keySet()) {
+                argStrings.put(key, getValueString(args.get(key)));
+            }
+            return argStrings;
+        }
         throw new RuntimeException("Packet is incomplete");
     }
 
@@ -78,8 +121,84 @@ public class PacketDecoder {
      * @return the value to which the specified key is mapped, or null if this map contains no mapping for the key
      */
     public String getArg(PacketArgKey key) {
-        if (packetLengthMatchesIndicator())
-            return args.get(key);
+        if (packetLengthMatchesIndicator()) {
+            Object value = args.get(key);
+            return value != null ? getValueString(value) : null;
+        }
+        throw new RuntimeException("Packet is incomplete");
+    }
+
+    /**
+     * @return the given arg value as it is written in the text format
+     */
+    private String getValueString(Object value) {
+        if (value instanceof long[]) {
+            long[] values = (long[]) value;
+            StringBuilder valuesStr = new StringBuilder().append(LEADING_ARRAY_INDICATOR);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    valuesStr.append(ARRAY_VALUES_SEPARATOR);
+                }
+                valuesStr.append(values[i]);
+            }
+            return valuesStr.append(TRAILING_ARRAY_INDICATOR).toString();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * @return the value for the given key as an int. Binary packets already hold the int, text packets have the value
+     * parsed.
+     * @throws NumberFormatException if the key doesn't exist or its value is not an int
+     */
+    public int getIntArg(PacketArgKey key) {
+        if (packetLengthMatchesIndicator()) {
+            Object value = args.get(key);
+            if (value instanceof Integer) {
+                return (Integer) value;
+            }
+            if (value == null) {
+                throw new NumberFormatException(key + " is not set");
+            }
+            return Integer.parseInt(value.toString());
+        }
+        throw new RuntimeException("Packet is incomplete");
+    }
+
+    /**
+     * @return the value for the given key as a long. Binary packets already hold the long (or int), text packets have
+     * the value parsed.
+     * @throws NumberFormatException if the key doesn't exist or its value is not a long
+     */
+    public long getLongArg(PacketArgKey key) {
+        if (packetLengthMatchesIndicator()) {
+            Object value = args.get(key);
+            if (value instanceof Long) {
+                return (Long) value;
+            }
+            if (value instanceof Integer) {
+                return (Integer) value;
+            }
+            if (value == null) {
+                throw new NumberFormatException(key + " is not set");
+            }
+            return Long.parseLong(value.toString());
+        }
+        throw new RuntimeException("Packet is incomplete");
+    }
+
+    /**
+     * @return the value for the given key as a boolean. Binary packets already hold the boolean, text packets have the
+     * value parsed (any value other than 'true', ignoring case, is <code>false</code>).
+     */
+    public boolean getBooleanArg(PacketArgKey key) {
+        if (packetLengthMatchesIndicator()) {
+            Object value = args.get(key);
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            }
+            return Boolean.parseBoolean(value != null ? value.toString() : null);
+        }
         throw new RuntimeException("Packet is incomplete");
     }
 
@@ -121,6 +240,30 @@ public class PacketDecoder {
         throw new RuntimeException("Packet is incomplete");
     }
 
+    /**
+     * @return the values for the given key when the key points to an array of longs. Binary packets may already hold
+     * the longs, otherwise they are parsed. If the elements cannot be parsed to longs or the key doesn't exist, null is
+     * returned.
+     */
+    public long[] getLongArrayArg(PacketArgKey key) {
+        if (packetLengthMatchesIndicator()) {
+            if (args.get(key) instanceof long[]) {
+                return (long[]) args.get(key);
+            }
+            try {
+                String[] values = getStringArrayArg(key);
+                long[] longs = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    longs[i] = Long.parseLong(values[i]);
+                }
+                return longs;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        throw new RuntimeException("Packet is incomplete");
+    }
+
     /**
      * @return the message included in this packet if the packet is complete, else null.
      * Note that even if some of the message has been received, if the packet has not been fully received this method will still
@@ -128,16 +271,24 @@ public class PacketDecoder {
      */
     public String getMessage() {
         if (packetLengthMatchesIndicator())
-            return message.toString();
+            return payload != null ? HexFormat.of().formatHex(payload) : message.toString();
         return null;
     }
 
+    /**
+     * @return the raw bytes of the payload chunk this packet holds as its message, or <code>null</code> if the chunk
+     * is hex encoded in the message (see PacketEncoder.setPayload), or the packet holds no chunk
+     */
+    byte[] getPayload() {
+        return payload;
+    }
+
     /**
      * Takes a packet string and parses it - putting the args and message into their respective variables
      */
     private void parseContents(String packet) {
         String currKey = "";
-        HashMap<PacketArgKey, String> keyValueMap = new HashMap<>();
+        HashMap<PacketArgKey, Object> keyValueMap = new HashMap<>();
         StringBuilder currToken = new StringBuilder();
         int i = lengthIndicatorNumChars;  // start from after the length indicator
         boolean ignoreCommas = false;
@@ -193,12 +344,80 @@ public class PacketDecoder {
         return packetLengthMatchesIndicator();
     }
 
+    /**
+     * @return <code>true</code> if the packet string received so far follows the packet syntax up to its end, i.e., it
+     * is a valid packet, or the start of one. A value is either a word, or an array of words (see
+     * PacketEncoder.setArg(PacketArgKey, Object[])), and the message may only contain word characters and newlines.
+     * The string is checked in a single pass, character by character, so that a packet with many args or a long array
+     * (e.g., a batch of jobs) is checked in linear time and constant stack space.
+     */
     public boolean isValidPacketSoFar() {
-        // The below regex essentially allows a string to match if it matches the correct packet syntax up to any point.
-        // it does this by setting each character/group optional from the end towards the beginning. so the string
-        // is required to match up to any point, but not any in particular.
-        String validPacketPattern = "\\((\\d+(\\)((\\w+:\\w+,)*((\\w+(:(\\w+(\\n)?)?)?)?)?)?)?)?(\\w*\\n*)*";
-        return packetString.toString().matches(validPacketPattern);
+        if (isBinaryPacket) {
+            return true;
+        }
+        int state = EXPECT_LENGTH_START;
+        for (int i = 0; i < packetString.length(); i++) {
+            char c = packetString.charAt(i);
+            boolean isWordChar = isWordChar(c);
+            switch (state) {
+                case EXPECT_LENGTH_START:
+                    state = c == LEADING_LENGTH_INDICATOR_CHAR ? EXPECT_LENGTH_DIGIT : INVALID;
+                    break;
+                case EXPECT_LENGTH_DIGIT:
+                    state = c >= '0' && c <= '9' ? IN_LENGTH : INVALID;
+                    break;
+                case IN_LENGTH:
+                    state = c >= '0' && c <= '9' ? IN_LENGTH : c == TRAILING_LENGTH_INDICATOR_CHAR ? EXPECT_KEY : INVALID;
+                    break;
+                case EXPECT_KEY:
+                    state = isWordChar ? IN_KEY : INVALID;
+                    break;
+                case IN_KEY:
+                    state = isWordChar ? IN_KEY : c == KEY_TO_VALUE_SEPARATOR ? EXPECT_VALUE : INVALID;
+                    break;
+                case EXPECT_VALUE:
+                    state = isWordChar ? IN_VALUE : c == LEADING_ARRAY_INDICATOR ? EXPECT_ARRAY_VALUE_OR_END
+                            : getStateAfterValue(c);  // an empty value
+                    break;
+                case IN_VALUE:
+                    state = isWordChar ? IN_VALUE : getStateAfterValue(c);
+                    break;
+                case EXPECT_ARRAY_VALUE_OR_END:
+                    state = isWordChar ? IN_ARRAY_VALUE : c == TRAILING_ARRAY_INDICATOR ? AFTER_VALUE : INVALID;
+                    break;
+                case EXPECT_ARRAY_VALUE:
+                    state = isWordChar ? IN_ARRAY_VALUE : INVALID;
+                    break;
+                case IN_ARRAY_VALUE:
+                    state = isWordChar ? IN_ARRAY_VALUE : c == ARRAY_VALUES_SEPARATOR ? EXPECT_ARRAY_VALUE
+                            : c == TRAILING_ARRAY_INDICATOR ? AFTER_VALUE : INVALID;
+                    break;
+                case AFTER_VALUE:
+                    state = getStateAfterValue(c);
+                    break;
+                case IN_MESSAGE:
+                    state = isWordChar || c == '\n' ? IN_MESSAGE : INVALID;
+                    break;
+            }
+            if (state == INVALID) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the state of isValidPacketSoFar after the given character follows a complete value
+     */
+    private int getStateAfterValue(char c) {
+        return c == ARG_SEPARATOR ? EXPECT_KEY : c == END_HEADER_INDICATOR ? IN_MESSAGE : INVALID;
+    }
+
+    /**
+     * @return <code>true</code> if the character is a word character, i.e., [a-zA-Z_0-9]
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
     }
 
     /**
@@ -206,9 +425,15 @@ public class PacketDecoder {
      * subsequent args, etc. as indicated by the packet string's length with the 'Length' arg
      */
     private boolean packetLengthMatchesIndicator() {
+        if (isBinaryPacket) {
+            return true;
+        }
         if (getPacketStringLength(true) == packetString.length()) {
             return true;
         }
+        if (lengthIndicatorNumChars > 0) {  // the length indicator was already parsed, no need to parse it again
+            return false;
+        }
         return packetLengthMatchesIndicator(this.packetString.toString());
     }
 
@@ -244,6 +469,13 @@ public class PacketDecoder {
      * @return a String of this packet in the correct format for transmission
      */
     public String getPacketString() {
+        if (isBinaryPacket && packetString.length() == 0) {
+            // binary packets have no packet string, so build up a readable version of the packet for logging
+            for (PacketArgKey key : args.keySet()) {
+                packetString.append(key).append(KEY_TO_VALUE_SEPARATOR).append(args.get(key)).append(ARG_SEPARATOR);
+            }
+            packetString.append(END_HEADER_INDICATOR).append(message);
+        }
         return packetString.toString();
     }
 
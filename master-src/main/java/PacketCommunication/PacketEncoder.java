@@ -4,13 +4,17 @@ package PacketCommunication;
 import PacketCommunication.enums.PacketArgKey;
 
 import java.util.HashMap;
+import java.util.HexFormat;
 
 /**
  * This class encodes args and an optional message into the appropriate string of tokens to be sent as a packet
  */
 public class PacketEncoder {
-    private HashMap<PacketArgKey, String> args = new HashMap<>();
+    private HashMap<PacketArgKey, Object> args = new HashMap<>();  // values are Strings, Integers, Longs, Booleans or long arrays
     private final StringBuilder message = new StringBuilder();
+    private byte[] payload;  // if set, the message is this chunk of a payload, from payloadFrom to payloadTo
+    private int payloadFrom;
+    private int payloadTo;
 
     // Packet symbols:
     private final char LEADING_LENGTH_INDICATOR_CHAR = '(';
@@ -65,6 +69,35 @@ public class PacketEncoder {
         this.args.put(key, value);
     }
 
+    /**
+     * Set an arg to an int value. The value is kept as an int so that it does not need to be converted to and from a
+     * String when the packet is sent in the binary format.
+     */
+    public void setArg(PacketArgKey key, int value) {
+        this.args.put(key, value);
+    }
+
+    /**
+     * Set an arg to a long value (e.g., a 64-bit id). A value that fits in an int is kept as an int (see
+     * <code>setArg(PacketArgKey, int)</code>), and a larger value is kept as a long, so that it does not need to be
+     * converted to and from a String when the packet is sent in the binary format.
+     */
+    public void setArg(PacketArgKey key, long value) {
+        if (value == (int) value) {
+            this.args.put(key, (int) value);
+        } else {
+            this.args.put(key, value);
+        }
+    }
+
+    /**
+     * Set an arg to a boolean value. The value is kept as a boolean so that it does not need to be converted to and
+     * from a String when the packet is sent in the binary format.
+     */
+    public void setArg(PacketArgKey key, boolean value) {
+        this.args.put(key, value);
+    }
+
     /**
      * Set an arg to an array of values
      */
@@ -78,25 +111,81 @@ public class PacketEncoder {
         setArg(key, valuesStr.toString());
     }
 
+    /**
+     * Set an arg to an array of long values (e.g., a batch of 64-bit ids). The array is kept as is, so that the values
+     * do not need to be converted to and from Strings when the packet is sent in the binary format. The array must not
+     * be modified once it is set.
+     */
+    public void setArg(PacketArgKey key, long[] values) {
+        this.args.put(key, values);
+    }
+
     public void deleteArg(PacketArgKey key) {
         this.args.remove(key);
     }
 
+    /**
+     * @return the args of this packet with their values as set (used by the BinaryPacketCodec to write each value
+     * in its own type)
+     */
+    HashMap<PacketArgKey, Object> getArgValues() {
+        return args;
+    }
+
     /**
      * Set the packet's message
      *
      * @param message the String to set as this packet's message
      */
     public void setMessage(String message) {
+        this.payload = null;
         this.message.setLength(0);
         this.message.append(message);
     }
 
     public void addToMessage(String additional) {
+        if (payload != null) {
+            message.append(getMessage());
+            payload = null;
+        }
         message.append(additional);
     }
 
+    /**
+     * Set the packet's message to a chunk of a payload of bytes (see MultiPacketEncoder). The bytes are sent as they
+     * are in the binary format, and hex encoded in the text format, which may only contain word characters. The bytes
+     * are not copied, so they must not be modified until the packet is sent.
+     */
+    public void setPayload(byte[] payload, int from, int to) {
+        this.message.setLength(0);
+        this.payload = payload;
+        this.payloadFrom = from;
+        this.payloadTo = to;
+    }
+
+    /**
+     * @return the payload the packet's message is a chunk of, or <code>null</code> if its message is a String (used by
+     * the BinaryPacketCodec to write the chunk as raw bytes, from getPayloadFrom to getPayloadTo)
+     */
+    byte[] getPayload() {
+        return payload;
+    }
+
+    int getPayloadFrom() {
+        return payloadFrom;
+    }
+
+    int getPayloadTo() {
+        return payloadTo;
+    }
+
+    /**
+     * @return the packet's message. A payload chunk is returned hex encoded, as it is sent in the text format.
+     */
     public String getMessage() {
+        if (payload != null) {
+            return HexFormat.of().formatHex(payload, payloadFrom, payloadTo);
+        }
         return message.toString();
     }
 
@@ -106,7 +195,9 @@ public class PacketEncoder {
     public String getPacketString() {
         StringBuilder packet = new StringBuilder();
         for (PacketArgKey key : args.keySet()) {
-            packet.append(key).append(KEY_TO_VALUE_SEPARATOR).append(args.get(key)).append(ARG_SEPARATOR);
+            packet.append(key).append(KEY_TO_VALUE_SEPARATOR);
+            appendValue(packet, args.get(key));
+            packet.append(ARG_SEPARATOR);
         }
         packet.setCharAt(packet.length() - 1, END_HEADER_INDICATOR);
         packet.append(getMessage());
@@ -118,6 +209,25 @@ public class PacketEncoder {
         return packetStr;
     }
 
+    /**
+     * Append the given arg value as it is written in the text format
+     */
+    private void appendValue(StringBuilder packet, Object value) {
+        if (value instanceof long[]) {
+            long[] values = (long[]) value;
+            packet.append(LEADING_ARRAY_INDICATOR);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    packet.append(ARRAY_VALUES_SEPARATOR);
+                }
+                packet.append(values[i]);
+            }
+            packet.append(TRAILING_ARRAY_INDICATOR);
+        } else {
+            packet.append(value);
+        }
+    }
+
     public String toString() {
         return getPacketString();
     }
@@ -0,0 +1,114 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.WireFormat;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class finds and decodes whole packets within a byte array, in either wire format. Unlike the PacketFrameReader,
+ * it doesn't read from a stream, so it can be used with non-blocking channels: bytes are collected as they arrive, and
+ * each packet is decoded once all of its bytes are available.
+ */
+public class PacketFrameDecoder {
+    private static final byte LEADING_LENGTH_INDICATOR_CHAR = '(';
+    private static final byte TRAILING_LENGTH_INDICATOR_CHAR = ')';
+    private static final int MAX_LENGTH_INDICATOR_DIGITS = 9;  // keeps the parsed length within the range of an int
+    public static final int INCOMPLETE = -1;
+
+    /**
+     * @return the number of bytes in the packet starting at the given offset, or INCOMPLETE if not all of its bytes
+     * are available yet
+     * @throws IllegalArgumentException if the bytes at the offset are not the start of a packet, or the packet's length
+     *                                  is over BinaryPacketCodec.MAX_PACKET_LENGTH. As the start of the next packet
+     *                                  can't be found, the rest of the bytes can't be used.
+     */
+    public static int getFrameLength(byte[] bytes, int offset, int length, WireFormat wireFormat) {
+        return wireFormat == WireFormat.BINARY
+                ? getBinaryFrameLength(bytes, offset, length)
+                : getTextFrameLength(bytes, offset, length);
+    }
+
+    /**
+     * Decode the packet of the given frame length (see getFrameLength) starting at the given offset
+     *
+     * @return the packet, or <code>null</code> if the packet is malformed
+     */
+    public static PacketDecoder decode(byte[] bytes, int offset, int frameLength, WireFormat wireFormat) {
+        try {
+            if (wireFormat == WireFormat.BINARY) {
+                return BinaryPacketCodec.decode(bytes, offset + BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES,
+                        frameLength - BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES);
+            }
+            PacketDecoder packet = new PacketDecoder(new String(bytes, offset, frameLength, StandardCharsets.UTF_8));
+            return packet.isValidPacketSoFar() ? packet : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int getBinaryFrameLength(byte[] bytes, int offset, int length) {
+        if (length < BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES) {
+            return INCOMPLETE;
+        }
+        int packetLength = BinaryPacketCodec.readLengthField(bytes, offset);
+        if (packetLength < 0 || packetLength > BinaryPacketCodec.MAX_PACKET_LENGTH) {
+            throw new IllegalArgumentException("Invalid binary packet length: " + packetLength);
+        }
+        int frameLength = BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES + packetLength;
+        return length >= frameLength ? frameLength : INCOMPLETE;
+    }
+
+    /**
+     * Text packets' length indicators count characters, while the packet is sent as UTF-8, so the bytes are scanned
+     * to find where the last character ends.
+     */
+    private static int getTextFrameLength(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return INCOMPLETE;
+        }
+        if (bytes[offset] != LEADING_LENGTH_INDICATOR_CHAR) {
+            throw new IllegalArgumentException("Packet does not start with a length indicator");
+        }
+
+        // read the length indicator, e.g. '(123)'
+        int end = offset + length;
+        int i = offset + 1;
+        int numChars = 0;
+        for (; i < end && bytes[i] != TRAILING_LENGTH_INDICATOR_CHAR; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9' || i - offset > MAX_LENGTH_INDICATOR_DIGITS) {
+                throw new IllegalArgumentException("Packet has an invalid length indicator");
+            }
+            numChars = numChars * 10 + (bytes[i] - '0');
+            if (numChars > BinaryPacketCodec.MAX_PACKET_LENGTH) {
+                // checked as each digit arrives, so that the bytes of an oversized packet are never collected
+                throw new IllegalArgumentException("Invalid text packet length: " + numChars);
+            }
+        }
+        if (i == end) {
+            return INCOMPLETE;
+        }
+        i++;  // skip the trailing length indicator char
+
+        // step over each character's bytes until all characters of the packet are accounted for
+        while (numChars > 0) {
+            if (i >= end) {
+                return INCOMPLETE;
+            }
+            int b = bytes[i] & 0xFF;
+            if (b >= 0xF0) {  // 4-byte characters are made up of 2 chars (a surrogate pair)
+                i += 4;
+                numChars -= 2;
+            } else if (b >= 0xE0) {
+                i += 3;
+                numChars--;
+            } else if (b >= 0xC0) {
+                i += 2;
+                numChars--;
+            } else {
+                i++;
+                numChars--;
+            }
+        }
+        return i <= end ? i - offset : INCOMPLETE;
+    }
+}
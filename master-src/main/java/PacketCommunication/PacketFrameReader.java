@@ -0,0 +1,164 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.WireFormat;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class reads whole packets from an InputStream, in either wire format. Packets are read into a buffer that is
+ * reused between packets, so that reading a packet takes linear time and only allocates the packet itself.
+ * <ul>
+ *     <li>TEXT packets have their length indicator read once, and the rest of the packet is then read in bulk. As the
+ *     length indicator counts characters and the packet is sent as UTF-8, multibyte characters are accounted for
+ *     while reading.</li>
+ *     <li>BINARY packets have their length field read, and the rest of the packet is then read in bulk.</li>
+ * </ul>
+ * The stream starts out reading TEXT packets. The format can be switched between packets, e.g., once both peers have
+ * agreed on a format while connecting.
+ * An instance should only be used by one thread at a time.
+ */
+public class PacketFrameReader implements Closeable {
+    private final char LEADING_LENGTH_INDICATOR_CHAR = '(';
+    private final char TRAILING_LENGTH_INDICATOR_CHAR = ')';
+    private final int MAX_LENGTH_INDICATOR_DIGITS = 9;  // keeps the parsed length within the range of an int
+    private final int INITIAL_BUFFER_SIZE = 256;
+
+    private final InputStream in;
+    private WireFormat wireFormat = WireFormat.TEXT;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    public PacketFrameReader(InputStream in) {
+        this.in = new BufferedInputStream(in);
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    /**
+     * Read the next packet from the stream
+     *
+     * @return the packet read, or <code>null</code> if the stream ended before a new packet was started or if the
+     * packet is malformed
+     * @throws EOFException if the stream ends partway through a packet
+     * @throws IOException  if the packet's length is over BinaryPacketCodec.MAX_PACKET_LENGTH, in either format
+     */
+    public PacketDecoder readPacket() throws IOException {
+        return wireFormat == WireFormat.BINARY ? readBinaryPacket() : readTextPacket();
+    }
+
+    private PacketDecoder readTextPacket() throws IOException {
+        int input = in.read();
+        if (input == -1 || input != LEADING_LENGTH_INDICATOR_CHAR) {
+            return null;
+        }
+
+        // read the length indicator, e.g. '(123)'
+        int numBytes = 0;
+        int charsRemaining = 0;
+        buffer[numBytes++] = (byte) LEADING_LENGTH_INDICATOR_CHAR;
+        while ((input = in.read()) != TRAILING_LENGTH_INDICATOR_CHAR) {
+            if (input == -1) {
+                throw new EOFException("Stream ended while reading a packet's length indicator");
+            }
+            if (input < '0' || input > '9' || numBytes > MAX_LENGTH_INDICATOR_DIGITS) {
+                return null;
+            }
+            charsRemaining = charsRemaining * 10 + (input - '0');
+            buffer[numBytes++] = (byte) input;
+        }
+        buffer[numBytes++] = (byte) TRAILING_LENGTH_INDICATOR_CHAR;
+        if (charsRemaining > BinaryPacketCodec.MAX_PACKET_LENGTH) {
+            // as with binary packets, a peer mustn't be able to make us allocate a buffer of any length it likes
+            throw new IOException("Invalid text packet length: " + charsRemaining);
+        }
+
+        // Now read the contents of the packet in bulk. Each character remaining takes up at least one byte, so we can
+        // always read that many bytes without reading past the end of the packet. The bytes read are then checked for
+        // multibyte characters, and if there were any, the remaining bytes are read in the same way.
+        int continuationBytesRemaining = 0;
+        while (charsRemaining > 0 || continuationBytesRemaining > 0) {
+            int numToRead = Math.max(charsRemaining, continuationBytesRemaining);
+            ensureCapacity(numBytes + numToRead);
+            readFully(numBytes, numToRead);
+            for (int i = numBytes; i < numBytes + numToRead; i++) {
+                if (continuationBytesRemaining > 0) {
+                    continuationBytesRemaining--;
+                    continue;
+                }
+                int b = buffer[i] & 0xFF;
+                if (b >= 0xF0) {  // 4-byte characters are made up of 2 chars (a surrogate pair)
+                    continuationBytesRemaining = 3;
+                    charsRemaining -= 2;
+                } else if (b >= 0xE0) {
+                    continuationBytesRemaining = 2;
+                    charsRemaining--;
+                } else if (b >= 0xC0) {
+                    continuationBytesRemaining = 1;
+                    charsRemaining--;
+                } else {
+                    charsRemaining--;
+                }
+            }
+            numBytes += numToRead;
+        }
+        return new PacketDecoder(new String(buffer, 0, numBytes, StandardCharsets.UTF_8));
+    }
+
+    private PacketDecoder readBinaryPacket() throws IOException {
+        int input = in.read();
+        if (input == -1) {
+            return null;
+        }
+        buffer[0] = (byte) input;
+        readFully(1, BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES - 1);
+        int packetLength = BinaryPacketCodec.readLengthField(buffer, 0);
+        if (packetLength < 0 || packetLength > BinaryPacketCodec.MAX_PACKET_LENGTH) {
+            // we can't tell where the next packet starts, so there is no way to continue reading this stream
+            throw new IOException("Invalid binary packet length: " + packetLength);
+        }
+        ensureCapacity(packetLength);
+        readFully(0, packetLength);
+        try {
+            return BinaryPacketCodec.decode(buffer, 0, packetLength);
+        } catch (IllegalArgumentException e) {
+            return null;  // the whole packet was read, so the stream can continue with the next packet
+        }
+    }
+
+    /**
+     * Read exactly numBytes bytes into the buffer at the given offset
+     */
+    private void readFully(int offset, int numBytes) throws IOException {
+        int numRead = 0;
+        while (numRead < numBytes) {
+            int n = in.read(buffer, offset + numRead, numBytes - numRead);
+            if (n == -1) {
+                throw new EOFException("Stream ended after " + numRead + " of " + numBytes + " remaining packet bytes");
+            }
+            numRead += n;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            byte[] newBuffer = new byte[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+            buffer = newBuffer;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,75 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.WireFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class writes packets to an OutputStream, in either wire format. TEXT packets are written as UTF-8.
+ * The stream starts out writing TEXT packets. The format can be switched between packets, e.g., once both peers have
+ * agreed on a format while connecting.
+ * Packets can be written by several threads at once (e.g., a connection's input thread acknowledging a message while
+ * its output thread sends jobs), as each packet is written whole before the next one is started. Writes are serialized
+ * with a ReentrantLock rather than a monitor, so that a virtual thread blocked writing doesn't pin its carrier thread.
+ */
+public class PacketFrameWriter implements Closeable {
+    private final OutputStream out;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private WireFormat wireFormat = WireFormat.TEXT;
+
+    public PacketFrameWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out);
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    /**
+     * Write the packet to the stream and flush it
+     *
+     * @return <code>true</code> if the packet was written, else <code>false</code>
+     */
+    public boolean writePacket(PacketEncoder packet) {
+        writeLock.lock();
+        try {
+            out.write(toBytes(packet, wireFormat));
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the bytes to send for the given packet in the given wire format
+     */
+    public static byte[] toBytes(PacketEncoder packet, WireFormat wireFormat) {
+        if (wireFormat == WireFormat.BINARY) {
+            return BinaryPacketCodec.encode(packet);
+        }
+        return packet.getPacketString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Close the underlying stream. As with writing packets, errors closing the stream are not thrown.
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
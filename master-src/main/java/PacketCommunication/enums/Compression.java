@@ -0,0 +1,88 @@
+package PacketCommunication.enums;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The ways the payload of a multi-packet transfer can be compressed (see MultiPacketTransfers). Peers send payloads
+ * uncompressed unless they agree on a compression while connecting.
+ * <ul>
+ *     <li>NONE - payloads are sent as they are</li>
+ *     <li>DEFLATE - payloads are compressed with java.util.zip's Deflater, at its fastest level</li>
+ * </ul>
+ */
+public enum Compression {
+    NONE,
+    DEFLATE;
+
+    /**
+     * @return the compression with the given name, or NONE if there is no such compression (e.g., one from a newer
+     * peer)
+     */
+    public static Compression valueOfOrNone(String name) {
+        for (Compression compression : values()) {
+            if (compression.name().equals(name)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @return the compressed data, or <code>null</code> if it wouldn't be any shorter than the data itself
+     */
+    public byte[] compress(byte[] data) {
+        if (this == NONE) {
+            return null;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[data.length];  // the compressed data is only used if it is shorter
+            int length = 0;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            if (!deflater.finished() || length >= data.length) {
+                return null;
+            }
+            byte[] compressed = new byte[length];
+            System.arraycopy(buffer, 0, compressed, 0, length);
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param length the length of the data before it was compressed
+     * @return the decompressed data, or <code>null</code> if it is invalid or isn't <code>length</code> bytes long
+     */
+    public byte[] decompress(byte[] compressed, int length) {
+        if (this == NONE) {
+            return compressed.length == length ? compressed : null;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] data = new byte[length];
+            int inflated = 0;
+            while (!inflater.finished()) {
+                int numBytes = inflated < length ? inflater.inflate(data, inflated, length - inflated)
+                        : inflater.inflate(new byte[1]);  // only to reach the end of the compressed data
+                if ((inflated == length && numBytes > 0)
+                        || (numBytes == 0 && (inflater.needsInput() || inflater.needsDictionary()))) {
+                    return null;  // longer than expected, or cut short
+                }
+                inflated += numBytes;
+            }
+            return inflated == length ? data : null;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+}
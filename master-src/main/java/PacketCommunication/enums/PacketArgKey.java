@@ -2,7 +2,8 @@
 package PacketCommunication.enums;
 
 /**
- * The valid argument keys for a packet
+ * The valid argument keys for a packet.
+ * The binary wire format refers to keys by their ordinal, so new keys must only ever be added to the end.
  */
 public enum PacketArgKey {
     REQUEST_TYPE,
@@ -14,6 +15,17 @@ public enum PacketArgKey {
     OPTIMIZED_FOR_JOB_TYPE,
     JOB_TYPE,
     JOB_ID,
-    JOB_SUCCEEDED
+    JOB_SUCCEEDED,
+    WIRE_FORMAT,
+    PARALLELISM,
+    JOB_KIND,
+    JOB_SIZE,
+    INPUT_LENGTH,
+    RESULT_LENGTH,
+    MESSAGE_LENGTH,
+    COMPRESSION,
+    COMPRESSED_LENGTH,
+    MESSAGE_LENGTHS,
+    CREDITS
 
 }
@@ -12,7 +12,7 @@ public class MasterApplication extends Application {
     private final int WINDOW_WIDTH = 750;
     private final int WINDOW_HEIGHT = 530;
     public static void main(String[] args) {
-        launch();
+        launch(args);
     }
 
     @Override
@@ -21,6 +21,8 @@ public class MasterApplication extends Application {
         Scene scene = new Scene(fxmlLoader.load(), WINDOW_WIDTH, WINDOW_HEIGHT);
         stage.setTitle("Master");
         stage.setScene(scene);
+        MasterController controller = fxmlLoader.getController();
+        controller.init(MasterSettings.fromNamedParameters(getParameters().getNamed()));
         stage.show();
     }
 }
\ No newline at end of file
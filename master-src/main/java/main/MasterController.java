@@ -4,8 +4,14 @@ package main;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import main.classes.Client;
+import main.classes.ConnectionThreadFactory;
+import main.classes.MasterJob;
 import main.classes.Slave;
+import main.enums.NetworkMode;
+import main.scheduling.JobScheduler;
+import main.scheduling.JobSchedulerFactory;
 import main.tasks.AcceptClientConnectionsTask;
+import main.tasks.AcceptConnectionsNioTask;
 import main.tasks.AcceptSlaveConnectionsTask;
 import main.tasks.DelegateJobsTask;
 import main.tasks.ReturnJobsTask;
@@ -24,7 +30,8 @@ import main.tasks.ReturnJobsTask;
  *                 AcceptSlaveConnectionsTask - responsible for accepting and setting up new slave connections.
  *             </li>
  *             <li>
- *                 DelegateJobsTask - responsible for delegating the job requests amongst the available slaves (load balances)
+ *                 DelegateJobsTask - responsible for delegating the job requests amongst the available slaves (load balances,
+ *                 using the JobScheduler set in the MasterSettings)
  *             </li>
  *             <li>
  *                 ReturnJobsTask - responsible for returning completed jobs to the clients that originally requested them
@@ -42,10 +49,20 @@ import main.tasks.ReturnJobsTask;
  *         (SendJobRequestsToSlaveTask), and an input thread responsible for receiving job results
  *         (ReceiveJobResultsFromSlaveTask).
  *     </li>
+ *     <li>
+ *         In the NIO network mode (see MasterSettings), the first two threads are replaced by a single
+ *         AcceptConnectionsNioTask, and instead of each client and slave having its own input and output threads, all
+ *         connections are handled by a fixed number of event loop threads (NioEventLoopTask).
+ *     </li>
+ *     <li>
+ *         In the VIRTUAL_THREADED network mode, each client and slave still has its own threads, but they are
+ *         virtual threads (see ConnectionThreadFactory).
+ *     </li>
  * </ul>
  * */
 public class MasterController {
     private MasterModel masterModel;  // stores all data for the Master's operations
+    private MasterSettings settings = new MasterSettings();  // defaults, until init is called
 
     // JavaFx controls:
     @FXML
@@ -68,21 +85,43 @@ public class MasterController {
         masterModel = new MasterModel(clientsListView, slavesListView, statusLabel, clientsHeaderLabel, slavesHeaderLabel);
     }
 
+    /**
+     * Set the settings to start up with. This is called by the MasterApplication class when the application is started.
+     * */
+    public void init(MasterSettings settings) {
+        this.settings = settings;
+    }
+
     @FXML
     public void startup() {
-        Logging.consoleLogAndAppendToGUILogs("Starting up Master...\n", statusLogsTextArea);
-        Thread connectToClients = new Thread(new AcceptClientConnectionsTask(statusLogsTextArea, masterModel), "Thread-ConnectToClients");
-        Thread connectToSlaves = new Thread(new AcceptSlaveConnectionsTask(statusLogsTextArea, masterModel), "Thread-ConnectToSlaves");
-        Thread delegateJobs = new Thread(new DelegateJobsTask(masterModel, statusLogsTextArea), "Thread-DelegateJobs");
+        JobScheduler jobScheduler = JobSchedulerFactory.create(settings);
+        masterModel.setJobScheduler(jobScheduler);
+        masterModel.setWorkStealingEnabled(settings.isWorkStealingEnabled());
+        masterModel.setDispatchMode(settings.getDispatchMode());
+        masterModel.setMaxChunkLength(settings.getMaxChunkLength());
+        masterModel.setCompression(settings.getCompression(), settings.getCompressionThreshold());
+        MasterJob.setNodeId(settings.getNodeId());
+        Logging.consoleLogAndAppendToGUILogs("Starting up Master (" + settings.getNetworkMode() + " network mode, "
+                + settings.getDispatchMode() + " dispatch, " + jobScheduler.getClass().getSimpleName() + ")...\n", statusLogsTextArea);
+        if (settings.getNetworkMode() == NetworkMode.NIO) {
+            Thread acceptConnections = new Thread(new AcceptConnectionsNioTask(statusLogsTextArea, masterModel, settings.getNumEventLoops()), "Thread-AcceptConnections");
+            acceptConnections.setDaemon(true);
+            acceptConnections.start();
+        } else {
+            ConnectionThreadFactory threadFactory = new ConnectionThreadFactory(settings.getNetworkMode() == NetworkMode.VIRTUAL_THREADED);
+            Thread connectToClients = new Thread(new AcceptClientConnectionsTask(statusLogsTextArea, masterModel, threadFactory), "Thread-ConnectToClients");
+            Thread connectToSlaves = new Thread(new AcceptSlaveConnectionsTask(statusLogsTextArea, masterModel, threadFactory), "Thread-ConnectToSlaves");
+            connectToClients.setDaemon(true);
+            connectToSlaves.setDaemon(true);
+            connectToClients.start();
+            connectToSlaves.start();
+        }
+        Thread delegateJobs = new Thread(new DelegateJobsTask(masterModel, statusLogsTextArea, settings.getBatchSize(), settings.getBatchMaxWaitMillis()), "Thread-DelegateJobs");
         Thread returnJobs = new Thread(new ReturnJobsTask(masterModel), "Thread-ReturnJobs");
 
-        connectToClients.setDaemon(true);
-        connectToSlaves.setDaemon(true);
         delegateJobs.setDaemon(true);
         returnJobs.setDaemon(true);
 
-        connectToClients.start();
-        connectToSlaves.start();
         delegateJobs.start();
         returnJobs.start();
 
@@ -1,20 +1,34 @@
 // Avromi Schneierson - 1/10/2024
 package main;
 
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.enums.Compression;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import main.classes.Client;
+import main.classes.InFlightJobTable;
 import main.classes.MasterJob;
+import main.classes.PendingJobPool;
 import main.classes.Slave;
+import main.classes.SlaveLoadIndex;
+import main.enums.DispatchMode;
+import main.scheduling.ClusterView;
+import main.scheduling.JobScheduler;
+import main.scheduling.LowestLoadScheduler;
+import main.scheduling.SlaveState;
 
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
@@ -38,7 +52,8 @@ import java.util.concurrent.LinkedBlockingQueue;
  *                     <li>
  *                          The job is dequeued from the MasterModel by the DelegateJobsTask thread so it can be assigned the most
  *                          optimal slave. Once the most optimal slave is found for that job, it is enqueued directly
- *                          with the Slave in its Slave object.
+ *                          with the Slave in its Slave object. (In the PULL dispatch mode, the job is instead added to
+ *                          the PendingJobPool, and is only bound to a slave once one is ready for it.)
  *                     </li>
  *                     <li>
  *                         The job is dequeued from the Slave object by the Slave's SendJobRequestsToSlaveTask thread and sent
@@ -68,6 +83,26 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class MasterModel {
     private final ConcurrentHashMap<Integer, Client> activeClientsMap = new ConcurrentHashMap<>();  // maps client ID ---> client instance. used so that we can look up a specific client
     private final ConcurrentHashMap<Integer, Slave> activeSlavesMap = new ConcurrentHashMap<>();  // maps slave ID ---> slave instance. used so that we can look up a specific slave
+    private final CopyOnWriteArrayList<Slave> activeSlavesList = new CopyOnWriteArrayList<>();  // the active slaves, for picking slaves by index. slaves are added and removed rarely, so copying on write is cheap
+    private final SlaveLoadIndex slaveLoadIndex = new SlaveLoadIndex();  // the active slaves, ordered by load
+    private final ClusterView clusterView = new ClusterView() {  // the read-only view of the slaves given to the job scheduler
+        @Override
+        public List<SlaveState> getSlaves() {
+            return Collections.unmodifiableList(activeSlavesList);
+        }
+
+        @Override
+        public SlaveState getLowestLoadSlaveForJob(MasterJob job) {
+            return slaveLoadIndex.getBestSlaveForJob(job);
+        }
+    };
+    private volatile JobScheduler jobScheduler = new LowestLoadScheduler();
+    private volatile boolean workStealingEnabled = false;
+    private volatile DispatchMode dispatchMode = DispatchMode.PUSH;
+    private final PendingJobPool pendingJobPool = new PendingJobPool();  // the jobs waiting to be pulled by a slave, in the PULL dispatch mode
+    private volatile int maxChunkLength = MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH;
+    private volatile Compression compression = Compression.DEFLATE;
+    private volatile int compressionThreshold = MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD;
     private final ObservableList<Client> activeClients = FXCollections.observableArrayList();  // the underlying list used for the Client GUI listview
     private final ObservableList<Slave> activeSlaves = FXCollections.observableArrayList();  // the underlying list used for the Client GUI listview
 
@@ -86,10 +121,12 @@ public class MasterModel {
     private final LinkedBlockingQueue<MasterJob> allJobsCompleted = new LinkedBlockingQueue<>();
 
     /**
-     * Holds all jobs that ever were requested. Used for retrieving the original details (such as the id) of a job when
-     * received back from a Slave.
+     * Holds all jobs that were requested and not yet completed. Used for retrieving the original details (such as the
+     * id) of a job when received back from a Slave. Each job is removed once its result is received (see
+     * enqueueJobCompleted), so this only grows with the number of jobs in flight, rather than with all the jobs ever
+     * requested.
      * */
-    private final HashMap<Integer, MasterJob> allJobs = new HashMap<>();  // internal job ID ---> job instance
+    private final InFlightJobTable allJobs = new InFlightJobTable();  // internal job ID ---> job instance
     private int numJobsRequested = 0, numJobsCompleted = 0;
     private final ListView<Client> clientsListView;
     private final ListView<Slave> slavesListView;
@@ -153,6 +190,8 @@ public class MasterModel {
      */
     public void addActiveSlave(Slave slave) {
         activeSlavesMap.put(slave.getId(), slave);  // manual synchronization is not needed here as the map is thread-safe
+        activeSlavesList.add(slave);
+        slaveLoadIndex.addSlave(slave);
         Platform.runLater(() -> {
             activeSlaves.add(slave);
             slavesHeaderLabel.setText("Slaves (" + activeSlaves.size() + ")");
@@ -160,10 +199,16 @@ public class MasterModel {
     }
 
     /**
-     * Remove the given slave from the system. Once removed, this slave will no longer be delegated jobs to execute
+     * Remove the given slave from the system. Once removed, this slave will no longer be delegated jobs to execute.
+     * The jobs still in progress with the slave will never be completed, so they are dropped from the jobs in flight.
      */
     public void removeActiveSlave(Slave slave) {
         activeSlavesMap.remove(slave.getId());
+        activeSlavesList.remove(slave);
+        slaveLoadIndex.removeSlave(slave);
+        for (long internalId : slave.getJobsInProgressIds()) {
+            allJobs.remove(internalId);
+        }
         Platform.runLater(() -> {
             activeSlaves.remove(slave);
             slavesHeaderLabel.setText("Slaves" + (!activeSlaves.isEmpty() ? " (" + activeSlaves.size() + ")" : ""));
@@ -184,6 +229,148 @@ public class MasterModel {
         return Collections.unmodifiableMap(activeSlavesMap);
     }
 
+    /**
+     * @return a read-only view of all slaves, for the job scheduler to assign jobs with
+     */
+    public ClusterView getClusterView() {
+        return clusterView;
+    }
+
+    ////////////////
+    // Scheduling
+    ////////////////
+
+    /**
+     * Set the scheduler used to assign jobs to slaves. Should be set before any jobs are delegated.
+     */
+    public void setJobScheduler(JobScheduler jobScheduler) {
+        this.jobScheduler = jobScheduler;
+    }
+
+    public JobScheduler getJobScheduler() {
+        return jobScheduler;
+    }
+
+    public void setWorkStealingEnabled(boolean workStealingEnabled) {
+        this.workStealingEnabled = workStealingEnabled;
+    }
+
+    /**
+     * @return whether slaves that run out of jobs to send should steal jobs not yet sent from other slaves
+     */
+    public boolean isWorkStealingEnabled() {
+        return workStealingEnabled;
+    }
+
+    /**
+     * Set when jobs are bound to slaves. Should be set before any slaves connect, as it determines their credits (see
+     * getCreditsForSlave).
+     */
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        this.dispatchMode = dispatchMode;
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    /**
+     * @param creditsGranted the credits the slave granted in its handshake, if any
+     * @return the credits to limit a new slave's jobs in progress to. In the PULL dispatch mode, a slave that didn't
+     * grant any is given one credit per job it executes at once, as jobs are only pulled as credits are returned.
+     */
+    public int getCreditsForSlave(int creditsGranted, int parallelism) {
+        if (creditsGranted == 0 && dispatchMode == DispatchMode.PULL) {
+            return parallelism;
+        }
+        return creditsGranted;
+    }
+
+    /**
+     * Add jobs to the PendingJobPool, and let every slave know there are jobs to pull
+     */
+    public void enqueuePendingJobs(Collection<MasterJob> jobs) {
+        pendingJobPool.addAll(jobs);
+        for (Slave slave : activeSlavesList) {
+            slave.notifyJobsToRunAvailable();
+        }
+    }
+
+    /**
+     * Take the pending job the given slave would complete soonest, waiting for one if there are none. The job is
+     * added to the slave's jobs in progress, and should be sent to it right away.
+     */
+    public MasterJob takePendingJob(Slave slave) throws InterruptedException {
+        MasterJob job = pendingJobPool.take(slave);
+        slave.addJobTaken(job);
+        return job;
+    }
+
+    /**
+     * Take the pending job the given slave would complete soonest, without waiting (see takePendingJob)
+     * @return the job, or <code>null</code> if there are no jobs pending
+     */
+    public MasterJob pollPendingJob(Slave slave) {
+        MasterJob job = pendingJobPool.poll(slave);
+        if (job != null) {
+            slave.addJobTaken(job);
+        }
+        return job;
+    }
+
+    public void setMaxChunkLength(int maxChunkLength) {
+        this.maxChunkLength = maxChunkLength;
+    }
+
+    /**
+     * @return the maximum length of each chunk of a job's input or result sent in packets of its own (see
+     * MultiPacketTransfers)
+     */
+    public int getMaxChunkLength() {
+        return maxChunkLength;
+    }
+
+    /**
+     * Set the compression agreed to when a client or slave asks for its jobs' inputs and results to be compressed,
+     * and the minimum length of an input or result to compress
+     */
+    public void setCompression(Compression compression, int compressionThreshold) {
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * @return the transfers of a new client or slave connection, with the master's chunk length and compression
+     * settings
+     */
+    public MultiPacketTransfers newMultiPacketTransfers() {
+        return new MultiPacketTransfers(maxChunkLength, compression, compressionThreshold);
+    }
+
+    /**
+     * Steal a job that was not yet sent from the most loaded slave that has jobs waiting, for the given slave to run
+     * instead (see Slave.stealJobToRun). The job is added to the given slave's jobs in progress, and should be sent to
+     * it right away.
+     *
+     * @return the job, or <code>null</code> if there is no job worth stealing
+     */
+    public MasterJob stealJobToRun(Slave thief) {
+        Slave victim = null;
+        for (Slave slave : activeSlavesList) {
+            if (slave != thief && slave.getNumJobsToRun() > 0 && (victim == null || slave.getTotalLoad() > victim.getTotalLoad())) {
+                victim = slave;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+        MasterJob job = victim.stealJobToRun(thief);
+        if (job != null) {
+            thief.addJobTaken(job);
+        }
+        return job;
+    }
+
     ////////////////
     // Jobs
     ////////////////
@@ -192,16 +379,13 @@ public class MasterModel {
      * Enqueue a client-requested job to be delegated by the Master for execution.
      * We store the job by its internal id as opposed to the external id so that jobs from separate clients which may
      * have the same external id don't collide. The external id will still be used when we return the job to the client
+     * The job is passed on as is, rather than copied, so the caller must not modify it once it is enqueued.
      *
      * @param job the job requested
      */
     public void enqueueJobRequested(MasterJob job) throws InterruptedException {
-        MasterJob jobCopy = new MasterJob(job);  // we copy the job just in case the caller maintains a reference to the job object
-        int jobId = jobCopy.getInternalId();
-        allJobsRequested.put(jobCopy);
-        synchronized (allJobs) {
-            allJobs.put(jobId, jobCopy);
-        }
+        allJobs.put(job.getInternalId(), job);  // manual synchronization is not needed here as the map is thread-safe
+        allJobsRequested.put(job);  // only enqueued once it is in allJobs, as it may be delegated and completed right away
 
         numJobsRequested++;
         Platform.runLater(() -> {
@@ -209,6 +393,24 @@ public class MasterModel {
         });
     }
 
+    /**
+     * Enqueue a batch of client-requested jobs to be delegated by the Master for execution (see enqueueJobRequested).
+     * The batch is added to the requested jobs queue at once, and the GUI is updated once for the whole batch.
+     *
+     * @param jobs the jobs requested
+     */
+    public void enqueueJobsRequested(List<MasterJob> jobs) {
+        for (MasterJob job : jobs) {
+            allJobs.put(job.getInternalId(), job);
+        }
+        allJobsRequested.addAll(jobs);  // only enqueued once they are all in allJobs (the queue is unbounded, so this never blocks)
+
+        numJobsRequested += jobs.size();
+        Platform.runLater(() -> {
+            statusLabel.setText("Jobs Requested: " + numJobsRequested + "\nJobs Completed: " + numJobsCompleted);
+        });
+    }
+
 
     /**
      * Deque a requested job for delegation to a slave so it can be executed.
@@ -217,20 +419,55 @@ public class MasterModel {
         return allJobsRequested.take();
     }
 
+    /**
+     * Deque a batch of requested jobs for delegation. This waits for at least one job, and then takes any other jobs
+     * already requested, waiting up to <code>maxWaitMillis</code> for more to come in, until there are
+     * <code>maxJobs</code> jobs.
+     *
+     * @param jobs the collection to add the jobs to
+     * @return the number of jobs added
+     */
+    public int dequeJobsRequested(Collection<MasterJob> jobs, int maxJobs, long maxWaitMillis) throws InterruptedException {
+        jobs.add(allJobsRequested.take());
+        int numJobs = 1 + allJobsRequested.drainTo(jobs, maxJobs - 1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        long remainingNanos;
+        while (numJobs < maxJobs && (remainingNanos = deadline - System.nanoTime()) > 0) {
+            MasterJob job = allJobsRequested.poll(remainingNanos, TimeUnit.NANOSECONDS);
+            if (job == null) {
+                break;
+            }
+            jobs.add(job);
+            numJobs += 1 + allJobsRequested.drainTo(jobs, maxJobs - numJobs - 1);
+        }
+        return numJobs;
+    }
+
     /**
      * Enqueue a slave-completed job to be returned to a client.
+     * The requested job is removed from the jobs in flight as the result comes in, so only the first result received
+     * for a job is returned, and any later one (e.g., from a slave the job was stolen from) is dropped.
+     * The job is passed on as is, rather than copied, so the caller must not modify it once it is enqueued.
      * @param job the job completed
+     * @return whether the job was enqueued, or <code>false</code> if it was dropped as it wasn't in flight
      */
-    public void enqueueJobCompleted(MasterJob job) throws InterruptedException {
-        MasterJob jobCopy = new MasterJob(job);
-        jobCopy.setOriginalId(allJobs.get(jobCopy.getInternalId()).getOriginalId());  // recover the job's original id as the slave returns the job using the internal id
-        allJobsCompleted.put(jobCopy);
+    public boolean enqueueJobCompleted(MasterJob job) throws InterruptedException {
+        MasterJob requestedJob = allJobs.remove(job.getInternalId());
+        if (requestedJob == null) {
+            Logging.consoleLog("Received a result for job #" + job.getInternalId() + ", which is not in flight - result dropped\n");
+            return false;
+        }
+        job.setOriginalId(requestedJob.getOriginalId());  // recover the job's original id as the slave returns the job using the internal id
+        job.setClientId(requestedJob.getClientId());
+        job.setInput(null);  // the input is not returned to the client, so don't hold on to it
+        allJobsCompleted.put(job);
 
         numJobsRequested--;
         numJobsCompleted++;
         Platform.runLater(() -> {
             statusLabel.setText("Jobs Requested: " + numJobsRequested + "\nJobs Completed: " + numJobsCompleted);
         });
+        return true;
     }
 
     /**
@@ -243,15 +480,25 @@ public class MasterModel {
     }
 
     /**
-     * Returns a copy of the job for the given internalId
+     * Drop a requested job that can't be completed (e.g., as there are no slaves to run it), so that it is no longer
+     * kept with the jobs in flight
      */
-    public MasterJob getJob(int internalId) {
-        synchronized (allJobs) {
-            if (allJobs.get(internalId) != null) {
-                return new MasterJob(allJobs.get(internalId));
-            } else {
-                return null;
-            }
-        }
+    public void dropJob(MasterJob job) {
+        allJobs.remove(job.getInternalId());
+    }
+
+    /**
+     * @return the number of jobs requested and not yet completed or dropped
+     */
+    public int getNumJobsInFlight() {
+        return allJobs.size();
+    }
+
+    /**
+     * Returns the job for the given internalId, if it is in flight. The job is shared with the rest of the pipeline, so
+     * it must not be modified.
+     */
+    public MasterJob getJob(long internalId) {
+        return allJobs.get(internalId);
     }
 }
\ No newline at end of file
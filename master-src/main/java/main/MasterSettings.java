@@ -0,0 +1,227 @@
+package main;
+
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.enums.Compression;
+import main.classes.IdGenerator;
+import main.enums.DispatchMode;
+import main.enums.NetworkMode;
+import main.enums.SchedulingPolicy;
+
+import java.util.Map;
+
+/**
+ * This class holds the Master's optional settings, which are read from named command-line arguments, e.g.,
+ * <code>--networkMode=NIO --eventLoops=4</code>. Any setting that is not provided, or is invalid, keeps its default value.
+ * <ul>
+ *     <li><code>networkMode</code> - how client and slave connections are handled (see NetworkMode). Defaults to
+ *     THREADED.</li>
+ *     <li><code>eventLoops</code> - the number of event loop threads used in the NIO network mode. Defaults to half
+ *     the available processors (at least 1).</li>
+ *     <li><code>schedulingPolicy</code> - how the slave for each job is chosen: one of the built-in SchedulingPolicies,
+ *     or the fully qualified name of a class implementing JobScheduler (see JobSchedulerFactory). Defaults to
+ *     LOWEST_LOAD.</li>
+ *     <li><code>schedulingChoices</code> - the number of slaves picked at random for each job with the POWER_OF_CHOICES
+ *     scheduling policy. Defaults to 2.</li>
+ *     <li><code>batchSize</code> - the maximum number of requested jobs that are assigned to slaves together, as one
+ *     batch (see JobScheduler.assignAll). Defaults to 1, i.e., each job is assigned on its own, as soon as it is
+ *     requested.</li>
+ *     <li><code>batchMaxWait</code> - how long, in milliseconds, to wait for more jobs to fill up a batch once the first
+ *     job of the batch is requested. Defaults to 0, i.e., a batch is only made up of jobs already requested.</li>
+ *     <li><code>workStealing</code> - whether a slave that runs out of jobs to send takes jobs not yet sent from the
+ *     most loaded slave (see MasterModel.stealJobToRun). Defaults to false.</li>
+ *     <li><code>dispatchMode</code> - when each job is bound to the slave that runs it (see DispatchMode). Defaults to
+ *     PUSH. With PULL, the scheduling policy, batch and work stealing settings don't apply, as jobs are only bound as
+ *     slaves are ready for them.</li>
+ *     <li><code>maxChunkLength</code> - the maximum length of each chunk of a job's input or result sent in packets of
+ *     its own (see MultiPacketTransfers). Results no longer than this are sent in the job's own packet. Defaults to
+ *     MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH.</li>
+ *     <li><code>compression</code> - the compression the master agrees to when a client or slave asks for its
+ *     jobs' inputs and results to be compressed (see Compression). Defaults to DEFLATE. With NONE, they are always sent
+ *     uncompressed.</li>
+ *     <li><code>compressionThreshold</code> - the minimum length, in bytes, of an input or result to compress.
+ *     Defaults to MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD.</li>
+ *     <li><code>nodeId</code> - the id, from 0 to IdGenerator.MAX_NODE_ID, that prefixes the internal ids of this
+ *     master's jobs (see IdGenerator). Masters that share slaves, or whose job ids are compared (e.g., in logs),
+ *     should each be given a different node id. Defaults to 0.</li>
+ * </ul>
+ */
+public class MasterSettings {
+    private NetworkMode networkMode = NetworkMode.THREADED;
+    private int numEventLoops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private SchedulingPolicy schedulingPolicy = SchedulingPolicy.LOWEST_LOAD;
+    private int numSchedulingChoices = 2;
+    private String schedulerClassName = null;  // set when a JobScheduler class is given instead of a SchedulingPolicy
+    private int batchSize = 1;
+    private long batchMaxWaitMillis = 0;
+    private boolean workStealingEnabled = false;
+    private DispatchMode dispatchMode = DispatchMode.PUSH;
+    private int maxChunkLength = MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH;
+    private Compression compression = Compression.DEFLATE;
+    private int compressionThreshold = MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD;
+    private int nodeId = 0;
+
+    /**
+     * Create the settings from the application's named parameters
+     */
+    public static MasterSettings fromNamedParameters(Map<String, String> namedParameters) {
+        MasterSettings settings = new MasterSettings();
+        String networkMode = namedParameters.get("networkMode");
+        if (networkMode != null) {
+            try {
+                settings.networkMode = NetworkMode.valueOf(networkMode.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logging.consoleLog("Invalid networkMode '" + networkMode + "' - using " + settings.networkMode + "\n");
+            }
+        }
+        String numEventLoops = namedParameters.get("eventLoops");
+        if (numEventLoops != null) {
+            try {
+                settings.numEventLoops = Math.max(1, Integer.parseInt(numEventLoops));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid eventLoops '" + numEventLoops + "' - using " + settings.numEventLoops + "\n");
+            }
+        }
+        String schedulingPolicy = namedParameters.get("schedulingPolicy");
+        if (schedulingPolicy != null) {
+            try {
+                settings.schedulingPolicy = SchedulingPolicy.valueOf(schedulingPolicy.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                if (schedulingPolicy.contains(".")) {  // a fully qualified class name
+                    settings.schedulerClassName = schedulingPolicy;
+                } else {
+                        Logging.consoleLog("Invalid schedulingPolicy '" + schedulingPolicy + "' - using " + settings.schedulingPolicy + "\n");
+                }
+            }
+        }
+        String numSchedulingChoices = namedParameters.get("schedulingChoices");
+        if (numSchedulingChoices != null) {
+            try {
+                settings.numSchedulingChoices = Math.max(1, Integer.parseInt(numSchedulingChoices));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid schedulingChoices '" + numSchedulingChoices + "' - using " + settings.numSchedulingChoices + "\n");
+            }
+        }
+        String batchSize = namedParameters.get("batchSize");
+        if (batchSize != null) {
+            try {
+                settings.batchSize = Math.max(1, Integer.parseInt(batchSize));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid batchSize '" + batchSize + "' - using " + settings.batchSize + "\n");
+            }
+        }
+        String batchMaxWaitMillis = namedParameters.get("batchMaxWait");
+        if (batchMaxWaitMillis != null) {
+            try {
+                settings.batchMaxWaitMillis = Math.max(0, Long.parseLong(batchMaxWaitMillis));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid batchMaxWait '" + batchMaxWaitMillis + "' - using " + settings.batchMaxWaitMillis + "\n");
+            }
+        }
+        String workStealingEnabled = namedParameters.get("workStealing");
+        if (workStealingEnabled != null) {
+            settings.workStealingEnabled = Boolean.parseBoolean(workStealingEnabled);
+        }
+        String dispatchMode = namedParameters.get("dispatchMode");
+        if (dispatchMode != null) {
+            try {
+                settings.dispatchMode = DispatchMode.valueOf(dispatchMode.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logging.consoleLog("Invalid dispatchMode '" + dispatchMode + "' - using " + settings.dispatchMode + "\n");
+            }
+        }
+        String maxChunkLength = namedParameters.get("maxChunkLength");
+        if (maxChunkLength != null) {
+            try {
+                settings.maxChunkLength = Math.max(1, Integer.parseInt(maxChunkLength));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid maxChunkLength '" + maxChunkLength + "' - using " + settings.maxChunkLength + "\n");
+            }
+        }
+        String compression = namedParameters.get("compression");
+        if (compression != null) {
+            try {
+                settings.compression = Compression.valueOf(compression.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logging.consoleLog("Invalid compression '" + compression + "' - using " + settings.compression + "\n");
+            }
+        }
+        String compressionThreshold = namedParameters.get("compressionThreshold");
+        if (compressionThreshold != null) {
+            try {
+                settings.compressionThreshold = Math.max(0, Integer.parseInt(compressionThreshold));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid compressionThreshold '" + compressionThreshold + "' - using " + settings.compressionThreshold + "\n");
+            }
+        }
+        String nodeId = namedParameters.get("nodeId");
+        if (nodeId != null) {
+            try {
+                int parsedNodeId = Integer.parseInt(nodeId);
+                if (parsedNodeId < 0 || parsedNodeId > IdGenerator.MAX_NODE_ID) {
+                    throw new NumberFormatException();
+                }
+                settings.nodeId = parsedNodeId;
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid nodeId '" + nodeId + "' - using " + settings.nodeId + "\n");
+            }
+        }
+        return settings;
+    }
+
+    public NetworkMode getNetworkMode() {
+        return networkMode;
+    }
+
+    public int getNumEventLoops() {
+        return numEventLoops;
+    }
+
+    public SchedulingPolicy getSchedulingPolicy() {
+        return schedulingPolicy;
+    }
+
+    public int getNumSchedulingChoices() {
+        return numSchedulingChoices;
+    }
+
+    /**
+     * @return the fully qualified name of the JobScheduler class to use instead of a built-in SchedulingPolicy, or
+     * <code>null</code> if a built-in policy is used
+     */
+    public String getSchedulerClassName() {
+        return schedulerClassName;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchMaxWaitMillis() {
+        return batchMaxWaitMillis;
+    }
+
+    public boolean isWorkStealingEnabled() {
+        return workStealingEnabled;
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    public int getMaxChunkLength() {
+        return maxChunkLength;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+}
@@ -3,8 +3,10 @@ package main.classes;
 
 import PacketCommunication.IPConnection;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Each Client's info is stored in an instance of their Client class. The instance is shared with any threads that
@@ -14,8 +16,7 @@ import java.util.concurrent.LinkedBlockingQueue;
  * The jobs are dequeued by the SendJobResultsToClientTask to be sent back to the Client.
  */
 public class Client {
-    private static int lastUsedId = -1;
-    private static final Object lastUsedIdLock = new Object();
+    private static final AtomicInteger lastUsedId = new AtomicInteger(-1);
     private final int id;
     private final IPConnection ipConnection;  // the details of the connection to this client
 
@@ -25,14 +26,17 @@ public class Client {
     private final LinkedBlockingQueue<MasterJob> jobsCompleted = new LinkedBlockingQueue<>();
 
     /**
-     * All jobs ever requested by this client
-     * */
-    private final ArrayList<MasterJob> allJobs = new ArrayList<>();
+     * If set, this is run each time a completed job is enqueued. This is used by connections that don't have a thread
+     * waiting on the jobsCompleted queue (see NioClientConnection), to know when there is a job to send.
+     */
+    private volatile Runnable onCompletedJobEnqueued;
 
     /**
-     * All jobs completed for this client
+     * The number of jobs ever requested by, and completed for, this client. Only the counts are kept, rather than the
+     * jobs themselves, so that a client's memory doesn't grow with the number of jobs it requests.
      * */
-    private final ArrayList<MasterJob> allJobsCompleted = new ArrayList<>();
+    private final LongAdder numJobsRequested = new LongAdder();
+    private final LongAdder numJobsCompleted = new LongAdder();
 
     public Client(int id, IPConnection connection) {
         this.id = id;
@@ -43,9 +47,7 @@ public class Client {
      * @return the next available client id
      */
     public static int getNextAvailableClientId() {
-        synchronized (lastUsedIdLock) {
-            return ++lastUsedId;
-        }
+        return lastUsedId.incrementAndGet();
     }
 
     public int getId() {
@@ -57,9 +59,11 @@ public class Client {
      * @param jobCompleted the job completed
      */
     public void enqueueCompletedJob(MasterJob jobCompleted) throws InterruptedException {
-        jobsCompleted.put(new MasterJob(jobCompleted));  // synchronization not needed here because the queue is thread-safe
-        synchronized (allJobsCompleted) {
-            allJobsCompleted.add(new MasterJob(jobCompleted));
+        jobsCompleted.put(jobCompleted);  // synchronization not needed here because the queue is thread-safe
+        numJobsCompleted.increment();
+        Runnable listener = onCompletedJobEnqueued;
+        if (listener != null) {
+            listener.run();
         }
     }
 
@@ -71,32 +75,44 @@ public class Client {
         return jobsCompleted.take();  // synchronization not needed here because the queue is thread-safe
     }
 
+    /**
+     * Deque a completed job to be sent back to the Client, without waiting.
+     * @return the job, or <code>null</code> if there are no completed jobs waiting to be sent
+     */
+    public MasterJob pollCompletedJob() {
+        return jobsCompleted.poll();
+    }
+
+    public void setOnCompletedJobEnqueued(Runnable onCompletedJobEnqueued) {
+        this.onCompletedJobEnqueued = onCompletedJobEnqueued;
+    }
+
     /**
      * Add a job that was requested by this client
      */
     public void addJobRequested(MasterJob job) {
-        MasterJob jobCopy = new MasterJob(job);
-        synchronized (allJobs) {
-            allJobs.add(jobCopy);
-        }
+        numJobsRequested.increment();
     }
 
     /**
-     * @return the number of jobs completed by this Slave
+     * Add a batch of jobs that were requested by this client
      */
-    public int getNumJobsCompleted() {
-        synchronized (allJobsCompleted) {
-            return allJobsCompleted.size();
-        }
+    public void addJobsRequested(List<MasterJob> jobs) {
+        numJobsRequested.add(jobs.size());
+    }
+
+    /**
+     * @return the number of jobs completed for this client
+     */
+    public long getNumJobsCompleted() {
+        return numJobsCompleted.sum();
     }
 
     /**
      * @return the number of jobs requested by this client
      */
-    public int getNumJobsRequested() {
-        synchronized (allJobs) {
-            return allJobs.size();
-        }
+    public long getNumJobsRequested() {
+        return numJobsRequested.sum();
     }
 
     @Override
@@ -115,6 +131,6 @@ public class Client {
 
     @Override
     public int hashCode() {
-        return String.valueOf(id).hashCode();
+        return Integer.hashCode(id);
     }
 }
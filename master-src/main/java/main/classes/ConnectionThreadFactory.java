@@ -0,0 +1,61 @@
+package main.classes;
+
+import main.Logging;
+
+import java.lang.reflect.Method;
+
+/**
+ * This class creates the threads for the tasks that handle a single client or slave connection (the connection handler
+ * tasks and their input and output tasks).
+ * When set to use virtual threads, the threads are created as virtual threads, which are cheap enough to have one (or
+ * more) for every connection. Virtual threads are only available when running on Java 21 or later, so they are looked
+ * up at runtime; if they are not available, platform threads are used instead.
+ */
+public class ConnectionThreadFactory {
+    private static final Method OF_VIRTUAL_METHOD;  // Thread.ofVirtual()
+    private static final Method BUILDER_NAME_METHOD;  // Thread.Builder.name(String)
+    private static final Method BUILDER_UNSTARTED_METHOD;  // Thread.Builder.unstarted(Runnable)
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class);
+            unstarted = builderClass.getMethod("unstarted", Runnable.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;  // virtual threads are not supported by this JVM
+        }
+        OF_VIRTUAL_METHOD = ofVirtual;
+        BUILDER_NAME_METHOD = name;
+        BUILDER_UNSTARTED_METHOD = unstarted;
+    }
+
+    private final boolean useVirtualThreads;
+
+    public ConnectionThreadFactory(boolean useVirtualThreads) {
+        if (useVirtualThreads && OF_VIRTUAL_METHOD == null) {
+            Logging.consoleLog("Virtual threads are not supported by this JVM (Java 21 or later is required) - using platform threads\n");
+        }
+        this.useVirtualThreads = useVirtualThreads && OF_VIRTUAL_METHOD != null;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    /**
+     * @return a new, unstarted, thread to run the given task
+     */
+    public Thread newThread(Runnable task, String name) {
+        if (useVirtualThreads) {
+            try {
+                Object builder = BUILDER_NAME_METHOD.invoke(OF_VIRTUAL_METHOD.invoke(null), name);
+                return (Thread) BUILDER_UNSTARTED_METHOD.invoke(builder, task);
+            } catch (ReflectiveOperationException e) {
+                Logging.consoleLog("Unable to create virtual thread '" + name + "' - using a platform thread\n");
+            }
+        }
+        return new Thread(task, name);
+    }
+}
@@ -0,0 +1,58 @@
+package main.classes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class hands out unique 64-bit ids without locking, as a single atomic increment per id.
+ * Each id is made up of, from the highest bit down:
+ * <ul>
+ *     <li>1 bit - always 0, so that ids are never negative (the text wire format has no room for a '-')</li>
+ *     <li>15 bits - the id of the node (master) that generated it, so that ids from separate masters never collide</li>
+ *     <li>48 bits - a sequence number. The sequence doesn't start at 0, but at the number of seconds between EPOCH and
+ *     the time the generator is created, shifted left by STARTUP_SECONDS_SHIFT bits. A node that is restarted therefore
+ *     continues past the ids of its previous run, as long as that run averaged fewer than 2^STARTUP_SECONDS_SHIFT ids
+ *     per second.</li>
+ * </ul>
+ */
+public class IdGenerator {
+    public static final int MAX_NODE_ID = (1 << 15) - 1;
+    private static final int SEQUENCE_BITS = 48;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int STARTUP_SECONDS_SHIFT = 17;
+    private static final long EPOCH_MILLIS = 1704067200000L;  // 2024-01-01T00:00:00Z
+    private final long nodePrefix;
+    private final AtomicLong nextSequence;
+
+    /**
+     * @param nodeId the id of this node, from 0 to MAX_NODE_ID
+     */
+    public IdGenerator(int nodeId) {
+        this(nodeId, System.currentTimeMillis());
+    }
+
+    /**
+     * @param startupMillis the time the generator is considered to be created at
+     */
+    public IdGenerator(int nodeId, long startupMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodePrefix = (long) nodeId << SEQUENCE_BITS;
+        long startupSeconds = Math.max(0, (startupMillis - EPOCH_MILLIS) / 1000);
+        this.nextSequence = new AtomicLong((startupSeconds << STARTUP_SECONDS_SHIFT) & SEQUENCE_MASK);
+    }
+
+    /**
+     * @return the next id. The sequence only wraps around after 2^48 ids.
+     */
+    public long nextId() {
+        return nodePrefix | (nextSequence.getAndIncrement() & SEQUENCE_MASK);
+    }
+
+    /**
+     * @return the id of the node that generated the given id
+     */
+    public static int getNodeId(long id) {
+        return (int) (id >>> SEQUENCE_BITS);
+    }
+}
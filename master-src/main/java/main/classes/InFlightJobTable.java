@@ -0,0 +1,207 @@
+package main.classes;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class maps the internal id of each job in flight - requested, and not yet completed by a slave - to the job.
+ * Jobs are removed once their result is received, so the table only ever holds as many jobs as are in flight at once.
+ * The table is split into stripes, each guarded by its own lock, so that the many connections adding and looking up
+ * jobs at once rarely wait on each other. Each stripe is an open-addressing hash table with linear probing, keyed by
+ * the primitive id, so that neither the keys nor the entries are allocated as objects. Removed entries are filled in
+ * by shifting back the entries after them, rather than being marked as deleted, so lookups never have to skip over
+ * them. A stripe doubles its capacity once it is half full, and halves it once it is less than an eighth full.
+ * <ul>
+ *     <li>Adding, looking up or removing a job - O(1) on average</li>
+ * </ul>
+ */
+public class InFlightJobTable {
+    private static final int MIN_STRIPE_CAPACITY = 16;  // must be a power of 2
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeBits;  // the number of low bits of the hash that pick the stripe
+
+    public InFlightJobTable() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param concurrencyLevel the expected number of threads using the table at once. The number of stripes is the
+     *                         next power of 2.
+     */
+    public InFlightJobTable(int concurrencyLevel) {
+        int numStripes = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1) << 1);
+        stripes = new Stripe[numStripes];
+        stripeMask = numStripes - 1;
+        stripeBits = Integer.numberOfTrailingZeros(numStripes);
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe(stripeBits);
+        }
+    }
+
+    /**
+     * @return the job previously mapped to the id, or <code>null</code> if there was none
+     */
+    public MasterJob put(long internalId, MasterJob job) {
+        int hash = hash(internalId);
+        Stripe stripe = stripes[hash & stripeMask];
+        stripe.lock.lock();
+        try {
+            return stripe.put(internalId, hash >>> stripeBits, job);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the job with the given id, or <code>null</code> if it isn't in flight
+     */
+    public MasterJob get(long internalId) {
+        int hash = hash(internalId);
+        Stripe stripe = stripes[hash & stripeMask];
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(internalId, hash >>> stripeBits);
+            return slot < 0 ? null : stripe.jobs[slot];
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the job removed, or <code>null</code> if it wasn't in flight
+     */
+    public MasterJob remove(long internalId) {
+        int hash = hash(internalId);
+        Stripe stripe = stripes[hash & stripeMask];
+        stripe.lock.lock();
+        try {
+            return stripe.remove(internalId, hash >>> stripeBits);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of jobs in flight. This locks each stripe in turn, so it is only a snapshot if jobs are added
+     * or removed meanwhile.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Spread the bits of the id, as ids are handed out in sequence, so that consecutive ids go to different stripes
+     * and the slots used within a stripe aren't clustered
+     */
+    private static int hash(long internalId) {
+        long hash = internalId * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) hash ^ ((int) hash >>> 16);
+    }
+
+    /**
+     * One stripe of the table. Slots with a <code>null</code> job are empty. Must only be used with its lock held.
+     */
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int stripeBits;
+        private long[] ids = new long[MIN_STRIPE_CAPACITY];
+        private MasterJob[] jobs = new MasterJob[MIN_STRIPE_CAPACITY];
+        private int size = 0;
+
+        Stripe(int stripeBits) {
+            this.stripeBits = stripeBits;
+        }
+
+        /**
+         * @param hash the id's hash, without the bits that picked this stripe
+         * @return the slot holding the id, or -1 if it isn't in this stripe
+         */
+        int find(long id, int hash) {
+            int mask = jobs.length - 1;
+            for (int slot = hash & mask; jobs[slot] != null; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        MasterJob put(long id, int hash, MasterJob job) {
+            if ((size + 1) * 2 > jobs.length) {
+                resize(jobs.length * 2);
+            }
+            int mask = jobs.length - 1;
+            int slot = hash & mask;
+            for (; jobs[slot] != null; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    MasterJob previous = jobs[slot];
+                    jobs[slot] = job;
+                    return previous;
+                }
+            }
+            ids[slot] = id;
+            jobs[slot] = job;
+            size++;
+            return null;
+        }
+
+        MasterJob remove(long id, int hash) {
+            int slot = find(id, hash);
+            if (slot < 0) {
+                return null;
+            }
+            MasterJob removed = jobs[slot];
+            // shift back any later entries of the same probe sequence, so that there is no gap before them
+            int mask = jobs.length - 1;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (jobs[next] == null) {
+                    break;
+                }
+                int home = (InFlightJobTable.hash(ids[next]) >>> stripeBits) & mask;
+                boolean homeBetween = slot <= next ? (slot < home && home <= next) : (slot < home || home <= next);
+                if (!homeBetween) {  // the entry can't be found past the gap, so it is moved into it
+                    ids[slot] = ids[next];
+                    jobs[slot] = jobs[next];
+                    slot = next;
+                }
+            }
+            jobs[slot] = null;
+            size--;
+            if (jobs.length > MIN_STRIPE_CAPACITY && size * 8 < jobs.length) {
+                resize(jobs.length / 2);
+            }
+            return removed;
+        }
+
+        private void resize(int capacity) {
+            long[] oldIds = ids;
+            MasterJob[] oldJobs = jobs;
+            ids = new long[capacity];
+            jobs = new MasterJob[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldJobs.length; i++) {
+                if (oldJobs[i] == null) {
+                    continue;
+                }
+                int slot = (InFlightJobTable.hash(oldIds[i]) >>> stripeBits) & mask;
+                while (jobs[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = oldIds[i];
+                jobs[slot] = oldJobs[i];
+            }
+        }
+    }
+}
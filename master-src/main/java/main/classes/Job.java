@@ -1,22 +1,26 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import main.enums.JobKind;
 import main.enums.JobType;
 
 /**
  * This class represents a job
  * */
 public class Job {
-    private int jobId;
+    private long jobId;
     private JobType jobType;
     private boolean succeeded;
     private String result;
-    private final String TO_STRING_FIELD_DELIMITER = " - ";  // the delimiter used when this job is represented as a String
+    private JobKind jobKind = JobKind.DEFAULT;  // the job kind and its size are not part of the job's String representation
+    private int jobSize = 0;  // 0 to use the job kind's default size
+    private byte[] input = new byte[0];  // the input payload the job was requested with (not part of the job's String representation)
+    private static final String TO_STRING_FIELD_DELIMITER = " - ";  // the delimiter used when this job is represented as a String
 
     public Job() {
     }
 
-    public Job(int jobId, JobType jobType) {
+    public Job(long jobId, JobType jobType) {
         this.jobId = jobId;
         this.jobType = jobType;
     }
@@ -29,21 +33,24 @@ public class Job {
         this.jobType = job.jobType;
         this.succeeded = job.succeeded;
         this.result = job.result;
+        this.jobKind = job.jobKind;
+        this.jobSize = job.jobSize;
+        this.input = job.input;
     }
 
     public Job(String jobStr) {
         String[] fields = jobStr.split(TO_STRING_FIELD_DELIMITER);
-        this.jobId = Integer.parseInt(fields[0]);
+        this.jobId = Long.parseLong(fields[0]);
         this.jobType = JobType.valueOf(fields[1]);
         this.succeeded = Boolean.parseBoolean(fields[2]);
         this.result = fields[3];
     }
 
-    public int getJobId() {
+    public long getJobId() {
         return jobId;
     }
 
-    public void setJobId(int jobId) {
+    public void setJobId(long jobId) {
         this.jobId = jobId;
     }
 
@@ -63,6 +70,37 @@ public class Job {
         this.result = result;
     }
 
+    /**
+     * @return the job's input payload (empty if there is none). The payload isn't copied along with the job, so it must
+     * not be modified.
+     */
+    public byte[] getInput() {
+        return input;
+    }
+
+    public void setInput(byte[] input) {
+        this.input = input == null ? new byte[0] : input;
+    }
+
+    public JobKind getJobKind() {
+        return jobKind;
+    }
+
+    public void setJobKind(JobKind jobKind) {
+        this.jobKind = jobKind;
+    }
+
+    /**
+     * @return the size of the job (see JobKind), or 0 to use the job kind's default size
+     */
+    public int getJobSize() {
+        return jobSize;
+    }
+
+    public void setJobSize(int jobSize) {
+        this.jobSize = jobSize;
+    }
+
     public JobType getJobType() {
         return jobType;
     }
@@ -89,6 +127,6 @@ public class Job {
 
     @Override
     public int hashCode() {
-        return String.valueOf(jobId).hashCode();
+        return Long.hashCode(jobId);
     }
 }
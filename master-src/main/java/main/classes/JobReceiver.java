@@ -1,65 +1,289 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.MultiPacketTransfers.ReceivedTransfer;
 import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import PacketCommunication.enums.PacketArgKey;
 import javafx.scene.control.TextArea;
 import main.Logging;
+import main.enums.JobKind;
 import main.enums.JobType;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * This abstract class is used for receiving and extracting Jobs from packets
  */
 public abstract class JobReceiver extends PacketReceiver {
+    public static final int MAX_BATCH_SIZE = 4096;  // the most jobs accepted in one batch packet
+    private final ArrayDeque<MasterJob> batchedJobs = new ArrayDeque<>();  // the jobs of a batch packet not yet returned
+
     /**
-     * Receive a job from a packet read from the given BufferedReader
-     * @param in the BufferedReader to read the job from
+     * Receive a job from the packets read from the given PacketFrameReader. If the job's input or result is sent in
+     * packets of its own (see JobSender), the job is only returned once they have all been received. In the meantime,
+     * packets of other jobs' transfers, and packets about the transfers sent over the same connection, are handled as
+     * they are read (see MultiPacketTransfers), as are requests to compress the transfers (see
+     * acknowledgeCompression).
+     * If a batch packet is read (see getJobsFromBatchPacket), its first job is returned, and the rest are returned by
+     * the next calls, before any more packets are read (see receiveJobs to receive the whole batch at once).
+     * @param in the PacketFrameReader to read the job from
      * @param useInternalId boolean indicating if the job id received should be set as the internal or original id in the
      *                      returned job object (the internal id is used for the slave or master, the original is used
      *                      for the client)
+     * @param out the PacketFrameWriter of the same connection, to acknowledge transfers or request their missing packets
+     * @param transfers the transfers sent and received over the connection
      * @param logsTextArea the GUI TextArea to output any logs while receiving the job
      * */
-    public MasterJob receiveJob(BufferedReader in, boolean useInternalId, TextArea logsTextArea) throws IOException {
-        PacketDecoder packetDecoder = receiveOnePacket(in);
-        if (packetDecoder == null) {
-            Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
-                    " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
-            return null;
+    public MasterJob receiveJob(PacketFrameReader in, boolean useInternalId, PacketFrameWriter out,
+                                MultiPacketTransfers transfers, TextArea logsTextArea) throws IOException {
+        if (batchedJobs.isEmpty()) {
+            List<MasterJob> jobs = receiveJobs(in, useInternalId, out, transfers, logsTextArea);
+            if (jobs == null) {
+                return null;
+            }
+            batchedJobs.addAll(jobs);
         }
+        return batchedJobs.poll();
+    }
 
+    /**
+     * Receive the next job, or the next batch of jobs, from the packets read from the given PacketFrameReader (see
+     * receiveJob)
+     * @return the jobs received - either all the jobs of a batch packet, or a single job - or <code>null</code> if an
+     * error occurred
+     * */
+    public List<MasterJob> receiveJobs(PacketFrameReader in, boolean useInternalId, PacketFrameWriter out,
+                                       MultiPacketTransfers transfers, TextArea logsTextArea) throws IOException {
+        while (true) {
+            PacketDecoder packetDecoder = receiveOnePacket(in);
+            if (packetDecoder == null) {
+                Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
+                        " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
+                return null;
+            }
+            if (isBatchPacket(packetDecoder)) {
+                List<MasterJob> jobs = getJobsFromBatchPacket(packetDecoder, useInternalId);
+                if (jobs == null) {
+                    Logging.consoleLogAndAppendToGUILogs("Error while parsing batch packet." +
+                            " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
+                    return null;
+                }
+                return jobs;
+            }
+            if (MultiPacketTransfers.isMissingPacketsPacket(packetDecoder)) {
+                transfers.onMissingPacketsPacket(packetDecoder, out::writePacket);
+                continue;
+            }
+            if (MultiPacketTransfers.isCompressionPacket(packetDecoder)) {
+                acknowledgeCompression(packetDecoder, out::writePacket, transfers);
+                continue;
+            }
+            if (MultiPacketTransfers.isTransferPacket(packetDecoder)) {
+                ReceivedTransfer transfer = transfers.onTransferPacket(packetDecoder, out::writePacket);
+                if (transfer == null) {
+                    continue;
+                }
+                MasterJob job = getJobFromTransfer(transfer, useInternalId);
+                if (job == null) {
+                    Logging.consoleLogAndAppendToGUILogs("Error while receiving job #" + packetDecoder.getArg(PacketArgKey.JOB_ID) +
+                            ". Some of the packets of its input or result were invalid\n", logsTextArea);
+                    return null;
+                }
+                return List.of(job);
+            }
+            MasterJob job = receiveJobPacket(packetDecoder, useInternalId, logsTextArea);
+            if (job == null) {
+                return null;
+            }
+            if (!hasTransfer(packetDecoder)) {
+                return List.of(job);
+            }
+            int transferLength = getTransferLength(packetDecoder);
+            if (transferLength <= 0 || !transfers.startReceiving(packetDecoder.getArg(PacketArgKey.JOB_ID), packetDecoder, transferLength)) {
+                Logging.consoleLogAndAppendToGUILogs("Error while receiving job #" + packetDecoder.getArg(PacketArgKey.JOB_ID) +
+                        " - invalid input or result length\n", logsTextArea);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Agree to the compression a peer requested for the connection's transfers, if the master supports it, and
+     * acknowledge the compression that will be used (NONE if it isn't supported)
+     * @param request the packet requesting the compression
+     * @param out writes a packet to the connection
+     * @return <code>false</code> if the acknowledgement couldn't be written, else <code>true</code>
+     * */
+    public static boolean acknowledgeCompression(PacketDecoder request, Predicate<PacketEncoder> out, MultiPacketTransfers transfers) {
+        PacketEncoder ack = new PacketEncoder();
+        ack.setArg(PacketArgKey.COMPRESSION, transfers.negotiateCompression(request.getArg(PacketArgKey.COMPRESSION)).name());
+        return out.test(ack);
+    }
+
+    /**
+     * Receive a job from its own packet
+     * @return the job, or <code>null</code> if the packet is invalid
+     * */
+    private MasterJob receiveJobPacket(PacketDecoder packetDecoder, boolean useInternalId, TextArea logsTextArea) {
         if (!packetContainsValidJob(packetDecoder)) {
             Logging.consoleLogAndAppendToGUILogs("Error while receiving MasterJob. Received " +
                     "Packet without expected args\n", logsTextArea);
             return null;
         }
 
-        MasterJob job = getJobFromPacket(packetDecoder, useInternalId, logsTextArea);
+        MasterJob job = getJobFromPacket(packetDecoder, useInternalId);
         if (job == null) {
             Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
                     " Received packet with invalid structure, packet likely corrupt.\n\tPacket: '" +
                     packetDecoder.getPacketString() + "'\n", logsTextArea);
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * @return <code>true</code> if the job's input or result is sent in the packets that follow the job's packet
+     * */
+    public static boolean hasTransfer(PacketDecoder jobPacket) {
+        return jobPacket.containsArg(PacketArgKey.INPUT_LENGTH) || jobPacket.containsArg(PacketArgKey.RESULT_LENGTH);
+    }
+
+    /**
+     * @return the length of the input or result given in the job's packet, or -1 if the length is invalid
+     * */
+    public static int getTransferLength(PacketDecoder jobPacket) {
+        try {
+            return jobPacket.getIntArg(jobPacket.containsArg(PacketArgKey.INPUT_LENGTH) ? PacketArgKey.INPUT_LENGTH : PacketArgKey.RESULT_LENGTH);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Extract the job whose packet started the given transfer, with the input or result received in the transfer
+     * @return the job, or <code>null</code> if the transfer is incomplete, or the job's packet or the received input or
+     * result is invalid
+     * */
+    public static MasterJob getJobFromTransfer(ReceivedTransfer transfer, boolean useInternalId) {
+        MasterJob job = getJobFromPacket(transfer.getFirstPacket(), useInternalId);
+        byte[] payload = transfer.getPayload();
+        if (job == null || payload == null) {
+            return null;
+        }
+        if (transfer.getFirstPacket().containsArg(PacketArgKey.INPUT_LENGTH)) {
+            job.setInput(payload);
+        } else {
+            job.setResult(new String(payload, StandardCharsets.UTF_8));
         }
         return job;
     }
 
-    private boolean packetContainsValidJob(PacketDecoder packetDecoder) {
+    /**
+     * @return <code>true</code> if the packet holds a batch of jobs, rather than a single job
+     * */
+    public static boolean isBatchPacket(PacketDecoder packetDecoder) {
+        return packetDecoder.containsArg(PacketArgKey.MESSAGE_LENGTHS);
+    }
+
+    /**
+     * Extract the jobs held in the given batch packet. A batch packet holds the ids, types and successes of its jobs
+     * (and their kinds and sizes, if any of them isn't of the DEFAULT kind) as array args, in the same order as the
+     * jobs' messages (i.e., results), which are sent one after the other as the packet's message with the length of
+     * each in the MESSAGE_LENGTHS arg.
+     * @param useInternalId boolean indicating if the job ids received should be set as the internal or original ids
+     * @return the jobs, or <code>null</code> if the packet's args are invalid or don't match its message, or the packet
+     * holds more than MAX_BATCH_SIZE jobs
+     * */
+    public static List<MasterJob> getJobsFromBatchPacket(PacketDecoder packetDecoder, boolean useInternalId) {
+        long[] jobIds = packetDecoder.getLongArrayArg(PacketArgKey.JOB_ID);
+        String[] jobTypes = packetDecoder.getStringArrayArg(PacketArgKey.JOB_TYPE);
+        String[] jobsSucceeded = packetDecoder.getStringArrayArg(PacketArgKey.JOB_SUCCEEDED);
+        int[] messageLengths = packetDecoder.getIntArrayArg(PacketArgKey.MESSAGE_LENGTHS);
+        String message = packetDecoder.getMessage();
+        if (jobIds == null || jobTypes == null || jobsSucceeded == null || messageLengths == null || message == null
+                || jobIds.length > MAX_BATCH_SIZE || jobTypes.length != jobIds.length || jobsSucceeded.length != jobIds.length
+                || messageLengths.length != jobIds.length) {
+            return null;
+        }
+        String[] jobKinds = null;
+        int[] jobSizes = null;
+        if (packetDecoder.containsArg(PacketArgKey.JOB_KIND)) {
+            jobKinds = packetDecoder.getStringArrayArg(PacketArgKey.JOB_KIND);
+            jobSizes = packetDecoder.getIntArrayArg(PacketArgKey.JOB_SIZE);
+            if (jobKinds == null || jobSizes == null || jobKinds.length != jobIds.length || jobSizes.length != jobIds.length) {
+                return null;
+            }
+        }
+
+        List<MasterJob> jobs = new ArrayList<>(jobIds.length);
+        int messageOffset = 0;
+        try {
+            for (int i = 0; i < jobIds.length; i++) {
+                if (messageLengths[i] < 0 || messageLengths[i] > message.length() - messageOffset) {
+                    return null;
+                }
+                MasterJob job = new MasterJob();
+                if (useInternalId) {
+                    job.setInternalId(jobIds[i]);
+                } else if (jobIds[i] == (int) jobIds[i]) {
+                    job.setOriginalId((int) jobIds[i]);
+                } else {
+                    return null;  // original ids are ints
+                }
+                job.setJobType(JobType.valueOf(jobTypes[i]));
+                job.setSucceeded(Boolean.parseBoolean(jobsSucceeded[i]));
+                if (jobKinds != null) {
+                    job.setJobKind(JobKind.valueOf(jobKinds[i]));
+                    job.setJobSize(jobSizes[i]);
+                }
+                job.setResult(message.substring(messageOffset, messageOffset + messageLengths[i]));
+                messageOffset += messageLengths[i];
+                jobs.add(job);
+            }
+        } catch (IllegalArgumentException e) {
+            return null;  // unknown jobType or jobKind
+        }
+        return messageOffset == message.length() ? jobs : null;
+    }
+
+    /**
+     * @return <code>true</code> if the packet has the args required for a job
+     * */
+    public static boolean packetContainsValidJob(PacketDecoder packetDecoder) {
         return packetDecoder.containsArg(PacketArgKey.JOB_ID) && packetDecoder.containsArg(PacketArgKey.JOB_SUCCEEDED);
     }
 
-    private MasterJob getJobFromPacket(PacketDecoder packetDecoder, boolean useInternalId, TextArea logsTextArea) {
+    /**
+     * Extract the job held in the given packet
+     * @param useInternalId boolean indicating if the job id received should be set as the internal or original id
+     * @return the job, or <code>null</code> if the packet's args are invalid
+     * */
+    public static MasterJob getJobFromPacket(PacketDecoder packetDecoder, boolean useInternalId) {
         MasterJob job = new MasterJob();
         try {
             if (useInternalId) {
-                job.setInternalId(Integer.parseInt(packetDecoder.getArg(PacketArgKey.JOB_ID)));
+                job.setInternalId(packetDecoder.getLongArg(PacketArgKey.JOB_ID));
             } else {
-                job.setOriginalId(Integer.parseInt(packetDecoder.getArg(PacketArgKey.JOB_ID)));
+                job.setOriginalId(packetDecoder.getIntArg(PacketArgKey.JOB_ID));
             }
             job.setJobType(JobType.valueOf(packetDecoder.getArg(PacketArgKey.JOB_TYPE)));
-            job.setSucceeded(Boolean.parseBoolean(packetDecoder.getArg(PacketArgKey.JOB_SUCCEEDED)));
+            job.setSucceeded(packetDecoder.getBooleanArg(PacketArgKey.JOB_SUCCEEDED));
             job.setResult(packetDecoder.getMessage());
+            if (packetDecoder.containsArg(PacketArgKey.JOB_KIND)) {
+                job.setJobKind(JobKind.valueOf(packetDecoder.getArg(PacketArgKey.JOB_KIND)));
+            }
+            if (packetDecoder.containsArg(PacketArgKey.JOB_SIZE)) {
+                job.setJobSize(packetDecoder.getIntArg(PacketArgKey.JOB_SIZE));
+            }
             return job;
         } catch (IllegalArgumentException e) {
             // unknown jobId or jobType, we can't process this packet, restart from the beginning of the while loop to read another packet
@@ -1,11 +1,15 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
 import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameWriter;
 import PacketCommunication.enums.PacketArgKey;
+import main.enums.JobKind;
 import javafx.concurrent.Task;
 
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 
 /**
@@ -13,20 +17,91 @@ import java.util.HashMap;
  */
 public abstract class JobSender extends Task<Void> {
     /**
-     * Pack the given job into a packet and output it to the given PrintWriter
+     * Pack the given job into a packet and write it to the given PacketFrameWriter, followed by the packets of the job's
+     * input or result, if they are sent in packets of their own (see getTransferPackets)
      * @param jobToSend the job to send
      * @param useInternalId boolean indicating if the job ID sent should use the internal or original id (the internal
      *                      id is used for the slave or master, the original is used for the client)
-     * @param out the PrintWriter to output the packet to
+     * @param includeInput boolean indicating if the job's input should be sent (it is only needed by the slave)
+     * @param out the PacketFrameWriter to write the packet to
+     * @param transfers the transfers sent over the connection, which keeps the job's transfer until it is acknowledged
      * */
-    public boolean sendJob(MasterJob jobToSend, boolean useInternalId, PrintWriter out) {
+    public boolean sendJob(MasterJob jobToSend, boolean useInternalId, boolean includeInput, PacketFrameWriter out,
+                           MultiPacketTransfers transfers) {
+        byte[] resultPayload = includeInput ? null : getResultPayload(jobToSend, transfers.getMaxChunkLength());
+        PacketEncoder jobPacket = getJobPacket(jobToSend, useInternalId, includeInput, resultPayload);
+        MultiPacketEncoder transferPackets = getTransferPackets(jobToSend, useInternalId, includeInput, resultPayload,
+                transfers, jobPacket);
+        if (!out.writePacket(jobPacket)) {
+            return false;
+        }
+        return transferPackets == null || transfers.send(getSentId(jobToSend, useInternalId), transferPackets, out::writePacket);
+    }
+
+    /**
+     * @return the job's result as UTF-8 bytes, if it is too long to be sent in the job's packet and is instead sent in
+     * the packets that follow, else <code>null</code>
+     * */
+    public static byte[] getResultPayload(MasterJob jobToSend, int maxChunkLength) {
+        String result = jobToSend.getResult();
+        return result != null && result.length() > maxChunkLength ? result.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Pack the given job into a packet. The job kind and size are only sent for jobs that aren't of the DEFAULT kind, so
+     * that peers that don't know of job kinds can still read the packet.
+     * If the input is included and isn't empty, the packet holds the input's length, and the input itself is sent in the
+     * packets that follow (see getTransferPackets). Likewise, a result too long for the packet (see getResultPayload)
+     * is replaced by its length.
+     * @param useInternalId boolean indicating if the job ID sent should use the internal or original id
+     * @param resultPayload the result to send in the packets that follow, or <code>null</code> to send the result in
+     *                      this packet
+     * */
+    public static PacketEncoder getJobPacket(MasterJob jobToSend, boolean useInternalId, boolean includeInput, byte[] resultPayload) {
+        PacketEncoder packetEncoder = new PacketEncoder();
+        packetEncoder.setArg(PacketArgKey.JOB_ID, useInternalId ? jobToSend.getInternalId() : jobToSend.getOriginalId());
+        packetEncoder.setArg(PacketArgKey.JOB_TYPE, String.valueOf(jobToSend.getJobType()));
+        packetEncoder.setArg(PacketArgKey.JOB_SUCCEEDED, jobToSend.getSucceeded());
+        if (jobToSend.getJobKind() != JobKind.DEFAULT) {
+            packetEncoder.setArg(PacketArgKey.JOB_KIND, jobToSend.getJobKind().name());
+            packetEncoder.setArg(PacketArgKey.JOB_SIZE, jobToSend.getJobSize());
+        }
+        if (includeInput && jobToSend.getInput().length > 0) {
+            packetEncoder.setArg(PacketArgKey.INPUT_LENGTH, jobToSend.getInput().length);
+        }
+        if (resultPayload != null) {
+            packetEncoder.setArg(PacketArgKey.RESULT_LENGTH, resultPayload.length);
+        } else {
+            packetEncoder.setMessage(jobToSend.getResult());
+        }
+        return packetEncoder;
+    }
+
+    /**
+     * @return the packets of the given job's input, if it is included and isn't empty, else of its result, if it is
+     * given, to be sent right after the job's packet. Returns <code>null</code> if there is neither. Each packet holds
+     * the job's id, so it can be matched to the job.
+     * The input or result is compressed if the connection's transfers compress it, in which case the job's packet is
+     * flagged accordingly, so it must only be sent after this is called.
+     * @param jobPacket the job's packet (see getJobPacket)
+     * */
+    public static MultiPacketEncoder getTransferPackets(MasterJob jobToSend, boolean useInternalId, boolean includeInput,
+                                                        byte[] resultPayload, MultiPacketTransfers transfers,
+                                                        PacketEncoder jobPacket) {
+        byte[] payload = includeInput && jobToSend.getInput().length > 0 ? jobToSend.getInput() : resultPayload;
+        if (payload == null) {
+            return null;
+        }
         HashMap<PacketArgKey, String> args = new HashMap<>();
-        args.put(PacketArgKey.JOB_ID, String.valueOf(useInternalId ? jobToSend.getInternalId() : jobToSend.getOriginalId()));
-        args.put(PacketArgKey.JOB_TYPE, String.valueOf(jobToSend.getJobType()));
-        args.put(PacketArgKey.JOB_SUCCEEDED, String.valueOf(jobToSend.getSucceeded()));
-        PacketEncoder packetEncoder = new PacketEncoder(args);
-        packetEncoder.setMessage(jobToSend.getResult());
-        out.print(packetEncoder);
-        return !out.checkError();
+        args.put(PacketArgKey.JOB_ID, getSentId(jobToSend, useInternalId));
+        return new MultiPacketEncoder(args, new HashMap<>(), transfers.compress(payload, jobPacket),
+                transfers.getMaxChunkLength());
+    }
+
+    /**
+     * @return the job's id as sent in its packets
+     * */
+    public static String getSentId(MasterJob jobToSend, boolean useInternalId) {
+        return String.valueOf(useInternalId ? jobToSend.getInternalId() : jobToSend.getOriginalId());
     }
 }
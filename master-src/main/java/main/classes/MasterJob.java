@@ -5,16 +5,18 @@ import main.enums.JobType;
 
 /**
  * This class represents a job within the Master system.
+ * A job is not copied as it is passed from one stage of the master to the next (see MasterModel). Each stage only
+ * sets the job's fields before handing it on through a thread-safe queue, and doesn't modify it after that.
  */
 public class MasterJob extends Job {
-    private static int lastUsedInternalId = -1;
-    private static final Object lastUsedInternalIdLock = new Object();
+    private static volatile IdGenerator internalIdGenerator = new IdGenerator(0);
 
     /**
      * <p>
      *     To track a job, we make use of an internal and original id.
      *     The internal id is used within the master to uniquely identify a job across all clients. It is
-     *     tracked only by the Master and is transparent to the client.
+     *     tracked only by the Master and is transparent to the client. It is 64 bits, and prefixed with the master's
+     *     node id (see IdGenerator), so that it stays unique across masters and master restarts.
      *     The original id is the id used when a job is transmitted to/from a client.
      * </p>
      * <p>
@@ -23,11 +25,11 @@ public class MasterJob extends Job {
      *     the result back to the client with the original id.
      * </p>
      */
-    private int internalId;
+    private long internalId;
     private int originalId;
     private int clientId;
     private int slaveId;
-    private final String TO_STRING_FIELD_DELIMITER = " - ";
+    private static final String TO_STRING_FIELD_DELIMITER = " - ";
 
     public MasterJob() {
         this.internalId = getNextAvailableInternalJobId();
@@ -53,6 +55,9 @@ public class MasterJob extends Job {
         this.setJobType(job.getJobType());
         this.setSucceeded(job.getSucceeded());
         this.setResult(job.getResult());
+        this.setJobKind(job.getJobKind());
+        this.setJobSize(job.getJobSize());
+        this.setInput(job.getInput());
         this.clientId = job.clientId;
         this.slaveId = job.slaveId;
     }
@@ -62,7 +67,7 @@ public class MasterJob extends Job {
      */
     public MasterJob(String jobStr) {
         String[] fields = jobStr.split(TO_STRING_FIELD_DELIMITER);
-        this.internalId = Integer.parseInt(fields[0]);
+        this.internalId = Long.parseLong(fields[0]);
         this.originalId = Integer.parseInt(fields[1]);
         this.setJobType(JobType.valueOf(fields[2]));
         this.setSucceeded(Boolean.parseBoolean(fields[3]));
@@ -71,20 +76,25 @@ public class MasterJob extends Job {
         this.slaveId = Integer.parseInt(fields[6]);
     }
 
+    /**
+     * Set the node id that prefixes the internal ids of the jobs created from now on (see IdGenerator)
+     */
+    public static void setNodeId(int nodeId) {
+        internalIdGenerator = new IdGenerator(nodeId);
+    }
+
     /**
      * @return the next available internal job id
      */
-    public static int getNextAvailableInternalJobId() {
-        synchronized (lastUsedInternalIdLock) {
-            return ++lastUsedInternalId;
-        }
+    public static long getNextAvailableInternalJobId() {
+        return internalIdGenerator.nextId();
     }
 
-    public int getInternalId() {
+    public long getInternalId() {
         return internalId;
     }
 
-    public void setInternalId(int internalId) {
+    public void setInternalId(long internalId) {
         this.internalId = internalId;
     }
 
@@ -131,6 +141,6 @@ public class MasterJob extends Job {
 
     @Override
     public int hashCode() {
-        return String.valueOf(internalId).hashCode();
+        return Long.hashCode(internalId);
     }
 }
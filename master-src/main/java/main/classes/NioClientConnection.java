@@ -0,0 +1,159 @@
+package main.classes;
+
+import PacketCommunication.IPConnection;
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.MultiPacketTransfers.ReceivedTransfer;
+import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.enums.PacketArgKey;
+import javafx.scene.control.TextArea;
+import main.Logging;
+import main.MasterModel;
+
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * This class handles the connection to a single Client in the NIO network mode. It does the work of both the
+ * ReceiveJobRequestsFromClientTask (enqueueing each job request received with the master) and the
+ * SendJobResultsToClientTask (sending back the Client's completed jobs).
+ * A job request with an input is only enqueued once all of its input's packets, which follow the job's packet, have
+ * been received (see MultiPacketTransfers). Other job requests may be received in the meantime.
+ */
+public class NioClientConnection extends NioConnection {
+    private final int clientId;
+    private Client client;
+
+    public NioClientConnection(SocketChannel channel, Executor eventLoop, MasterModel masterModel, TextArea logsTextArea, int clientId) {
+        super(channel, eventLoop, masterModel, logsTextArea);
+        this.clientId = clientId;
+    }
+
+    @Override
+    protected void onConnected() {
+        client = new Client(clientId, new IPConnection(getRemoteAddress(), getRemotePort()));
+        client.setOnCompletedJobEnqueued(this::scheduleSendQueuedPackets);
+        masterModel.addActiveClient(client);
+        Logging.consoleLogAndAppendToGUILogs("Connected to new Client at IP '" + getRemoteAddress() + "' - ID: '" + client.getId() + "'\n", logsTextArea);
+    }
+
+    @Override
+    protected void onPacket(PacketDecoder packet) throws InterruptedException {
+        if (packet != null && MultiPacketTransfers.isMissingPacketsPacket(packet)) {
+            onMissingPacketsPacket(packet);
+            return;
+        }
+        if (packet != null && MultiPacketTransfers.isTransferPacket(packet)) {
+            receiveInputPacket(packet);
+            return;
+        }
+        if (packet != null && MultiPacketTransfers.isCompressionPacket(packet)) {
+            JobReceiver.acknowledgeCompression(packet, this::queuePacket, transfers);
+            return;
+        }
+        if (packet != null && JobReceiver.isBatchPacket(packet)) {
+            receiveBatch(packet);
+            return;
+        }
+
+        MasterJob job = null;
+        if (packet != null && JobReceiver.packetContainsValidJob(packet)) {
+            job = JobReceiver.getJobFromPacket(packet, false);
+        }
+        if (job == null) {
+            Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job request from client #"
+                    + client.getId() + "\n", logsTextArea);
+            return;
+        }
+        if (JobReceiver.hasTransfer(packet)) {
+            int inputLength = JobReceiver.getTransferLength(packet);
+            if (inputLength <= 0 || !transfers.startReceiving(packet.getArg(PacketArgKey.JOB_ID), packet, inputLength)) {
+                Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job request from client #"
+                        + client.getId() + " - invalid input length\n", logsTextArea);
+            }
+            return;
+        }
+        enqueueJobRequested(job);
+    }
+
+    /**
+     * Add the packet to the input it is part of, and enqueue the input's job once the input is complete
+     */
+    private void receiveInputPacket(PacketDecoder packet) throws InterruptedException {
+        ReceivedTransfer transfer = transfers.onTransferPacket(packet, this::queuePacket);
+        if (transfer == null) {
+            return;
+        }
+        MasterJob job = JobReceiver.getJobFromTransfer(transfer, false);
+        if (job == null) {
+            Logging.consoleLogAndAppendToGUILogs("Error while receiving the input of job #" + packet.getArg(PacketArgKey.JOB_ID) + " from client #"
+                    + client.getId() + ". Some of the input's packets were invalid\n", logsTextArea);
+            return;
+        }
+        enqueueJobRequested(job);
+    }
+
+    /**
+     * Enqueue all the job requests held in a batch packet at once (see JobReceiver.getJobsFromBatchPacket)
+     */
+    private void receiveBatch(PacketDecoder packet) {
+        List<MasterJob> jobs = JobReceiver.getJobsFromBatchPacket(packet, false);
+        if (jobs == null) {
+            Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job requests from client #"
+                    + client.getId() + " - invalid batch packet\n", logsTextArea);
+            return;
+        }
+        for (MasterJob job : jobs) {
+            job.setClientId(client.getId());  // add the client for this job
+        }
+        masterModel.enqueueJobsRequested(jobs);
+        client.addJobsRequested(jobs);
+        Logging.consoleLogAndAppendToGUILogs("Received " + jobs.size() + " job requests from client #"
+                + client.getId() + "\n", logsTextArea);
+    }
+
+    private void enqueueJobRequested(MasterJob job) throws InterruptedException {
+        job.setClientId(client.getId());  // add the client for this job
+        masterModel.enqueueJobRequested(job);
+        client.addJobRequested(job);
+        Logging.consoleLogAndAppendToGUILogs("Received job request from client for job - " + job + "\n", logsTextArea);
+    }
+
+    @Override
+    protected void sendQueuedPackets() {
+        MasterJob jobToSend;
+        while ((jobToSend = client.pollCompletedJob()) != null) {
+            sendJob(jobToSend);
+            Logging.consoleLogAndAppendToGUILogs("Sent job result to client #" + client.getId() + ": [" + jobToSend + "]\n", logsTextArea);
+        }
+    }
+
+    /**
+     * Queue the job's packet, followed by the packets of its result, if it is too long for the job's packet
+     */
+    private void sendJob(MasterJob jobToSend) {
+        byte[] resultPayload = JobSender.getResultPayload(jobToSend, transfers.getMaxChunkLength());
+        PacketEncoder jobPacket = JobSender.getJobPacket(jobToSend, false, false, resultPayload);
+        MultiPacketEncoder resultPackets = JobSender.getTransferPackets(jobToSend, false, false, resultPayload, transfers, jobPacket);
+        sendPacket(jobPacket);
+        if (resultPackets != null) {
+            transfers.send(JobSender.getSentId(jobToSend, false), resultPackets, this::queuePacket);
+        }
+    }
+
+    @Override
+    protected void onClosed() {
+        if (client != null) {
+            client.setOnCompletedJobEnqueued(null);
+            masterModel.removeActiveClient(client);
+            Logging.consoleLogAndAppendToGUILogs("Disconnected from Client ID: '" + client.getId() + " - removed client from system'\n", logsTextArea);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Client #" + clientId;
+    }
+}
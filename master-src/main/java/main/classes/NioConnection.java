@@ -0,0 +1,226 @@
+package main.classes;
+
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameDecoder;
+import PacketCommunication.PacketFrameWriter;
+import PacketCommunication.enums.WireFormat;
+import javafx.scene.control.TextArea;
+import main.Logging;
+import main.MasterModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This abstract class handles a single client or slave connection in the NIO network mode. Instead of having input and
+ * output threads block on the connection's socket, the connection is registered with an event loop (see
+ * NioEventLoopTask), which calls this class when the connection's channel can be read from or written to.
+ * <ul>
+ *     <li>Input - bytes are collected as they arrive, and each packet is handed to <code>onPacket</code> once all of
+ *     its bytes have been read.</li>
+ *     <li>Output - other threads don't write to the channel themselves. Instead, they call
+ *     <code>scheduleSendQueuedPackets</code>, and the event loop then calls <code>sendQueuedPackets</code> on its own
+ *     thread. Packets that can't be written right away are kept until the channel can be written to again.</li>
+ * </ul>
+ * Other than <code>scheduleSendQueuedPackets</code>, all methods are only called on the event loop's thread, so the
+ * connection's state doesn't need to be synchronized.
+ */
+public abstract class NioConnection {
+    private final int INITIAL_READ_BUFFER_SIZE = 8 * 1024;
+    private final int MIN_READ_SIZE = 1024;
+
+    protected final SocketChannel channel;
+    protected final MasterModel masterModel;
+    protected final TextArea logsTextArea;
+    protected final MultiPacketTransfers transfers;  // the jobs' inputs and results sent and received in packets of their own
+    private final Executor eventLoop;
+    private final ArrayDeque<ByteBuffer> outputBuffers = new ArrayDeque<>();
+    private final AtomicBoolean sendScheduled = new AtomicBoolean(false);
+    private SelectionKey selectionKey;
+    private byte[] inputBuffer = new byte[INITIAL_READ_BUFFER_SIZE];
+    private int inputBufferLength = 0;
+    private WireFormat inputWireFormat = WireFormat.TEXT;
+    private WireFormat outputWireFormat = WireFormat.TEXT;
+    private boolean closed = false;
+
+    public NioConnection(SocketChannel channel, Executor eventLoop, MasterModel masterModel, TextArea logsTextArea) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.masterModel = masterModel;
+        this.logsTextArea = logsTextArea;
+        this.transfers = masterModel.newMultiPacketTransfers();
+    }
+
+    /**
+     * Called once the connection is registered with its event loop
+     */
+    protected abstract void onConnected();
+
+    /**
+     * Called for each packet received. The packet is <code>null</code> if it was malformed.
+     */
+    protected abstract void onPacket(PacketDecoder packet) throws InterruptedException;
+
+    /**
+     * Called on the event loop's thread after <code>scheduleSendQueuedPackets</code>, to send any packets waiting to
+     * be sent (using <code>sendPacket</code>)
+     */
+    protected abstract void sendQueuedPackets();
+
+    /**
+     * Called once the connection is closed
+     */
+    protected abstract void onClosed();
+
+    /**
+     * Register this connection's channel with the event loop's selector. Called on the event loop's thread.
+     */
+    public void register(Selector selector) throws IOException {
+        channel.configureBlocking(false);
+        selectionKey = channel.register(selector, SelectionKey.OP_READ, this);
+        onConnected();
+    }
+
+    /**
+     * Read whatever bytes are available, and handle every packet that is now complete
+     */
+    public void onReadable() throws IOException, InterruptedException {
+        if (inputBuffer.length - inputBufferLength < MIN_READ_SIZE) {
+            growInputBuffer(inputBufferLength + MIN_READ_SIZE);
+        }
+        int numRead = channel.read(ByteBuffer.wrap(inputBuffer, inputBufferLength, inputBuffer.length - inputBufferLength));
+        if (numRead == -1) {
+            close();
+            return;
+        }
+        inputBufferLength += numRead;
+
+        int offset = 0;
+        while (!closed && offset < inputBufferLength) {
+            // the wire format is checked for each packet, as a packet may switch the connection's format
+            int frameLength = PacketFrameDecoder.getFrameLength(inputBuffer, offset, inputBufferLength - offset, inputWireFormat);
+            if (frameLength == PacketFrameDecoder.INCOMPLETE) {
+                break;
+            }
+            PacketDecoder packet = PacketFrameDecoder.decode(inputBuffer, offset, frameLength, inputWireFormat);
+            offset += frameLength;
+            onPacket(packet);
+        }
+
+        // move any partial packet to the start of the buffer
+        System.arraycopy(inputBuffer, offset, inputBuffer, 0, inputBufferLength - offset);
+        inputBufferLength -= offset;
+
+        if (!closed && !outputBuffers.isEmpty()) {
+            onWritable();  // send any packets queued in response to the packets read (e.g., acknowledging a transfer)
+        }
+    }
+
+    /**
+     * Write as much of the waiting output as the channel will take
+     */
+    public void onWritable() throws IOException {
+        while (!outputBuffers.isEmpty()) {
+            ByteBuffer buffer = outputBuffers.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                // the socket's send buffer is full, wait until the channel is writable again
+                selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            outputBuffers.poll();
+        }
+        selectionKey.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Have the event loop call <code>sendQueuedPackets</code>. This can be called from any thread, and calls made
+     * before the event loop gets to it are combined.
+     */
+    public void scheduleSendQueuedPackets() {
+        if (sendScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(() -> {
+                sendScheduled.set(false);
+                if (closed) return;
+                sendQueuedPackets();
+                try {
+                    onWritable();
+                } catch (IOException e) {
+                    Logging.consoleLog("Error while sending to " + this + " - closing connection\n");
+                    close();
+                }
+            });
+        }
+    }
+
+    /**
+     * Queue a packet to be written in the connection's current output wire format
+     */
+    protected void sendPacket(PacketEncoder packet) {
+        outputBuffers.add(ByteBuffer.wrap(PacketFrameWriter.toBytes(packet, outputWireFormat)));
+    }
+
+    /**
+     * Queue a packet, as with <code>sendPacket</code>, where a packet writer is expected (see MultiPacketTransfers)
+     *
+     * @return always <code>true</code>, as the packet is only written once the channel can be written to
+     */
+    protected boolean queuePacket(PacketEncoder packet) {
+        sendPacket(packet);
+        return true;
+    }
+
+    /**
+     * Handle a packet reporting the packets missing from a transfer sent over this connection
+     */
+    protected void onMissingPacketsPacket(PacketDecoder packet) {
+        transfers.onMissingPacketsPacket(packet, this::queuePacket);
+    }
+
+    protected void setInputWireFormat(WireFormat wireFormat) {
+        this.inputWireFormat = wireFormat;
+    }
+
+    protected void setOutputWireFormat(WireFormat wireFormat) {
+        this.outputWireFormat = wireFormat;
+    }
+
+    /**
+     * Close the connection, if it isn't already closed
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        outputBuffers.clear();
+        onClosed();
+    }
+
+    protected String getRemoteAddress() {
+        return channel.socket().getInetAddress().getHostAddress();
+    }
+
+    protected int getRemotePort() {
+        return channel.socket().getPort();
+    }
+
+    private void growInputBuffer(int capacity) {
+        byte[] newBuffer = new byte[Math.max(capacity, inputBuffer.length * 2)];
+        System.arraycopy(inputBuffer, 0, newBuffer, 0, inputBufferLength);
+        inputBuffer = newBuffer;
+    }
+}
@@ -0,0 +1,230 @@
+package main.classes;
+
+import PacketCommunication.IPConnection;
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.MultiPacketTransfers.ReceivedTransfer;
+import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.enums.Compression;
+import PacketCommunication.enums.PacketArgKey;
+import PacketCommunication.enums.WireFormat;
+import javafx.scene.control.TextArea;
+import main.Logging;
+import main.MasterModel;
+import main.enums.DispatchMode;
+import main.enums.JobType;
+
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * This class handles the connection to a single Slave in the NIO network mode. The first packet received is the
+ * Slave's handshake, as with the SlaveConnectionHandlerTask, and the Slave is only added to the system once it is
+ * received. After that, this class does the work of both the SendJobRequestsToSlaveTask (sending the jobs delegated to
+ * the Slave) and the ReceiveJobResultsFromSlaveTask (enqueueing each job result received with the master).
+ * With work stealing enabled, once all of the Slave's own jobs are sent, jobs not yet sent are stolen from other, more
+ * loaded, slaves (see MasterModel.stealJobToRun). This is tried again each time the Slave completes a job.
+ * If the Slave granted credits, only as many jobs are sent as there are credits free (see Slave.tryAcquireCredit), and
+ * more are sent each time the Slave completes a job and returns its credit.
+ * In the PULL dispatch mode, the jobs sent are taken from the MasterModel's PendingJobPool as credits are free.
+ */
+public class NioSlaveConnection extends NioConnection {
+    private final int slaveId;
+    private Slave slave;
+
+    public NioSlaveConnection(SocketChannel channel, Executor eventLoop, MasterModel masterModel, TextArea logsTextArea, int slaveId) {
+        super(channel, eventLoop, masterModel, logsTextArea);
+        this.slaveId = slaveId;
+    }
+
+    @Override
+    protected void onConnected() {
+        // the slave is added to the system once its handshake packet is received
+    }
+
+    @Override
+    protected void onPacket(PacketDecoder packet) throws InterruptedException {
+        if (slave == null) {
+            receiveHandshake(packet);
+            return;
+        }
+
+        if (packet != null && MultiPacketTransfers.isMissingPacketsPacket(packet)) {
+            onMissingPacketsPacket(packet);
+            return;
+        }
+        if (packet != null && JobReceiver.isBatchPacket(packet)) {
+            receiveBatch(packet);
+            return;
+        }
+        MasterJob job = null;
+        if (packet != null && MultiPacketTransfers.isTransferPacket(packet)) {
+            ReceivedTransfer transfer = transfers.onTransferPacket(packet, this::queuePacket);
+            if (transfer == null) {
+                return;
+            }
+            job = JobReceiver.getJobFromTransfer(transfer, true);
+        } else if (packet != null && JobReceiver.packetContainsValidJob(packet)) {
+            if (JobReceiver.hasTransfer(packet)) {
+                startReceivingResult(packet);
+                return;
+            }
+            job = JobReceiver.getJobFromPacket(packet, true);
+        }
+        if (job == null) {
+            Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job from received packet\n", logsTextArea);
+            return;
+        }
+        onJobCompleted(job);
+        if (masterModel.isWorkStealingEnabled() || slave.isFlowControlled()) {
+            scheduleSendQueuedPackets();  // a credit was returned, and the slave's load is now lower, so it may be worth stealing a job for it
+        }
+    }
+
+    /**
+     * Handle each of the jobs held in a batch packet (see JobReceiver.getJobsFromBatchPacket)
+     */
+    private void receiveBatch(PacketDecoder packet) throws InterruptedException {
+        List<MasterJob> jobs = JobReceiver.getJobsFromBatchPacket(packet, true);
+        if (jobs == null) {
+            Logging.consoleLogAndAppendToGUILogs("Error while trying to receive jobs from received batch packet\n", logsTextArea);
+            return;
+        }
+        for (MasterJob job : jobs) {
+            onJobCompleted(job);
+        }
+        if (masterModel.isWorkStealingEnabled() || slave.isFlowControlled()) {
+            scheduleSendQueuedPackets();
+        }
+    }
+
+    private void onJobCompleted(MasterJob job) throws InterruptedException {
+        job.setSlaveId(slave.getId());
+        if (masterModel.enqueueJobCompleted(job)) {  // a duplicate result was already accounted for
+            slave.addJobCompleted(job);
+            masterModel.getJobScheduler().onJobCompleted(job, slave);
+        }
+    }
+
+    /**
+     * Start receiving the result sent in the packets that follow the job's packet (see MultiPacketTransfers)
+     */
+    private void startReceivingResult(PacketDecoder packet) {
+        int resultLength = JobReceiver.getTransferLength(packet);
+        if (resultLength <= 0 || !transfers.startReceiving(packet.getArg(PacketArgKey.JOB_ID), packet, resultLength)) {
+            Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job from received packet - invalid result length\n", logsTextArea);
+        }
+    }
+
+    /**
+     * Determine the slave type (what JobType it is optimized for), its parallelism, and the wire format and compression
+     * to use from the handshake packet, and add the Slave to the system. If the Slave asked for a wire format or a
+     * compression, the ones chosen are acknowledged (see SlaveConnectionHandlerTask).
+     */
+    private void receiveHandshake(PacketDecoder packet) {
+        JobType slaveOptimizedForType = null;
+        try {
+            if (packet != null && packet.containsArg(PacketArgKey.OPTIMIZED_FOR_JOB_TYPE)) {
+                slaveOptimizedForType = JobType.valueOf(packet.getArg(PacketArgKey.OPTIMIZED_FOR_JOB_TYPE));
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        if (slaveOptimizedForType == null) {
+            Logging.consoleLogAndAppendToGUILogs("Error connecting to slave - unable to determine JobType that slave is optimized for - slave not added to system\n", logsTextArea);
+            close();
+            return;
+        }
+
+        boolean requestedWireFormat = packet.containsArg(PacketArgKey.WIRE_FORMAT);
+        boolean requestedCompression = packet.containsArg(PacketArgKey.COMPRESSION);
+        if (requestedWireFormat || requestedCompression) {
+            WireFormat wireFormat = WireFormat.valueOfOrText(packet.getArg(PacketArgKey.WIRE_FORMAT));
+            PacketEncoder ackPacket = new PacketEncoder();
+            if (requestedWireFormat) {
+                setInputWireFormat(wireFormat);
+                ackPacket.setArg(PacketArgKey.WIRE_FORMAT, wireFormat.name());
+            }
+            if (requestedCompression) {
+                Compression compression = transfers.negotiateCompression(packet.getArg(PacketArgKey.COMPRESSION));
+                ackPacket.setArg(PacketArgKey.COMPRESSION, compression.name());
+                Logging.consoleLog("Using " + compression + " compression for the new slave\n");
+            }
+            sendPacket(ackPacket);
+            if (requestedWireFormat) {
+                setOutputWireFormat(wireFormat);
+                Logging.consoleLog("Using the " + wireFormat + " wire format for the new slave\n");
+            }
+        }
+
+        int parallelism = 1;  // slaves that don't send their parallelism execute one job at a time
+        try {
+            if (packet.containsArg(PacketArgKey.PARALLELISM)) {
+                parallelism = Math.max(1, packet.getIntArg(PacketArgKey.PARALLELISM));
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        int credits = 0;  // slaves that don't grant credits are sent jobs as soon as they are delegated
+        try {
+            if (packet.containsArg(PacketArgKey.CREDITS)) {
+                credits = Math.max(0, packet.getIntArg(PacketArgKey.CREDITS));
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        slave = new Slave(slaveId, new IPConnection(getRemoteAddress(), getRemotePort()), slaveOptimizedForType, parallelism,
+                masterModel.getCreditsForSlave(credits, parallelism));
+        slave.setOnJobToRunEnqueued(this::scheduleSendQueuedPackets);
+        masterModel.addActiveSlave(slave);
+        Logging.consoleLogAndAppendToGUILogs("Connected to new Slave at IP '" + getRemoteAddress() + "' - ID: '" + slave.getId() + "'\n", logsTextArea);
+        scheduleSendQueuedPackets();  // send the acknowledgement, if any
+    }
+
+    @Override
+    protected void sendQueuedPackets() {
+        while (slave.tryAcquireCredit()) {
+            MasterJob jobToSend = slave.pollJobToRun();
+            boolean stolen = false;
+            if (jobToSend == null && masterModel.getDispatchMode() == DispatchMode.PULL) {
+                jobToSend = masterModel.pollPendingJob(slave);
+            } else if (jobToSend == null && masterModel.isWorkStealingEnabled()) {
+                jobToSend = masterModel.stealJobToRun(slave);
+                stolen = true;
+            }
+            if (jobToSend == null) {
+                slave.releaseCredit();
+                break;
+            }
+            slave.setJobSent(jobToSend);
+            sendJob(jobToSend);
+            Logging.consoleLogAndAppendToGUILogs("Sent " + (stolen ? "stolen " : "") + "job request to slave #" + slave.getId() + ": [" + jobToSend + "]\n", logsTextArea);
+        }
+    }
+
+    /**
+     * Queue the job's packet, followed by the packets of its input, if any
+     */
+    private void sendJob(MasterJob jobToSend) {
+        PacketEncoder jobPacket = JobSender.getJobPacket(jobToSend, true, true, null);
+        MultiPacketEncoder inputPackets = JobSender.getTransferPackets(jobToSend, true, true, null, transfers, jobPacket);
+        sendPacket(jobPacket);
+        if (inputPackets != null) {
+            transfers.send(JobSender.getSentId(jobToSend, true), inputPackets, this::queuePacket);
+        }
+    }
+
+    @Override
+    protected void onClosed() {
+        if (slave != null) {
+            slave.setOnJobToRunEnqueued(null);
+            masterModel.removeActiveSlave(slave);
+            Logging.consoleLogAndAppendToGUILogs("Disconnected from Slave ID: '" + slave.getId() + " - slave removed from system'\n", logsTextArea);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Slave #" + slaveId;
+    }
+}
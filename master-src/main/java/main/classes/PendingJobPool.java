@@ -0,0 +1,126 @@
+package main.classes;
+
+import main.enums.JobType;
+import main.scheduling.SlaveState;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class holds the jobs waiting to be pulled by a slave, in the PULL dispatch mode (see DispatchMode). The jobs are
+ * kept in a FIFO queue per JobType, and a slave that is ready for another job takes the oldest job of the JobType it
+ * would complete soonest - usually the type it is optimized for, so a job of the other type is only taken once there
+ * are no jobs that suit the slave better.
+ * <ul>
+ *     <li>Adding a job - O(1)</li>
+ *     <li>Taking a job for a slave - O(number of JobTypes)</li>
+ * </ul>
+ */
+public class PendingJobPool {
+    private final EnumMap<JobType, ArrayDeque<MasterJob>> jobsByType = new EnumMap<>(JobType.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int numJobs = 0;  // guarded by lock
+
+    public PendingJobPool() {
+        for (JobType jobType : JobType.values()) {
+            jobsByType.put(jobType, new ArrayDeque<>());
+        }
+    }
+
+    public void add(MasterJob job) {
+        lock.lock();
+        try {
+            jobsByType.get(job.getJobType()).addLast(job);
+            numJobs++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add a batch of jobs, taking the lock once for the whole batch
+     */
+    public void addAll(Collection<MasterJob> jobs) {
+        lock.lock();
+        try {
+            for (MasterJob job : jobs) {
+                jobsByType.get(job.getJobType()).addLast(job);
+            }
+            numJobs += jobs.size();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the job best suited to the given slave, without waiting
+     * @return the job, or <code>null</code> if there are no jobs pending
+     */
+    public MasterJob poll(SlaveState slave) {
+        lock.lock();
+        try {
+            return removeBestJob(slave);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the job best suited to the given slave, waiting for one to be added if there are no jobs pending
+     */
+    public MasterJob take(SlaveState slave) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (numJobs == 0) {
+                notEmpty.await();
+            }
+            return removeBestJob(slave);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of jobs pending
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return numJobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest job of the JobType the slave would complete soonest (preferring the type the slave is
+     * optimized for on a tie). Must be called with the lock held.
+     */
+    private MasterJob removeBestJob(SlaveState slave) {
+        ArrayDeque<MasterJob> bestJobs = null;
+        int bestProcessTime = Integer.MAX_VALUE;
+        for (JobType jobType : JobType.values()) {
+            ArrayDeque<MasterJob> jobs = jobsByType.get(jobType);
+            if (jobs.isEmpty()) {
+                continue;
+            }
+            int processTime = slave.getJobProcessTime(jobs.peekFirst());
+            if (processTime < bestProcessTime
+                    || (processTime == bestProcessTime && jobType == slave.getSlaveOptimizedForType())) {
+                bestJobs = jobs;
+                bestProcessTime = processTime;
+            }
+        }
+        if (bestJobs == null) {
+            return null;
+        }
+        numJobs--;
+        return bestJobs.pollFirst();
+    }
+}
@@ -3,10 +3,18 @@ package main.classes;
 
 import PacketCommunication.IPConnection;
 import main.enums.JobType;
+import main.scheduling.SlaveState;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Each Slave's info is stored in an instance of their Slave class. The instance is shared with any threads that
@@ -14,41 +22,91 @@ import java.util.concurrent.LinkedBlockingQueue;
  * This class keeps a live queue of the jobs waiting to be sent to the Slave for execution.
  * The Jobs are enqueued by the DelegateJobsTask after being requested by a client.
  * The jobs are dequeued by the SendJobRequestsToSlaveTask to be sent to the Slave for execution.
+ * With work stealing, jobs not yet sent may instead be taken from the back of the queue by another, less loaded, slave
+ * (see MasterModel.stealJobToRun).
+ * If the Slave granted credits in its handshake, only that many jobs are sent to it at a time (see acquireCredit), and
+ * the rest wait in the queue, where they can still be stolen.
  */
-public class Slave {
-    private static int lastUsedId = -1;
-    private static final Object lastUsedIdLock = new Object();
+public class Slave implements SlaveState {
+    private static final AtomicInteger lastUsedId = new AtomicInteger(-1);
     private final int id;
     private final IPConnection ipConnection;  // the details of the connection to this slave
     private final JobType slaveOptimizedForType;
+    private final int parallelism;  // the number of jobs the slave executes at once
 
     /**
-     * Stores how long it takes for this slave to process a job of a given type. The process times for each job type will
-     * be determined based on the job type this slave is optimized for when this slave is constructed.
+     * The number of jobs the Slave is willing to hold at once, running or waiting in its own queue, as granted in its
+     * handshake (0 if it didn't grant any, in which case jobs are sent as soon as they are enqueued). Each job sent
+     * takes up a credit, which is returned once the job's result is received (see addJobCompleted).
+     */
+    private final int numCredits;
+    private final Semaphore credits;  // null if the slave didn't grant any credits
+
+    /**
+     * Stores how long it takes for this slave to process a job of a given type, in milliseconds. The process times for
+     * each job type start out based on the job type this slave is optimized for when this slave is constructed, and
+     * are then estimated from the process times observed as the slave completes jobs (see addJobCompleted).
      */
     private final ConcurrentHashMap<JobType, Integer> jobProcessTimes = new ConcurrentHashMap<>();
-    private final int PROCESS_TIME_OPTIMIZED_JOB = 2;  // in seconds
-    private final int PROCESS_TIME_UNOPTIMIZED_JOB = 10;
+    private final int PROCESS_TIME_OPTIMIZED_JOB = 2000;  // in milliseconds, until measured
+    private final int PROCESS_TIME_UNOPTIMIZED_JOB = 10000;
+    private static final double PROCESS_TIME_SMOOTHING_FACTOR = 0.2;  // the weight of each observed process time in the estimate
+    private static final int MAX_JOBS_SCANNED_TO_STEAL = 32;  // how far from the back of the queue to look for a job of the stealing slave's optimized type
 
     /**
-     * This Slave's assigned jobs waiting to be sent to the Slave for execution.
+     * This Slave's assigned jobs waiting to be sent to the Slave for execution. Jobs are sent from the front, and
+     * stolen from the back.
      */
-    private final LinkedBlockingQueue<MasterJob> jobsToRun = new LinkedBlockingQueue<>();
+    private final LinkedBlockingDeque<MasterJob> jobsToRun = new LinkedBlockingDeque<>();
+
+    /**
+     * If set, this is run each time a job is enqueued to run, or jobs are added to the PendingJobPool. This is used by
+     * connections that don't have a thread waiting on the jobsToRun queue (see NioSlaveConnection), to know when there
+     * is a job to send.
+     */
+    private volatile Runnable onJobToRunEnqueued;
+
+    /**
+     * All jobs currently requested and not completed from this Slave, mapped by their internal id so that a job can
+     * be removed in constant time once completed
+     * */
+    private final ConcurrentHashMap<Long, JobInProgress> jobsInProgress = new ConcurrentHashMap<>();
 
     /**
-     * All jobs currently requested and not completed from this Slave
+     * The number of jobs in progress of each JobType (by ordinal). This is updated as jobs are requested and completed,
+     * so that the load can be calculated without going through the jobs.
      * */
-    private final ArrayList<MasterJob> allJobsRequested = new ArrayList<>();
+    private final AtomicIntegerArray numJobsInProgressByType = new AtomicIntegerArray(JobType.values().length);
 
     /**
-     * All jobs already completed by this Slave
+     * When the last <code>parallelism</code> job results were received from this slave, oldest first once wrapped
+     * around (see addJobCompleted). Guarded by itself.
      * */
-    private final ArrayList<MasterJob> allJobsCompleted = new ArrayList<>();
+    private final long[] recentJobsCompletedNanos;
+    private int nextJobCompletedIndex = 0;
+    private final AtomicInteger numJobsCompleted = new AtomicInteger(0);
+
+    /**
+     * If set, this is run each time this slave's total load changes (see SlaveLoadIndex)
+     */
+    private volatile Runnable onLoadChanged;
 
     public Slave(int id, IPConnection connection, JobType slaveOptimizedForType) {
+        this(id, connection, slaveOptimizedForType, 1);
+    }
+
+    public Slave(int id, IPConnection connection, JobType slaveOptimizedForType, int parallelism) {
+        this(id, connection, slaveOptimizedForType, parallelism, 0);
+    }
+
+    public Slave(int id, IPConnection connection, JobType slaveOptimizedForType, int parallelism, int numCredits) {
         this.id = id;
         this.ipConnection = connection;
         this.slaveOptimizedForType = slaveOptimizedForType;
+        this.parallelism = Math.max(1, parallelism);
+        this.numCredits = Math.max(0, numCredits);
+        this.credits = this.numCredits > 0 ? new Semaphore(this.numCredits) : null;
+        this.recentJobsCompletedNanos = new long[this.parallelism];
         for (JobType jobType : JobType.values()) {
             this.jobProcessTimes.put(jobType, slaveOptimizedForType == jobType ? PROCESS_TIME_OPTIMIZED_JOB : PROCESS_TIME_UNOPTIMIZED_JOB);
         }
@@ -58,9 +116,7 @@ public class Slave {
      * @return the next available slave id
      */
     public static int getNextAvailableSlaveId() {
-        synchronized (lastUsedIdLock) {
-            return ++lastUsedId;
-        }
+        return lastUsedId.incrementAndGet();
     }
 
     public int getId() {
@@ -71,14 +127,93 @@ public class Slave {
         return slaveOptimizedForType;
     }
 
+    /**
+     * @return the number of jobs the slave executes at once
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the number of jobs sent to the Slave at most at once, or 0 if there is no limit
+     */
+    public int getNumCredits() {
+        return numCredits;
+    }
+
+    /**
+     * @return <code>true</code> if the Slave granted credits, i.e., jobs are only sent to it as credits are returned
+     */
+    public boolean isFlowControlled() {
+        return credits != null;
+    }
+
+    /**
+     * Take up a credit to send a job to the Slave, waiting for one to be returned if they are all taken up. Returns
+     * right away if the Slave didn't grant any credits.
+     */
+    public void acquireCredit() throws InterruptedException {
+        if (credits != null) {
+            credits.acquire();
+        }
+    }
+
+    /**
+     * Take up a credit to send a job to the Slave, without waiting
+     * @return <code>true</code> if a credit was taken up (or the Slave didn't grant any), else <code>false</code>
+     */
+    public boolean tryAcquireCredit() {
+        return credits == null || credits.tryAcquire();
+    }
+
+    /**
+     * Return a credit that was taken up without sending a job (e.g., because there was no job to send)
+     */
+    public void releaseCredit() {
+        if (credits != null) {
+            credits.release();
+        }
+    }
+
     /**
      * Enqueue a requested job to be executed by the Slave.
      * @param jobRequested the requested job
      */
     public void enqueueJobToRun(MasterJob jobRequested) throws InterruptedException {
-        jobsToRun.put(new MasterJob(jobRequested));  // synchronization not needed here because the queue is thread-safe
-        synchronized (allJobsRequested) {
-            allJobsRequested.add(new MasterJob(jobRequested));
+        // the job is added to the jobs in progress before it is enqueued, so that it is always there if the job is
+        // sent and completed right away
+        if (addJobInProgress(jobRequested)) {
+            notifyLoadChanged();
+        }
+        jobsToRun.put(jobRequested);  // synchronization not needed here because the queue is thread-safe
+        notifyJobsToRunAvailable();
+    }
+
+    /**
+     * Enqueue a batch of requested jobs to be executed by the Slave. The jobs are added to the load, and the queue,
+     * together, so the load only changes once for the whole batch.
+     * @param jobsRequested the requested jobs
+     */
+    public void enqueueJobsToRun(List<MasterJob> jobsRequested) {
+        boolean loadChanged = false;
+        for (MasterJob jobRequested : jobsRequested) {
+            loadChanged |= addJobInProgress(jobRequested);
+        }
+        if (loadChanged) {
+            notifyLoadChanged();
+        }
+        jobsToRun.addAll(jobsRequested);  // the queue is unbounded, so this doesn't block
+        notifyJobsToRunAvailable();
+    }
+
+    /**
+     * Let the connection know there may be jobs for it to send - either enqueued with this slave, or waiting in the
+     * PendingJobPool (see setOnJobToRunEnqueued)
+     */
+    public void notifyJobsToRunAvailable() {
+        Runnable listener = onJobToRunEnqueued;
+        if (listener != null) {
+            listener.run();
         }
     }
 
@@ -90,63 +225,241 @@ public class Slave {
         return jobsToRun.take();
     }
 
+    /**
+     * Deque a requested job to be sent to the Slave for execution, without waiting.
+     * @return the job, or <code>null</code> if there are no jobs waiting to be sent
+     */
+    public MasterJob pollJobToRun() {
+        return jobsToRun.poll();
+    }
+
+    /**
+     * Deque a requested job to be sent to the Slave for execution, waiting up to the given time for one to be enqueued.
+     * @return the job, or <code>null</code> if no job was enqueued in time
+     */
+    public MasterJob pollJobToRun(long timeout, TimeUnit unit) throws InterruptedException {
+        return jobsToRun.poll(timeout, unit);
+    }
+
+    /**
+     * @return the number of jobs waiting to be sent to the Slave
+     */
+    public int getNumJobsToRun() {
+        return jobsToRun.size();
+    }
+
+    /**
+     * Remove a job that was not yet sent from the back of this slave's queue, so that the given slave can run it
+     * instead. A job of the JobType the given slave is optimized for is preferred. The job is only given up if the
+     * given slave would complete it sooner than this slave would, considering both slaves' loads.
+     * The job is removed from this slave's jobs in progress; the stealing slave should add it to its own (see
+     * addJobTaken).
+     *
+     * @return the job, or <code>null</code> if there is no job worth stealing
+     */
+    public MasterJob stealJobToRun(Slave thief) {
+        MasterJob jobToSteal = null;
+        Iterator<MasterJob> jobs = jobsToRun.descendingIterator();
+        for (int i = 0; i < MAX_JOBS_SCANNED_TO_STEAL && jobs.hasNext(); i++) {
+            MasterJob job = jobs.next();
+            if (jobToSteal == null || job.getJobType() == thief.getSlaveOptimizedForType()) {
+                jobToSteal = job;
+            }
+            if (job.getJobType() == thief.getSlaveOptimizedForType()) {
+                break;
+            }
+        }
+        if (jobToSteal == null || thief.getTotalLoad() + thief.getJobProcessTime(jobToSteal) >= getTotalLoad()) {
+            return null;
+        }
+        if (!jobsToRun.removeLastOccurrence(jobToSteal)) {
+            return null;  // the job was sent, or stolen, in the meantime
+        }
+        if (removeJobInProgress(jobToSteal) != null) {
+            notifyLoadChanged();
+        }
+        return jobToSteal;
+    }
+
+    /**
+     * Add a job taken for this slave from elsewhere - stolen from another slave (see stealJobToRun), or pulled from the
+     * PendingJobPool - to this slave's jobs in progress. The job is not enqueued - the caller is expected to send it to
+     * the Slave itself.
+     */
+    public void addJobTaken(MasterJob job) {
+        if (addJobInProgress(job)) {
+            notifyLoadChanged();
+        }
+    }
+
+    /**
+     * Record that the given job is being sent to the Slave now, so that its process time can be measured once it is
+     * completed (see addJobCompleted)
+     */
+    public void setJobSent(MasterJob job) {
+        JobInProgress jobInProgress = jobsInProgress.get(job.getInternalId());
+        if (jobInProgress != null) {
+            jobInProgress.sentNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Record that sending the given job to the Slave failed, returning the credit it took up, since the job will never
+     * be completed by the Slave (see setJobSent)
+     */
+    public void setJobSendFailed(MasterJob job) {
+        JobInProgress jobInProgress = jobsInProgress.get(job.getInternalId());
+        if (jobInProgress != null) {
+            jobInProgress.sentNanos = 0;
+        }
+        releaseCredit();
+    }
+
+    /**
+     * @return <code>true</code> if the job was added, or <code>false</code> if it was already in progress
+     */
+    private boolean addJobInProgress(MasterJob job) {
+        if (jobsInProgress.putIfAbsent(job.getInternalId(), new JobInProgress(job.getJobType())) == null) {
+            numJobsInProgressByType.incrementAndGet(job.getJobType().ordinal());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the job removed, or <code>null</code> if it wasn't in progress
+     */
+    private JobInProgress removeJobInProgress(MasterJob job) {
+        JobInProgress jobInProgress = jobsInProgress.remove(job.getInternalId());
+        if (jobInProgress != null) {
+            numJobsInProgressByType.decrementAndGet(jobInProgress.jobType.ordinal());
+        }
+        return jobInProgress;
+    }
+
+    public void setOnJobToRunEnqueued(Runnable onJobToRunEnqueued) {
+        this.onJobToRunEnqueued = onJobToRunEnqueued;
+    }
+
+    public void setOnLoadChanged(Runnable onLoadChanged) {
+        this.onLoadChanged = onLoadChanged;
+    }
+
+    private void notifyLoadChanged() {
+        Runnable listener = onLoadChanged;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
     /**
      * Add a job that was completed by this slave
-     * Since the job is now completed, it is no longer being requested, so we remove it from the allJobsRequested list
-     * so that the system load can be calculated correctly
+     * Since the job is now completed, it is no longer in progress, so we remove it from the jobsInProgress map, which
+     * removes its process time from the total load.
+     * The time the job took is used to update the process time estimate for its JobType. The slave runs
+     * <code>parallelism</code> jobs at a time, in the order they were sent, so a job only starts once it is sent and
+     * one of the jobs running before it is completed - i.e., the job completed <code>parallelism</code> completions
+     * ago. Until then, the job was only waiting in the slave's queue, so the job's process time is measured from the
+     * later of the two.
+     * The credit the job took up when it was sent is returned, so that another job can be sent in its place.
      */
     public void addJobCompleted(MasterJob job) {
-        MasterJob jobCopy = new MasterJob(job);
-        synchronized (allJobsCompleted) {
-            allJobsCompleted.add(jobCopy);
+        JobInProgress jobInProgress = removeJobInProgress(job);
+        long completedNanos = System.nanoTime();
+        long startedNanos;
+        synchronized (recentJobsCompletedNanos) {
+            startedNanos = recentJobsCompletedNanos[nextJobCompletedIndex];
+            recentJobsCompletedNanos[nextJobCompletedIndex] = completedNanos;
+            nextJobCompletedIndex = (nextJobCompletedIndex + 1) % parallelism;
         }
-        synchronized (allJobsRequested) {
-            allJobsRequested.remove(jobCopy);
+        if (jobInProgress != null) {
+            if (jobInProgress.sentNanos != 0) {
+                startedNanos = Math.max(jobInProgress.sentNanos, startedNanos);
+                updateJobProcessTime(jobInProgress.jobType, TimeUnit.NANOSECONDS.toMillis(completedNanos - startedNanos));
+                releaseCredit();  // only jobs that were sent took up a credit
+            }
+            notifyLoadChanged();
         }
+        numJobsCompleted.incrementAndGet();
+    }
+
+    /**
+     * Update the process time estimate for the given JobType with an observed process time. The estimate is an
+     * exponentially weighted moving average, so it follows changes in the slave's speed while smoothing out the noise
+     * of single jobs.
+     */
+    private void updateJobProcessTime(JobType jobType, long observedProcessTime) {
+        jobProcessTimes.compute(jobType, (type, estimate) ->
+                (int) Math.max(1, Math.round(estimate + PROCESS_TIME_SMOOTHING_FACTOR * (observedProcessTime - estimate))));
     }
 
     /**
      * @return the number of jobs completed by this Slave
      */
     public int getNumJobsCompleted() {
-        synchronized (allJobsCompleted) {
-            return allJobsCompleted.size();
-        }
+        return numJobsCompleted.get();
+    }
+
+    /**
+     * @return the internal ids of the jobs requested from this Slave and not yet completed
+     */
+    public Set<Long> getJobsInProgressIds() {
+        return Collections.unmodifiableSet(jobsInProgress.keySet());
     }
 
     /**
      * @return the number of jobs requested from this Slave
      */
     public int getNumJobsRequested() {
-        synchronized (allJobsRequested) {
-            return allJobsRequested.size();
-        }
+        return jobsInProgress.size();
     }
 
     /**
      * @return the time it takes for this slave to complete the given job (based on what JobType this slave is optimized for)
      */
     public int getJobProcessTime(MasterJob job) {
-        return jobProcessTimes.get(job.getJobType());
+        return getJobProcessTime(job.getJobType());
+    }
+
+    /**
+     * @return the time it takes for this slave to complete a job of the given JobType
+     */
+    public int getJobProcessTime(JobType jobType) {
+        return jobProcessTimes.get(jobType);
     }
 
     /**
-     * Returns the current total system load on this slave, based on the number of requested (and not returned) jobs,
-     * their job types, and what job type this slave is optimized for.
+     * Returns the current total system load on this slave (in milliseconds), based on the number of requested (and not
+     * returned) jobs, their job types, and the estimated process time of each job type on this slave. As the slave
+     * executes <code>parallelism</code> jobs at once, the load is the time until all the jobs are completed, i.e., the
+     * total process time divided by the parallelism.
+     * The number of jobs of each type is kept up to date as jobs are requested and completed, so this doesn't lock or
+     * iterate over the jobs.
      */
     public int getTotalLoad() {
-        int load = 0;
-        synchronized (allJobsRequested) {
-            for (MasterJob job : allJobsRequested) {
-                load += jobProcessTimes.get(job.getJobType());
-            }
+        int totalProcessTime = 0;
+        for (JobType jobType : JobType.values()) {
+            totalProcessTime += numJobsInProgressByType.get(jobType.ordinal()) * jobProcessTimes.get(jobType);
         }
-        return load;
+        return totalProcessTime / parallelism;
     }
 
     @Override
     public String toString() {
-        return "Slave #" + getId() + " [Type " + slaveOptimizedForType + "] - (" + getNumJobsCompleted() + " / " + getNumJobsRequested() + ")";
+        return "Slave #" + getId() + " [Type " + slaveOptimizedForType + (parallelism > 1 ? " x" + parallelism : "") + "] - (" + getNumJobsCompleted() + " / " + getNumJobsRequested() + ")";
+    }
+
+    /**
+     * The JobType of a job in progress, and when it was sent to the Slave (0 if it wasn't sent yet). The job itself
+     * isn't kept, so that its input and result can be freed as soon as the job is sent and returned.
+     */
+    private static class JobInProgress {
+        private final JobType jobType;
+        private volatile long sentNanos = 0;
+
+        JobInProgress(JobType jobType) {
+            this.jobType = jobType;
+        }
     }
 
     // Slave objects are equal if they have the same id as the id is their unique identifier
@@ -160,6 +473,6 @@ public class Slave {
 
     @Override
     public int hashCode() {
-        return String.valueOf(id).hashCode();
+        return Integer.hashCode(id);
     }
 }
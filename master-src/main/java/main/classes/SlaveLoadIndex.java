@@ -0,0 +1,190 @@
+package main.classes;
+
+import main.enums.JobType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class keeps the connected slaves ordered by when each would complete a job of each JobType, so that the best
+ * slave for a job can be found without going through all the slaves.
+ * Each slave estimates its own process times, and has its own parallelism, so two slaves with the same load may still
+ * complete a given job at different times. There is therefore a min-heap for each JobType of job, holding all the
+ * slaves keyed by their total load plus their process time for that JobType. The best slave for a job is then always at
+ * the top of the heap for the job's JobType.
+ * Each slave notifies the index whenever its load or process time estimates change, and its position in each heap is
+ * updated.
+ * <ul>
+ *     <li>Finding the best slave for a job - O(1)</li>
+ *     <li>Adding or removing a slave, or updating a slave's load - O(number of JobTypes * log n)</li>
+ * </ul>
+ */
+public class SlaveLoadIndex {
+    private final EnumMap<JobType, SlaveHeap> heapsByJobType = new EnumMap<>(JobType.class);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SlaveLoadIndex() {
+        for (JobType jobType : JobType.values()) {
+            heapsByJobType.put(jobType, new SlaveHeap(jobType));
+        }
+    }
+
+    /**
+     * Add a slave to the index. The slave's load is tracked from then on, until it is removed.
+     */
+    public void addSlave(Slave slave) {
+        lock.lock();
+        try {
+            for (SlaveHeap heap : heapsByJobType.values()) {
+                heap.add(slave);
+            }
+        } finally {
+            lock.unlock();
+        }
+        slave.setOnLoadChanged(() -> onLoadChanged(slave));
+        onLoadChanged(slave);  // in case the load changed before the listener was set
+    }
+
+    public void removeSlave(Slave slave) {
+        slave.setOnLoadChanged(null);
+        lock.lock();
+        try {
+            for (SlaveHeap heap : heapsByJobType.values()) {
+                heap.remove(slave);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the slave that would complete the given job soonest - the one with the lowest total load plus process time
+     * for the job - or <code>null</code> if there are no slaves
+     */
+    public Slave getBestSlaveForJob(MasterJob job) {
+        lock.lock();
+        try {
+            return heapsByJobType.get(job.getJobType()).peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onLoadChanged(Slave slave) {
+        lock.lock();
+        try {
+            for (SlaveHeap heap : heapsByJobType.values()) {
+                heap.update(slave);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A binary min-heap of slaves, keyed by when each slave would complete a job of the heap's JobType, as of the
+     * slave's last update. The position of each slave is kept so that a slave can be found, and so moved or removed,
+     * in constant time.
+     */
+    private static class SlaveHeap {
+        private final JobType jobType;
+        private final ArrayList<Slave> slaves = new ArrayList<>();
+        private final ArrayList<Integer> completionTimes = new ArrayList<>();
+        private final HashMap<Slave, Integer> positions = new HashMap<>();
+
+        SlaveHeap(JobType jobType) {
+            this.jobType = jobType;
+        }
+
+        Slave peek() {
+            return slaves.isEmpty() ? null : slaves.get(0);
+        }
+
+        void add(Slave slave) {
+            if (positions.containsKey(slave)) return;
+            slaves.add(slave);
+            completionTimes.add(getCompletionTime(slave));
+            positions.put(slave, slaves.size() - 1);
+            siftUp(slaves.size() - 1);
+        }
+
+        void remove(Slave slave) {
+            Integer position = positions.remove(slave);
+            if (position == null) return;
+            int last = slaves.size() - 1;
+            if (position != last) {
+                move(last, position);
+            }
+            slaves.remove(last);
+            completionTimes.remove(last);
+            if (position != last) {
+                siftDown(siftUp(position));
+            }
+        }
+
+        /**
+         * Move the slave to its correct position for its current load and process time estimate
+         */
+        void update(Slave slave) {
+            Integer position = positions.get(slave);
+            if (position == null) return;  // the slave was already removed
+            completionTimes.set(position, getCompletionTime(slave));
+            siftDown(siftUp(position));
+        }
+
+        /**
+         * @return the time until the slave would complete a job of this heap's JobType, if the job were added to it now
+         */
+        private int getCompletionTime(Slave slave) {
+            return slave.getTotalLoad() + slave.getJobProcessTime(jobType);
+        }
+
+        /**
+         * @return the slave's new position
+         */
+        private int siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (completionTimes.get(parent) <= completionTimes.get(position)) break;
+                swap(parent, position);
+                position = parent;
+            }
+            return position;
+        }
+
+        private void siftDown(int position) {
+            int size = slaves.size();
+            while (true) {
+                int smallest = position;
+                int left = 2 * position + 1;
+                int right = left + 1;
+                if (left < size && completionTimes.get(left) < completionTimes.get(smallest)) smallest = left;
+                if (right < size && completionTimes.get(right) < completionTimes.get(smallest)) smallest = right;
+                if (smallest == position) return;
+                swap(smallest, position);
+                position = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Slave slave = slaves.get(i);
+            int completionTime = completionTimes.get(i);
+            move(j, i);
+            slaves.set(j, slave);
+            completionTimes.set(j, completionTime);
+            positions.put(slave, j);
+        }
+
+        /**
+         * Copy the slave at position <code>from</code> to position <code>to</code>
+         */
+        private void move(int from, int to) {
+            Slave slave = slaves.get(from);
+            slaves.set(to, slave);
+            completionTimes.set(to, completionTimes.get(from));
+            positions.put(slave, to);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package main.enums;
+
+/**
+ * enum representing when each job is bound to the slave that runs it
+ * <ul>
+ *     <li>PUSH - as soon as the job is requested, the DelegateJobsTask assigns it to a slave (see JobScheduler), and
+ *     it is queued with that slave until it is sent</li>
+ *     <li>PULL - the job waits in the master's PendingJobPool until a slave has a free credit (i.e., is ready for
+ *     another job), and is only then bound to that slave. The slave gets the pending job it would complete soonest,
+ *     which is usually one of the JobType it is optimized for.</li>
+ * </ul>
+ * */
+public enum DispatchMode {
+    PUSH,
+    PULL
+}
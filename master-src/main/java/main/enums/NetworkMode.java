@@ -0,0 +1,17 @@
+package main.enums;
+
+/**
+ * enum representing how the Master handles its client and slave connections
+ * <ul>
+ *     <li>THREADED - each connection has its own input and output threads, which block on the connection's socket</li>
+ *     <li>VIRTUAL_THREADED - as with THREADED, but the connections' threads are virtual threads (when supported by the
+ *     JVM, see ConnectionThreadFactory)</li>
+ *     <li>NIO - all connections are handled by a small, fixed number of event loop threads using non-blocking
+ *     channels</li>
+ * </ul>
+ * */
+public enum NetworkMode {
+    THREADED,
+    VIRTUAL_THREADED,
+    NIO
+}
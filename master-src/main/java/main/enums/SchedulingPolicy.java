@@ -0,0 +1,16 @@
+package main.enums;
+
+/**
+ * enum representing the built-in JobSchedulers, which choose the slave to assign each job to
+ * <ul>
+ *     <li>LOWEST_LOAD (LowestLoadScheduler) - the slave that would have the lowest total load once the job is added to it (see
+ *     SlaveLoadIndex)</li>
+ *     <li>POWER_OF_CHOICES (PowerOfChoicesScheduler) - a few slaves are picked at random, and the one of those that would have the lowest total
+ *     load once the job is added to it is chosen. This doesn't always find the best slave, but keeps the load close to
+ *     balanced at a constant cost per job, regardless of the number of slaves.</li>
+ * </ul>
+ * */
+public enum SchedulingPolicy {
+    LOWEST_LOAD,
+    POWER_OF_CHOICES
+}
@@ -0,0 +1,22 @@
+package main.scheduling;
+
+import main.classes.MasterJob;
+
+import java.util.List;
+
+/**
+ * A read-only view of all the slaves connected to the master, as seen by a JobScheduler
+ */
+public interface ClusterView {
+    /**
+     * @return all connected slaves. The list can be accessed by index in constant time.
+     */
+    List<SlaveState> getSlaves();
+
+    /**
+     * @return the slave that would complete the given job soonest - the one with the lowest total load plus process time
+     * for the job - or <code>null</code> if there are no slaves. The master keeps the slaves ordered by this for each
+     * JobType, so this doesn't go through all slaves.
+     */
+    SlaveState getLowestLoadSlaveForJob(MasterJob job);
+}
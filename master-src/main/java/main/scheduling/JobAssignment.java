@@ -0,0 +1,28 @@
+package main.scheduling;
+
+import main.classes.MasterJob;
+
+/**
+ * A job, and the slave it was assigned to by a JobScheduler
+ */
+public class JobAssignment {
+    private final MasterJob job;
+    private final SlaveState slave;
+
+    public JobAssignment(MasterJob job, SlaveState slave) {
+        this.job = job;
+        this.slave = slave;
+    }
+
+    public MasterJob getJob() {
+        return job;
+    }
+
+    /**
+     * @return the slave the job was assigned to, or <code>null</code> if it couldn't be assigned (i.e., there are no
+     * slaves)
+     */
+    public SlaveState getSlave() {
+        return slave;
+    }
+}
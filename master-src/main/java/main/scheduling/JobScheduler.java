@@ -0,0 +1,44 @@
+package main.scheduling;
+
+import main.classes.MasterJob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JobScheduler decides which slave each job requested from the master is assigned to (load balancing).
+ * The scheduler is chosen at master startup (see MasterSettings) - either one of the built-in schedulers (see
+ * SchedulingPolicy), or any class implementing this interface, given by its fully qualified name. Such a class must be
+ * public and have a public no-argument constructor.
+ * <p>
+ * Jobs are assigned by a single thread, but <code>onJobCompleted</code> is called from the threads receiving job
+ * results from the slaves, so any state shared between the two must be thread-safe.
+ * </p>
+ */
+public interface JobScheduler {
+    /**
+     * @return the slave to assign the given job to, or <code>null</code> if there are no slaves
+     */
+    SlaveState assign(MasterJob job, ClusterView cluster);
+
+    /**
+     * Assign a batch of jobs at once. The jobs are only added to their slaves once the whole batch is assigned, so the
+     * slaves' loads don't include the jobs of this batch - schedulers that assign batches should account for that.
+     * By default, each job is assigned on its own.
+     *
+     * @return an assignment for each job, in any order
+     */
+    default List<JobAssignment> assignAll(List<MasterJob> jobs, ClusterView cluster) {
+        List<JobAssignment> assignments = new ArrayList<>(jobs.size());
+        for (MasterJob job : jobs) {
+            assignments.add(new JobAssignment(job, assign(job, cluster)));
+        }
+        return assignments;
+    }
+
+    /**
+     * Called each time a slave completes a job, once the job has been removed from the slave's load
+     */
+    default void onJobCompleted(MasterJob job, SlaveState slave) {
+    }
+}
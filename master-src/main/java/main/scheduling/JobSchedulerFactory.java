@@ -0,0 +1,33 @@
+package main.scheduling;
+
+import main.Logging;
+import main.MasterSettings;
+
+/**
+ * This class creates the JobScheduler set in the master's settings
+ */
+public class JobSchedulerFactory {
+    /**
+     * @return the scheduler set in the given settings. If a scheduler class was set and can't be created, the default
+     * (LowestLoadScheduler) is returned.
+     */
+    public static JobScheduler create(MasterSettings settings) {
+        if (settings.getSchedulerClassName() != null) {
+            try {
+                Class<?> schedulerClass = Class.forName(settings.getSchedulerClassName());
+                return (JobScheduler) schedulerClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                Logging.consoleLog("Unable to create scheduler '" + settings.getSchedulerClassName() + "' - using "
+                        + LowestLoadScheduler.class.getSimpleName() + "\nException: " + e + "\n");
+                return new LowestLoadScheduler();
+            }
+        }
+        switch (settings.getSchedulingPolicy()) {
+            case POWER_OF_CHOICES:
+                return new PowerOfChoicesScheduler(settings.getNumSchedulingChoices());
+            case LOWEST_LOAD:
+            default:
+                return new LowestLoadScheduler();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package main.scheduling;
+
+import main.classes.MasterJob;
+import main.enums.JobType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The default JobScheduler. This assigns each job to the best slave considering overall system load and the JobType of
+ * the job: the slave that would complete the job soonest, i.e., with the lowest total load plus process time for the
+ * job.
+ * <p>
+ * Batches are assigned longest-processing-time first: the longest jobs of the batch are assigned first, each to the
+ * slave that would complete it soonest, counting the jobs of the batch already assigned. Leaving the shorter jobs for
+ * last lets them even out the loads, which keeps the time until all slaves are done (the makespan) low.
+ * </p>
+ */
+public class LowestLoadScheduler implements JobScheduler {
+    @Override
+    public SlaveState assign(MasterJob job, ClusterView cluster) {
+        return cluster.getLowestLoadSlaveForJob(job);
+    }
+
+    @Override
+    public List<JobAssignment> assignAll(List<MasterJob> jobs, ClusterView cluster) {
+        List<JobAssignment> assignments = new ArrayList<>(jobs.size());
+        List<SlaveState> slaves = cluster.getSlaves();
+        if (slaves.isEmpty()) {
+            for (MasterJob job : jobs) {
+                assignments.add(new JobAssignment(job, null));
+            }
+            return assignments;
+        }
+        List<ProjectedSlave> projectedSlaves = new ArrayList<>(slaves.size());
+        for (SlaveState slave : slaves) {
+            projectedSlaves.add(new ProjectedSlave(slave));
+        }
+
+        // longest jobs first. A job's length is taken as its longest process time on any of the slaves.
+        List<MasterJob> jobsByLength = new ArrayList<>(jobs);
+        EnumMap<JobType, Integer> lengthsByJobType = new EnumMap<>(JobType.class);
+        for (MasterJob job : jobsByLength) {
+            lengthsByJobType.computeIfAbsent(job.getJobType(), type -> {
+                int longestProcessTime = 0;
+                for (SlaveState slave : slaves) {
+                    longestProcessTime = Math.max(longestProcessTime, slave.getJobProcessTime(type));
+                }
+                return longestProcessTime;
+            });
+        }
+        jobsByLength.sort(Comparator.comparingInt((MasterJob job) -> lengthsByJobType.get(job.getJobType())).reversed());
+
+        // for each JobType in the batch, the slaves in a min-heap by when they would complete a job of that type, as
+        // with the master's SlaveLoadIndex. The loads are projected, i.e., they include the jobs of this batch assigned
+        // so far. Once a slave is assigned a job, its entries in the heaps are stale, and are skipped when they reach
+        // the top; an entry with the slave's new load is added to each heap instead.
+        EnumMap<JobType, PriorityQueue<HeapEntry>> heapsByJobType = new EnumMap<>(JobType.class);
+        for (JobType jobType : lengthsByJobType.keySet()) {
+            PriorityQueue<HeapEntry> heap = new PriorityQueue<>(Comparator.comparingInt(entry -> entry.completionTime));
+            for (ProjectedSlave projectedSlave : projectedSlaves) {
+                heap.add(new HeapEntry(projectedSlave, jobType));
+            }
+            heapsByJobType.put(jobType, heap);
+        }
+
+        for (MasterJob job : jobsByLength) {
+            PriorityQueue<HeapEntry> heap = heapsByJobType.get(job.getJobType());
+            while (heap.peek().isStale()) {
+                heap.poll();
+            }
+            ProjectedSlave bestSlave = heap.poll().projectedSlave;
+            bestSlave.load += bestSlave.slave.getJobProcessTime(job) / bestSlave.slave.getParallelism();  // as with Slave.getTotalLoad
+            bestSlave.version++;
+            for (JobType jobType : heapsByJobType.keySet()) {
+                heapsByJobType.get(jobType).add(new HeapEntry(bestSlave, jobType));
+            }
+            assignments.add(new JobAssignment(job, bestSlave.slave));
+        }
+        return assignments;
+    }
+
+    /**
+     * A slave, and its load including the jobs of the batch assigned to it so far
+     */
+    private static class ProjectedSlave {
+        private final SlaveState slave;
+        private int load;
+        private int version = 0;  // the number of jobs of the batch assigned to the slave so far
+
+        ProjectedSlave(SlaveState slave) {
+            this.slave = slave;
+            this.load = slave.getTotalLoad();
+        }
+    }
+
+    /**
+     * A slave's entry in the heap for a JobType, keyed by when the slave would complete a job of that type, as of the
+     * slave's projected load when the entry was added
+     */
+    private static class HeapEntry {
+        private final ProjectedSlave projectedSlave;
+        private final int version;
+        private final int completionTime;
+
+        HeapEntry(ProjectedSlave projectedSlave, JobType jobType) {
+            this.projectedSlave = projectedSlave;
+            this.version = projectedSlave.version;
+            this.completionTime = projectedSlave.load + projectedSlave.slave.getJobProcessTime(jobType);
+        }
+
+        /**
+         * @return <code>true</code> if the slave was assigned a job since this entry was added
+         */
+        boolean isStale() {
+            return version != projectedSlave.version;
+        }
+    }
+}
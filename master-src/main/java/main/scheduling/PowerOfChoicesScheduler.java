@@ -0,0 +1,47 @@
+package main.scheduling;
+
+import main.classes.MasterJob;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A JobScheduler that picks a few slaves at random for each job and, of those, assigns the job to the one with the
+ * lowest resulting time-to-completion once the job is added to its load. As with the LowestLoadScheduler, the process
+ * time of the job depends on the JobType each slave is optimized for.
+ * This doesn't always find the best slave, but keeps the load close to balanced at a constant cost per job.
+ * (Slaves are picked independently, so the same slave may occasionally be picked more than once.)
+ */
+public class PowerOfChoicesScheduler implements JobScheduler {
+    private final int numChoices;
+
+    public PowerOfChoicesScheduler() {
+        this(2);
+    }
+
+    public PowerOfChoicesScheduler(int numChoices) {
+        this.numChoices = numChoices;
+    }
+
+    @Override
+    public SlaveState assign(MasterJob job, ClusterView cluster) {
+        List<SlaveState> slaves = cluster.getSlaves();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SlaveState bestSlave = null;
+        int lowestTotalLoadCompletionTime = Integer.MAX_VALUE;
+        for (int i = 0; i < numChoices; i++) {
+            SlaveState slave;
+            try {
+                slave = slaves.get(random.nextInt(slaves.size()));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                break;  // there are no slaves, or a slave was removed while picking
+            }
+            int thisSlaveTotalLoadCompletionTime = slave.getTotalLoad() + slave.getJobProcessTime(job);
+            if (thisSlaveTotalLoadCompletionTime < lowestTotalLoadCompletionTime) {
+                lowestTotalLoadCompletionTime = thisSlaveTotalLoadCompletionTime;
+                bestSlave = slave;
+            }
+        }
+        return bestSlave;
+    }
+}
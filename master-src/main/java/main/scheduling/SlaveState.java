@@ -0,0 +1,40 @@
+package main.scheduling;
+
+import main.classes.MasterJob;
+import main.enums.JobType;
+
+/**
+ * A read-only view of a slave's state, as seen by a JobScheduler
+ */
+public interface SlaveState {
+    int getId();
+
+    JobType getSlaveOptimizedForType();
+
+    /**
+     * @return the number of jobs the slave executes at once
+     */
+    int getParallelism();
+
+    /**
+     * @return the time until the slave completes all jobs assigned to it (the sum of their process times, divided by
+     * the slave's parallelism), in milliseconds
+     */
+    int getTotalLoad();
+
+    /**
+     * @return the time it takes for the slave to complete the given job, in milliseconds. This is estimated from the
+     * process times observed for jobs of the same JobType on the slave.
+     */
+    int getJobProcessTime(MasterJob job);
+
+    /**
+     * @return the time it takes for the slave to complete a job of the given JobType, in milliseconds
+     */
+    int getJobProcessTime(JobType jobType);
+
+    /**
+     * @return the number of jobs assigned to the slave and not yet completed
+     */
+    int getNumJobsRequested();
+}
@@ -5,6 +5,7 @@ import javafx.concurrent.Task;
 import javafx.scene.control.TextArea;
 import main.MasterModel;
 import main.Logging;
+import main.classes.ConnectionThreadFactory;
 import main.classes.Client;
 
 import java.io.IOException;
@@ -13,16 +14,18 @@ import java.net.Socket;
 
 /**
  * This task listens on the designated port for Clients to connect. For each Client that connects, this task starts a new
- * Thread responsible for setting up the connection to that client (ClientConnectionHandlerTask).
+ * thread (see ConnectionThreadFactory) responsible for setting up the connection to that client (ClientConnectionHandlerTask).
  */
 public class AcceptClientConnectionsTask extends Task<Void> {
     private final int CLIENT_PORT_NUM = 30001;
     private final TextArea logsTextArea;
     private final MasterModel masterModel;
+    private final ConnectionThreadFactory threadFactory;
 
-    public AcceptClientConnectionsTask(TextArea logsTextArea, MasterModel masterModel) {
+    public AcceptClientConnectionsTask(TextArea logsTextArea, MasterModel masterModel, ConnectionThreadFactory threadFactory) {
         this.logsTextArea = logsTextArea;
         this.masterModel = masterModel;
+        this.threadFactory = threadFactory;
     }
 
     @Override
@@ -34,7 +37,7 @@ public class AcceptClientConnectionsTask extends Task<Void> {
                 try {
                     int clientId = Client.getNextAvailableClientId();
                     clientSocket = serverSocket.accept();
-                    new Thread(new ClientConnectionHandlerTask(clientSocket, logsTextArea, masterModel, clientId), "Client" + clientId + "-ConnectionHandler").start();
+                    threadFactory.newThread(new ClientConnectionHandlerTask(clientSocket, logsTextArea, masterModel, clientId, threadFactory), "Client" + clientId + "-ConnectionHandler").start();
                 } catch (Exception e) {
                     Logging.consoleLogAndAppendToGUILogs("Unable to connect to slave\nEXCEPTION: see console for details", logsTextArea);
                     e.printStackTrace();
@@ -0,0 +1,92 @@
+package main.tasks;
+
+import javafx.concurrent.Task;
+import javafx.scene.control.TextArea;
+import main.Logging;
+import main.MasterModel;
+import main.classes.Client;
+import main.classes.NioClientConnection;
+import main.classes.NioSlaveConnection;
+import main.classes.Slave;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * This task is used in the NIO network mode in place of the AcceptClientConnectionsTask and
+ * AcceptSlaveConnectionsTask. It starts the event loop threads (NioEventLoopTask), and then listens on both the client
+ * and slave ports. Each connection accepted is handed to one of the event loops, in turn, which handles it from then on.
+ */
+public class AcceptConnectionsNioTask extends Task<Void> {
+    private final int CLIENT_PORT_NUM = 30001;
+    private final int SLAVE_PORT_NUM = 30000;
+    private final TextArea logsTextArea;
+    private final MasterModel masterModel;
+    private final int numEventLoops;
+
+    public AcceptConnectionsNioTask(TextArea logsTextArea, MasterModel masterModel, int numEventLoops) {
+        this.logsTextArea = logsTextArea;
+        this.masterModel = masterModel;
+        this.numEventLoops = numEventLoops;
+    }
+
+    @Override
+    protected Void call() throws IOException {
+        Logging.consoleLogAndAppendToGUILogs("Starting " + numEventLoops + " event loop(s) to handle Client and Slave connections\n", logsTextArea);
+        NioEventLoopTask[] eventLoops = new NioEventLoopTask[numEventLoops];
+        for (int i = 0; i < numEventLoops; i++) {
+            eventLoops[i] = new NioEventLoopTask();
+            Thread eventLoopThread = new Thread(eventLoops[i], "Thread-EventLoop-" + i);
+            eventLoopThread.setDaemon(true);
+            eventLoopThread.start();
+        }
+
+        Logging.consoleLogAndAppendToGUILogs("Creating ServerSocketChannels to accept incoming Client and Slave Connections\n", logsTextArea);
+        try (Selector selector = Selector.open();
+             ServerSocketChannel clientServerChannel = ServerSocketChannel.open();
+             ServerSocketChannel slaveServerChannel = ServerSocketChannel.open()
+        ) {
+            clientServerChannel.bind(new InetSocketAddress(CLIENT_PORT_NUM));
+            slaveServerChannel.bind(new InetSocketAddress(SLAVE_PORT_NUM));
+            clientServerChannel.configureBlocking(false);
+            slaveServerChannel.configureBlocking(false);
+            clientServerChannel.register(selector, SelectionKey.OP_ACCEPT);
+            slaveServerChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+            int nextEventLoop = 0;
+            while (!isCancelled()) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    SocketChannel channel = null;
+                    try {
+                        channel = ((ServerSocketChannel) key.channel()).accept();
+                        if (channel == null) continue;
+                        NioEventLoopTask eventLoop = eventLoops[nextEventLoop];
+                        nextEventLoop = (nextEventLoop + 1) % numEventLoops;
+                        if (key.channel() == clientServerChannel) {
+                            eventLoop.register(new NioClientConnection(channel, eventLoop, masterModel, logsTextArea, Client.getNextAvailableClientId()));
+                        } else {
+                            eventLoop.register(new NioSlaveConnection(channel, eventLoop, masterModel, logsTextArea, Slave.getNextAvailableSlaveId()));
+                        }
+                    } catch (IOException e) {
+                        Logging.consoleLogAndAppendToGUILogs("Unable to accept connection\nEXCEPTION: see console for details", logsTextArea);
+                        e.printStackTrace();
+                        if (channel != null) {  // manually close the channel if it was accepted
+                            channel.close();
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } finally {
+            for (NioEventLoopTask eventLoop : eventLoops) {
+                eventLoop.cancel();
+            }
+        }
+        return null;
+    }
+}
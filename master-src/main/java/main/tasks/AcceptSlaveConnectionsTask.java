@@ -5,6 +5,7 @@ import javafx.concurrent.Task;
 import javafx.scene.control.TextArea;
 import main.MasterModel;
 import main.Logging;
+import main.classes.ConnectionThreadFactory;
 import main.classes.Slave;
 
 import java.io.IOException;
@@ -13,16 +14,18 @@ import java.net.Socket;
 
 /**
  * This task listens on the designated port for Slaves to connect. For each Slave that connects, this task starts a new
- * Thread responsible for setting up the connection to that Slave (SlaveConnectionHandlerTask).
+ * thread (see ConnectionThreadFactory) responsible for setting up the connection to that Slave (SlaveConnectionHandlerTask).
  */
 public class AcceptSlaveConnectionsTask extends Task<Void> {
     private final int SLAVE_PORT_NUM = 30000;
     private final TextArea logsTextArea;
     private final MasterModel masterModel;
+    private final ConnectionThreadFactory threadFactory;
 
-    public AcceptSlaveConnectionsTask(TextArea logsTextArea, MasterModel masterModel) {
+    public AcceptSlaveConnectionsTask(TextArea logsTextArea, MasterModel masterModel, ConnectionThreadFactory threadFactory) {
         this.logsTextArea = logsTextArea;
         this.masterModel = masterModel;
+        this.threadFactory = threadFactory;
     }
 
 
@@ -35,7 +38,7 @@ public class AcceptSlaveConnectionsTask extends Task<Void> {
                 try {
                     int slaveId = Slave.getNextAvailableSlaveId();
                     slaveSocket = serverSocket.accept();
-                    new Thread(new SlaveConnectionHandlerTask(slaveSocket, logsTextArea, masterModel, slaveId), "Slave" + slaveId + "-ConnectionHandler").start();
+                    threadFactory.newThread(new SlaveConnectionHandlerTask(slaveSocket, logsTextArea, masterModel, slaveId, threadFactory), "Slave" + slaveId + "-ConnectionHandler").start();
                 } catch (Exception e) {
                     Logging.consoleLogAndAppendToGUILogs("Unable to connect to slave\nEXCEPTION: see console for details", logsTextArea);
                     e.printStackTrace();
@@ -2,15 +2,16 @@
 package main.tasks;
 
 import PacketCommunication.IPConnection;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import javafx.concurrent.Task;
 import javafx.scene.control.TextArea;
 import main.MasterModel;
 import main.Logging;
 import main.classes.Client;
+import main.classes.ConnectionThreadFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 
 /**
@@ -25,12 +26,14 @@ public class ClientConnectionHandlerTask extends Task<Void> {
     private final MasterModel masterModel;
     private final TextArea logsTextArea;
     private final int clientId;
+    private final ConnectionThreadFactory threadFactory;
 
-    public ClientConnectionHandlerTask(Socket clientSocket, TextArea logsTextArea, MasterModel masterModel, int clientId) {
+    public ClientConnectionHandlerTask(Socket clientSocket, TextArea logsTextArea, MasterModel masterModel, int clientId, ConnectionThreadFactory threadFactory) {
         this.clientSocket = clientSocket;
         this.logsTextArea = logsTextArea;
         this.masterModel = masterModel;
         this.clientId = clientId;
+        this.threadFactory = threadFactory;
     }
 
 
@@ -38,20 +41,21 @@ public class ClientConnectionHandlerTask extends Task<Void> {
     protected Void call() throws Exception {
         Logging.consoleLogAndAppendToGUILogs("creating input / output threads for client connection...\n", logsTextArea);
         Client client = null;
-        try (BufferedReader clientIn = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-             PrintWriter clientOut = new PrintWriter(clientSocket.getOutputStream(), true);
+        try (PacketFrameReader clientIn = new PacketFrameReader(clientSocket.getInputStream());
+             PacketFrameWriter clientOut = new PacketFrameWriter(clientSocket.getOutputStream());
         ) {
             // create input and output threads for communication with the client
             client = new Client(clientId, new IPConnection(clientSocket.getInetAddress().getHostAddress(), clientSocket.getPort()));
-            SendJobResultsToClientTask sendJobResultsTask = new SendJobResultsToClientTask(client, clientOut, logsTextArea);
-            ReceiveJobRequestsFromClientTask receiveJobRequestsTask = new ReceiveJobRequestsFromClientTask(masterModel, client, clientIn, logsTextArea);
-            Thread outputHandlerThread = new Thread(sendJobResultsTask, "Client" + client.getId() + "-Output");
-            Thread inputHandlerThread = new Thread(receiveJobRequestsTask, "Client" + client.getId() + "-Input");
+            MultiPacketTransfers transfers = masterModel.newMultiPacketTransfers();
+            SendJobResultsToClientTask sendJobResultsTask = new SendJobResultsToClientTask(client, clientOut, transfers, logsTextArea);
+            ReceiveJobRequestsFromClientTask receiveJobRequestsTask = new ReceiveJobRequestsFromClientTask(masterModel, client, clientIn, clientOut, transfers, logsTextArea);
+            Thread outputHandlerThread = threadFactory.newThread(sendJobResultsTask, "Client" + client.getId() + "-Output");
+            Thread inputHandlerThread = threadFactory.newThread(receiveJobRequestsTask, "Client" + client.getId() + "-Input");
 
             // start both input and output threads
+            masterModel.addActiveClient(client);  // added before its jobs can be received, so that their results can be returned to it
             inputHandlerThread.start();
             outputHandlerThread.start();
-            masterModel.addActiveClient(client);
             Logging.consoleLogAndAppendToGUILogs("Connected to new Client at IP '" + clientSocket.getInetAddress().getHostAddress() + "' - ID: '" + client.getId() + "'\n", logsTextArea);
 
             // Join the input/output threads so that we don't close the input/output objects before they are done with them.
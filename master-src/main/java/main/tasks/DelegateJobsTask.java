@@ -7,35 +7,60 @@ import main.Logging;
 import main.MasterModel;
 import main.classes.MasterJob;
 import main.classes.Slave;
-import main.enums.JobType;
+import main.enums.DispatchMode;
+import main.scheduling.JobAssignment;
+import main.scheduling.JobScheduler;
+import main.scheduling.SlaveState;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * This class is responsible for assigning each job to a slave, as they come in. It load balances to
- * efficiently distribute the jobs amongst the available slaves.
+ * efficiently distribute the jobs amongst the available slaves, using the MasterModel's JobScheduler.
+ * When the batch size is more than 1, the jobs requested are instead taken in batches and assigned together, and each
+ * slave's share of the batch is enqueued with it at once.
+ * In the PULL dispatch mode, the jobs requested are not assigned here, but are moved to the MasterModel's
+ * PendingJobPool, where each slave pulls jobs from as it is ready for them.
  */
 public class DelegateJobsTask extends Task<Void> {
 
+    private static final int PENDING_POOL_BATCH_SIZE = 64;  // the minimum number of requested jobs moved to the PendingJobPool together
     private final MasterModel masterModel;
     private final TextArea logsTextArea;
-    public DelegateJobsTask(MasterModel masterModel, TextArea logsTextArea) {
+    private final int batchSize;  // the maximum number of jobs assigned together
+    private final long batchMaxWaitMillis;  // how long to wait for a batch to fill up once its first job is requested
+
+    public DelegateJobsTask(MasterModel masterModel, TextArea logsTextArea, int batchSize, long batchMaxWaitMillis) {
         this.masterModel = masterModel;
         this.logsTextArea = logsTextArea;
+        this.batchSize = batchSize;
+        this.batchMaxWaitMillis = batchMaxWaitMillis;
     }
 
     @Override
     protected Void call() throws Exception {
+        JobScheduler jobScheduler = masterModel.getJobScheduler();
+        if (masterModel.getDispatchMode() == DispatchMode.PULL) {
+            moveJobsToPendingPool();
+            return null;
+        }
+        if (batchSize > 1) {
+            delegateJobBatches(jobScheduler);
+            return null;
+        }
         while (!isCancelled()) {
             // wait on job requests from clients to come in
             MasterJob jobRequested = masterModel.dequeJobRequested();
 
             // load balance
-            int slaveId = getBestSlaveForJob(jobRequested);
+            int slaveId = getBestSlaveForJob(jobScheduler, jobRequested);
 
             if (slaveId == -1) {  // no slaves in system
                 Logging.consoleLogAndAppendToGUILogs("No slaves connected - unable to process job\n", logsTextArea);
+                masterModel.dropJob(jobRequested);
                 continue;
             }
 
@@ -45,40 +70,60 @@ public class DelegateJobsTask extends Task<Void> {
         return null;
     }
 
-     /**
-     * This method finds the best Slave to assign the given job, considering overall system load and
-     * the JobType of the provided job. This method first iterates through all slaves connected to the master to find
-     * the slave with the lowest overall load for each (slave-optimized-for) JobType. Then, this method simulates
-     * assigning this job to each of those slaves and return the slave that would result in the overall lowest resulting
-     * total load.
-     * @return the id of the slave that is best suited to complete the given job
-     */
-    private int getBestSlaveForJob(MasterJob job) {
-        Map<Integer, Slave> slaves = masterModel.getSlaves();
-        HashMap<JobType, Slave> lowestLoadSlavesByJobType = new HashMap<>();
+    private void delegateJobBatches(JobScheduler jobScheduler) throws InterruptedException {
+        List<MasterJob> batch = new ArrayList<>(batchSize);
+        Map<Integer, List<MasterJob>> jobsBySlaveId = new HashMap<>();
+        List<MasterJob> jobsUnassigned = new ArrayList<>();
+        while (!isCancelled()) {
+            // wait on job requests from clients to come in
+            batch.clear();
+            masterModel.dequeJobsRequested(batch, batchSize, batchMaxWaitMillis);
 
-        // go through all the slaves and find the ones with the lowest load for each job type that there are slaves for
-        for (Slave slave : slaves.values()) {
-            int slaveLoad = slave.getTotalLoad();
-            Slave lowestLoadSlaveOfSameType = lowestLoadSlavesByJobType.get(slave.getSlaveOptimizedForType());
-            if (lowestLoadSlaveOfSameType == null || slaveLoad < lowestLoadSlaveOfSameType.getTotalLoad()) {
-                lowestLoadSlavesByJobType.put(slave.getSlaveOptimizedForType(), slave);
+            // load balance the whole batch
+            jobsBySlaveId.clear();
+            jobsUnassigned.clear();
+            for (JobAssignment assignment : jobScheduler.assignAll(batch, masterModel.getClusterView())) {
+                if (assignment.getSlave() == null) {
+                    jobsUnassigned.add(assignment.getJob());
+                } else {
+                    jobsBySlaveId.computeIfAbsent(assignment.getSlave().getId(), id -> new ArrayList<>()).add(assignment.getJob());
+                }
             }
-        }
 
-        // simulate adding this job to each slave and see which one gives the overall lowest time-to-completion for the
-        // resulting total load
-        int lowestTotalLoadCompletionTime = Integer.MAX_VALUE;
-        Slave bestSlave = null;
-        for (Slave slave : lowestLoadSlavesByJobType.values()) {
-            int thisSlaveTotalLoadCompletionTime = slave.getTotalLoad() + slave.getJobProcessTime(job);
-            if (thisSlaveTotalLoadCompletionTime <= lowestTotalLoadCompletionTime) {
-                lowestTotalLoadCompletionTime = thisSlaveTotalLoadCompletionTime;
-                bestSlave = slave;
+            // enqueue each slave's share of the batch with it for execution
+            for (Map.Entry<Integer, List<MasterJob>> slaveJobs : jobsBySlaveId.entrySet()) {
+                Slave slave = masterModel.getSlave(slaveJobs.getKey());
+                if (slave == null) {  // the slave was removed since the batch was assigned
+                    jobsUnassigned.addAll(slaveJobs.getValue());
+                    continue;
+                }
+                slave.enqueueJobsToRun(slaveJobs.getValue());
+            }
+
+            if (!jobsUnassigned.isEmpty()) {
+                Logging.consoleLogAndAppendToGUILogs("No slaves connected - unable to process " + jobsUnassigned.size() + " job(s)\n", logsTextArea);
+                jobsUnassigned.forEach(masterModel::dropJob);
             }
         }
+    }
 
-        if (bestSlave != null) {
+    private void moveJobsToPendingPool() throws InterruptedException {
+        List<MasterJob> batch = new ArrayList<>(batchSize);
+        while (!isCancelled()) {
+            // wait on job requests from clients to come in, and take any others already requested along with them
+            batch.clear();
+            masterModel.dequeJobsRequested(batch, Math.max(batchSize, PENDING_POOL_BATCH_SIZE), batchMaxWaitMillis);
+            masterModel.enqueuePendingJobs(batch);
+        }
+    }
+
+    /**
+     * This method finds the best Slave to assign the given job, using the given scheduler
+     * @return the id of the slave that is best suited to complete the given job, or -1 if there are no slaves
+     */
+    private int getBestSlaveForJob(JobScheduler jobScheduler, MasterJob job) {
+        SlaveState bestSlave = jobScheduler.assign(job, masterModel.getClusterView());
+        if (bestSlave != null && masterModel.getSlave(bestSlave.getId()) != null) {
             return bestSlave.getId();
         } else {
             // no bestSlave was found which means there are no slaves in the system. return -1 to indicate such
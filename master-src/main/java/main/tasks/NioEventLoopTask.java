@@ -0,0 +1,88 @@
+package main.tasks;
+
+import javafx.concurrent.Task;
+import main.Logging;
+import main.classes.NioConnection;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * This task is one of the event loops used in the NIO network mode. Each event loop handles the input and output of
+ * many client and slave connections (see NioConnection) on a single thread: it waits on its Selector until any of its
+ * connections can be read from or written to, and then calls those connections to do so.
+ * Work can be handed to the event loop from other threads with <code>execute</code>, and is run on the event loop's
+ * thread before it next waits.
+ */
+public class NioEventLoopTask extends Task<Void> implements Executor {
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Runnable> pendingWork = new ConcurrentLinkedQueue<>();
+
+    public NioEventLoopTask() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Run the given work on this event loop's thread
+     */
+    @Override
+    public void execute(Runnable work) {
+        pendingWork.add(work);
+        selector.wakeup();
+    }
+
+    /**
+     * Have this event loop handle the given connection from now on
+     */
+    public void register(NioConnection connection) {
+        execute(() -> {
+            try {
+                connection.register(selector);
+            } catch (IOException e) {
+                Logging.consoleLog("Unable to register " + connection + " with the event loop\n");
+                connection.close();
+            }
+        });
+    }
+
+    @Override
+    protected Void call() throws IOException {
+        try (selector) {
+            while (!isCancelled()) {
+                selector.select();
+                Runnable work;
+                while ((work = pendingWork.poll()) != null) {
+                    work.run();
+                }
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    NioConnection connection = (NioConnection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    } catch (Throwable e) {
+                        // an error on one connection (e.g., a StackOverflowError from a malformed packet) shouldn't
+                        // affect the other connections on this event loop
+                        Logging.consoleLog("Error on connection to " + connection + " - closing connection: " + e.getMessage() + "\n");
+                        connection.close();
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close();
+            }
+        }
+        return null;
+    }
+}
@@ -1,6 +1,9 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.MasterModel;
 import main.Logging;
@@ -8,25 +11,31 @@ import main.classes.Client;
 import main.classes.MasterJob;
 import main.classes.JobReceiver;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * This Task is responsible for listening for MasterJob requests from a specific Client sent over the Client's socket.
  * This Task is started by the ConnectToClientsTask when a new Client connects and serves as the sole receiver of input
  * from the Client.
- * When a job is received by this Task, it enqueues it with the master for execution
+ * When a job is received by this Task, it enqueues it with the master for execution. The jobs of a batch of job
+ * requests are enqueued all at once.
  */
 public class ReceiveJobRequestsFromClientTask extends JobReceiver {
     private final MasterModel masterModel;
-    private final BufferedReader socketIn;
+    private final PacketFrameReader socketIn;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
     private final Client client;
 
-    public ReceiveJobRequestsFromClientTask(MasterModel masterModel, Client client, BufferedReader socketIn, TextArea logsTextArea) {
+    public ReceiveJobRequestsFromClientTask(MasterModel masterModel, Client client, PacketFrameReader socketIn, PacketFrameWriter socketOut,
+            MultiPacketTransfers transfers, TextArea logsTextArea) {
         this.masterModel = masterModel;
         this.client = client;
         this.socketIn = socketIn;
+        this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
     }
 
@@ -34,18 +43,27 @@ public class ReceiveJobRequestsFromClientTask extends JobReceiver {
     protected Void call() throws Exception {
         try (socketIn) {
             while (!isCancelled()) {
-                MasterJob job = receiveJob(socketIn, false, logsTextArea);
-                if (job == null) {
+                List<MasterJob> jobs = receiveJobs(socketIn, false, socketOut, transfers, logsTextArea);
+                if (jobs == null) {
                     Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job request from client #"
                             + client.getId() + "\n", logsTextArea);
                     continue;
                 }
-                job.setClientId(client.getId());  // add the client for this job
+                for (MasterJob job : jobs) {
+                    job.setClientId(client.getId());  // add the client for this job
+                }
 
                 try {
-                    masterModel.enqueueJobRequested(job);
-                    client.addJobRequested(job);
-                    Logging.consoleLogAndAppendToGUILogs("Received job request from client for job - " + job + "\n", logsTextArea);
+                    if (jobs.size() == 1) {
+                        masterModel.enqueueJobRequested(jobs.get(0));
+                        client.addJobRequested(jobs.get(0));
+                        Logging.consoleLogAndAppendToGUILogs("Received job request from client for job - " + jobs.get(0) + "\n", logsTextArea);
+                    } else {
+                        masterModel.enqueueJobsRequested(jobs);
+                        client.addJobsRequested(jobs);
+                        Logging.consoleLogAndAppendToGUILogs("Received " + jobs.size() + " job requests from client #"
+                                + client.getId() + "\n", logsTextArea);
+                    }
                 } catch (InterruptedException e) {
                     Logging.consoleLogAndAppendToGUILogs("Thread interrupted or cancelled while waiting to enqueue" +
                             "a client's requested job:\n" + e.getMessage() + "\n", logsTextArea);
@@ -1,6 +1,9 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.MasterModel;
 import main.Logging;
@@ -8,7 +11,6 @@ import main.classes.MasterJob;
 import main.classes.JobReceiver;
 import main.classes.Slave;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 
 /**
@@ -20,13 +22,18 @@ import java.io.IOException;
 public class ReceiveJobResultsFromSlaveTask extends JobReceiver {
     private final MasterModel masterModel;
     private final Slave slave;
-    private final BufferedReader socketIn;
+    private final PacketFrameReader socketIn;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
 
-    public ReceiveJobResultsFromSlaveTask(MasterModel masterModel, Slave slave, BufferedReader socketIn, TextArea logsTextArea) {
+    public ReceiveJobResultsFromSlaveTask(MasterModel masterModel, Slave slave, PacketFrameReader socketIn, PacketFrameWriter socketOut,
+            MultiPacketTransfers transfers, TextArea logsTextArea) {
         this.masterModel = masterModel;
         this.slave = slave;
         this.socketIn = socketIn;
+        this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
     }
 
@@ -35,7 +42,7 @@ public class ReceiveJobResultsFromSlaveTask extends JobReceiver {
     protected Void call() throws Exception {
         try (socketIn) {
             while (!isCancelled()) {
-                MasterJob job = receiveJob(socketIn, true, logsTextArea);
+                MasterJob job = receiveJob(socketIn, true, socketOut, transfers, logsTextArea);
                 if (job == null) {
                     Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job from received packet\n", logsTextArea);
                     continue;
@@ -43,8 +50,10 @@ public class ReceiveJobResultsFromSlaveTask extends JobReceiver {
                 job.setSlaveId(slave.getId());
 
                 try {
-                    masterModel.enqueueJobCompleted(job);
-                    slave.addJobCompleted(job);
+                    if (masterModel.enqueueJobCompleted(job)) {  // a duplicate result was already accounted for
+                        slave.addJobCompleted(job);
+                        masterModel.getJobScheduler().onJobCompleted(job, slave);
+                    }
                 } catch (InterruptedException e) {
                     Logging.consoleLogAndAppendToGUILogs("Thread interrupted or cancelled while waiting to enqueue" +
                             "a completed job:\n" + e.getMessage() + "\n", logsTextArea);
@@ -7,6 +7,8 @@ import main.classes.MasterJob;
 
 /**
  * This class is responsible for returning completed jobs to the client that requested them.
+ * Each completed job is already removed from the MasterModel's jobs in flight, and holds the id of its client (see
+ * MasterModel.enqueueJobCompleted).
  * */
 public class ReturnJobsTask extends Task<Void> {
     private final MasterModel masterModel;
@@ -20,19 +22,9 @@ public class ReturnJobsTask extends Task<Void> {
             // wait on job completions from slaves to come in
             MasterJob jobCompleted = masterModel.dequeJobCompleted();
 
-            // find the client that requested this job
-            int clientId = findJobClient(jobCompleted);
-
-            // enqueue the job with the client for return
-            masterModel.getClient(clientId).enqueueCompletedJob(jobCompleted);
+            // enqueue the job with the client that requested it for return
+            masterModel.getClient(jobCompleted.getClientId()).enqueueCompletedJob(jobCompleted);
         }
         return null;
     }
-
-    /**
-     * @return the id of the client that originally requested the provided job
-     * */
-    private int findJobClient(MasterJob job) {
-        return masterModel.getJob(job.getInternalId()).getClientId();
-    }
 }
@@ -1,13 +1,17 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.Logging;
+import main.MasterModel;
 import main.classes.MasterJob;
 import main.classes.JobSender;
 import main.classes.Slave;
+import main.enums.DispatchMode;
 
-import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is responsible for sending Jobs to a specific slave to be completed.
@@ -15,16 +19,27 @@ import java.io.PrintWriter;
  * to that Slave.
  * The class waits on its Slave's jobsToRun queue and once a job is enqueued there, this class dequeues it and sends
  * it to the Slave.
+ * With work stealing enabled, whenever the queue stays empty for a while, this tries to take a job not yet sent from
+ * another, more loaded, slave instead (see MasterModel.stealJobToRun).
+ * If the Slave granted credits, each job is only dequeued once a credit is free (see Slave.acquireCredit), so that the
+ * jobs beyond the Slave's capacity stay in the master's queue.
+ * In the PULL dispatch mode, the jobs are taken from the MasterModel's PendingJobPool instead, as the Slave's credits
+ * are returned, so each job is only bound to this Slave once it is ready for it.
  */
 public class SendJobRequestsToSlaveTask extends JobSender {
+    private static final long WORK_STEALING_INTERVAL_MILLIS = 50;  // how long the queue has to be empty before trying to steal a job
+    private final MasterModel masterModel;
     private final Slave slave;
-    private final PrintWriter socketOut;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
 
 
-    public SendJobRequestsToSlaveTask(Slave slave, PrintWriter socketOut, TextArea logsTextArea) {
+    public SendJobRequestsToSlaveTask(MasterModel masterModel, Slave slave, PacketFrameWriter socketOut, MultiPacketTransfers transfers, TextArea logsTextArea) {
+        this.masterModel = masterModel;
         this.slave = slave;
         this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
     }
 
@@ -33,23 +48,39 @@ public class SendJobRequestsToSlaveTask extends JobSender {
         MasterJob jobToSend = null;
         try (socketOut) {
             while (!isCancelled()) {
+                jobToSend = null;
                 try {
-                    jobToSend = slave.dequeJobToRun();
+                    slave.acquireCredit();
+                } catch (InterruptedException e) {
+                    Logging.consoleLog("Thread interrupted or cancelled while waiting for a credit to send " +
+                            "the next job:\n" + e.getMessage() + "\n");
+                    if (isCancelled()) break;
+                    continue;  // no credit was taken up
+                }
+                try {
+                    if (masterModel.getDispatchMode() == DispatchMode.PULL) {
+                        jobToSend = masterModel.takePendingJob(slave);
+                    } else {
+                        jobToSend = masterModel.isWorkStealingEnabled() ? dequeOrStealJobToRun() : slave.dequeJobToRun();
+                    }
                 } catch (InterruptedException e) {
                     Logging.consoleLog("Thread interrupted or cancelled while waiting to dequeue" +
                             "the next job to send:\n" + e.getMessage() + "\n");
+                }
+                if (jobToSend == null) {
+                    slave.releaseCredit();  // the credit is only used up by a job that is sent
                     if (isCancelled()) break;
+                    Logging.consoleLogAndAppendToGUILogs("Error while trying to send MasterJob request to slave - job is null\n", logsTextArea);
+                    continue;
                 }
 
-                if (jobToSend != null) {
-                    boolean succeeded = sendJob(jobToSend, true, socketOut);
-                    if (succeeded) {
-                        Logging.consoleLogAndAppendToGUILogs("Sent job request to slave #" + slave.getId() + ": [" + jobToSend + "]\n", logsTextArea);
-                    } else {
-                        Logging.consoleLogAndAppendToGUILogs("Unable to send job request to slave #" + slave.getId() + ": [" + jobToSend + "]\n", logsTextArea);
-                    }
+                slave.setJobSent(jobToSend);
+                boolean succeeded = sendJob(jobToSend, true, true, socketOut, transfers);
+                if (succeeded) {
+                    Logging.consoleLogAndAppendToGUILogs("Sent job request to slave #" + slave.getId() + ": [" + jobToSend + "]\n", logsTextArea);
                 } else {
-                    Logging.consoleLogAndAppendToGUILogs("Error while trying to send MasterJob request to slave - job is null\n", logsTextArea);
+                    slave.setJobSendFailed(jobToSend);
+                    Logging.consoleLogAndAppendToGUILogs("Unable to send job request to slave #" + slave.getId() + ": [" + jobToSend + "]\n", logsTextArea);
                 }
             }
             Logging.consoleLog("Send job request task for slave #" + slave.getId() + " cancelled\n");
@@ -57,4 +88,21 @@ public class SendJobRequestsToSlaveTask extends JobSender {
             return null;
         }
     }
+
+    /**
+     * Wait for the next job to send, stealing one from another slave if none is enqueued in time
+     * @return the job, or <code>null</code> if this task was cancelled
+     */
+    private MasterJob dequeOrStealJobToRun() throws InterruptedException {
+        MasterJob job = slave.pollJobToRun(WORK_STEALING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        while (job == null && !isCancelled()) {
+            job = masterModel.stealJobToRun(slave);
+            if (job == null) {
+                job = slave.pollJobToRun(WORK_STEALING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                Logging.consoleLog("Slave #" + slave.getId() + " stole job [" + job + "]\n");
+            }
+        }
+        return job;
+    }
 }
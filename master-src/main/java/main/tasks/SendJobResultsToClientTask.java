@@ -1,14 +1,14 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.Logging;
 import main.classes.Client;
 import main.classes.MasterJob;
 import main.classes.JobSender;
 
-import java.io.PrintWriter;
-
 /**
  * This class is responsible for sending MasterJob results to a specific client, once they have been completed.
  * This task is started by the ConnectToClientsTask when a new Client connects and serves as the sole sender of output
@@ -18,12 +18,14 @@ import java.io.PrintWriter;
  */
 public class SendJobResultsToClientTask extends JobSender {
     private final Client client;
-    private final PrintWriter socketOut;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
 
-    public SendJobResultsToClientTask(Client client, PrintWriter socketOut, TextArea logsTextArea) {
+    public SendJobResultsToClientTask(Client client, PacketFrameWriter socketOut, MultiPacketTransfers transfers, TextArea logsTextArea) {
         this.client = client;
         this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
     }
 
@@ -41,7 +43,7 @@ public class SendJobResultsToClientTask extends JobSender {
                 }
 
                 if (jobToSend != null) {
-                    boolean succeeded = sendJob(jobToSend, false, socketOut);
+                    boolean succeeded = sendJob(jobToSend, false, false, socketOut, transfers);
 
                     if (succeeded) {
                         Logging.consoleLogAndAppendToGUILogs("Sent job result to client #" + client.getId() + ": [" + jobToSend + "]\n", logsTextArea);
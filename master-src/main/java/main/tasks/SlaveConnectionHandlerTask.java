@@ -2,18 +2,22 @@
 package main.tasks;
 
 import PacketCommunication.IPConnection;
+import PacketCommunication.MultiPacketTransfers;
 import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import PacketCommunication.enums.PacketArgKey;
+import PacketCommunication.enums.Compression;
+import PacketCommunication.enums.WireFormat;
 import javafx.scene.control.TextArea;
 import main.MasterModel;
 import main.Logging;
+import main.classes.ConnectionThreadFactory;
 import main.classes.PacketReceiver;
 import main.classes.Slave;
 import main.enums.JobType;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 
 /**
@@ -28,31 +32,39 @@ public class SlaveConnectionHandlerTask extends PacketReceiver {
     private final MasterModel masterModel;
     private final TextArea logsTextArea;
     private final int slaveId;
+    private final ConnectionThreadFactory threadFactory;
 
-    public SlaveConnectionHandlerTask(Socket slaveSocket, TextArea logsTextArea, MasterModel masterModel, int slaveId) {
+    public SlaveConnectionHandlerTask(Socket slaveSocket, TextArea logsTextArea, MasterModel masterModel, int slaveId, ConnectionThreadFactory threadFactory) {
         this.slaveSocket = slaveSocket;
         this.logsTextArea = logsTextArea;
         this.masterModel = masterModel;
         this.slaveId = slaveId;
+        this.threadFactory = threadFactory;
     }
 
     @Override
     protected Void call() throws Exception {
         Logging.consoleLogAndAppendToGUILogs("creating input / output threads for slave connection...\n", logsTextArea);
         Slave slave = null;
-        try (BufferedReader slaveIn = new BufferedReader(new InputStreamReader(slaveSocket.getInputStream()));
-             PrintWriter slaveOut = new PrintWriter(slaveSocket.getOutputStream(), true);
+        try (PacketFrameReader slaveIn = new PacketFrameReader(slaveSocket.getInputStream());
+             PacketFrameWriter slaveOut = new PacketFrameWriter(slaveSocket.getOutputStream());
         ) {
-            // receive one packet to determine the slave type (what JobType it is optimized for)
-            JobType slaveOptimizedForType = getSlaveOptimizedForType(slaveIn);
+            // receive one packet to determine the slave type (what JobType it is optimized for), and the wire format
+            // and compression it would like to use
+            PacketDecoder handshakePacket = receiveOnePacket(slaveIn);
+            JobType slaveOptimizedForType = getSlaveOptimizedForType(handshakePacket);
             if (slaveOptimizedForType == null) return null;
+            MultiPacketTransfers transfers = masterModel.newMultiPacketTransfers();
+            if (!negotiateWireFormatAndCompression(handshakePacket, slaveIn, slaveOut, transfers)) return null;
 
             // launch threads for input and output to the slave:
-            slave = new Slave(slaveId, new IPConnection(slaveSocket.getInetAddress().getHostAddress(), slaveSocket.getPort()), slaveOptimizedForType);
-            SendJobRequestsToSlaveTask sendJobRequestsTask = new SendJobRequestsToSlaveTask(slave, slaveOut, logsTextArea);
-            ReceiveJobResultsFromSlaveTask receiveJobsTask = new ReceiveJobResultsFromSlaveTask(masterModel, slave, slaveIn, logsTextArea);
-            Thread outputHandlerThread = new Thread(sendJobRequestsTask, "Slave #" + slave.getId() + " - " + sendJobRequestsTask.getClass().getName() + " (Output)");
-            Thread inputHandlerThread = new Thread(receiveJobsTask, "Slave #" + slave.getId() + " - " + receiveJobsTask.getClass().getName() + " (Input)");
+            int parallelism = getSlaveParallelism(handshakePacket);
+            slave = new Slave(slaveId, new IPConnection(slaveSocket.getInetAddress().getHostAddress(), slaveSocket.getPort()), slaveOptimizedForType,
+                    parallelism, masterModel.getCreditsForSlave(getSlaveCredits(handshakePacket), parallelism));
+            SendJobRequestsToSlaveTask sendJobRequestsTask = new SendJobRequestsToSlaveTask(masterModel, slave, slaveOut, transfers, logsTextArea);
+            ReceiveJobResultsFromSlaveTask receiveJobsTask = new ReceiveJobResultsFromSlaveTask(masterModel, slave, slaveIn, slaveOut, transfers, logsTextArea);
+            Thread outputHandlerThread = threadFactory.newThread(sendJobRequestsTask, "Slave #" + slave.getId() + " - " + sendJobRequestsTask.getClass().getName() + " (Output)");
+            Thread inputHandlerThread = threadFactory.newThread(receiveJobsTask, "Slave #" + slave.getId() + " - " + receiveJobsTask.getClass().getName() + " (Input)");
 
             outputHandlerThread.start();
             inputHandlerThread.start();
@@ -82,9 +94,8 @@ public class SlaveConnectionHandlerTask extends PacketReceiver {
     /**
      * @return the job type that the slave is optimized for, or <code>null</code> if an error occurred
      */
-    private JobType getSlaveOptimizedForType(BufferedReader in) {
+    private JobType getSlaveOptimizedForType(PacketDecoder packet) {
         try {
-            PacketDecoder packet = receiveOnePacket(in);
             if (packet != null && packet.containsArg(PacketArgKey.OPTIMIZED_FOR_JOB_TYPE)) {
                 return JobType.valueOf(packet.getArg(PacketArgKey.OPTIMIZED_FOR_JOB_TYPE));
             } else {
@@ -98,4 +109,72 @@ public class SlaveConnectionHandlerTask extends PacketReceiver {
             return null;
         }
     }
+
+    /**
+     * @return the number of jobs the slave executes at once, as sent in its handshake packet. Slaves that don't send
+     * it execute one job at a time.
+     */
+    private int getSlaveParallelism(PacketDecoder handshakePacket) {
+        try {
+            if (handshakePacket.containsArg(PacketArgKey.PARALLELISM)) {
+                return Math.max(1, handshakePacket.getIntArg(PacketArgKey.PARALLELISM));
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        return 1;
+    }
+
+    /**
+     * @return the number of jobs the slave is willing to hold at once, as granted in its handshake packet, or 0 if it
+     * didn't grant any credits (i.e., jobs are sent to it as soon as they are delegated)
+     */
+    private int getSlaveCredits(PacketDecoder handshakePacket) {
+        try {
+            if (handshakePacket.containsArg(PacketArgKey.CREDITS)) {
+                return Math.max(0, handshakePacket.getIntArg(PacketArgKey.CREDITS));
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        return 0;
+    }
+
+    /**
+     * If the slave asked for a wire format and/or a compression in its handshake packet, choose the ones to use and
+     * acknowledge them to the slave in one packet (falling back to TEXT if the requested format is not known, and to
+     * NONE if the requested compression is not supported). The acknowledgement is sent as TEXT, and all packets after
+     * it use the chosen format. Slaves that don't ask for either are not sent an acknowledgement, so they can keep
+     * using TEXT as before.
+     *
+     * @param transfers the transfers of the slave's connection, which compress with the chosen compression
+     * @return <code>true</code> if the wire format and compression were negotiated (or didn't need to be), else
+     * <code>false</code>
+     */
+    private boolean negotiateWireFormatAndCompression(PacketDecoder handshakePacket, PacketFrameReader in, PacketFrameWriter out,
+                                                      MultiPacketTransfers transfers) {
+        boolean requestedWireFormat = handshakePacket.containsArg(PacketArgKey.WIRE_FORMAT);
+        boolean requestedCompression = handshakePacket.containsArg(PacketArgKey.COMPRESSION);
+        if (!requestedWireFormat && !requestedCompression) {
+            return true;
+        }
+        WireFormat wireFormat = WireFormat.valueOfOrText(handshakePacket.getArg(PacketArgKey.WIRE_FORMAT));
+        PacketEncoder ackPacket = new PacketEncoder();
+        if (requestedWireFormat) {
+            in.setWireFormat(wireFormat);
+            ackPacket.setArg(PacketArgKey.WIRE_FORMAT, wireFormat.name());
+        }
+        if (requestedCompression) {
+            Compression compression = transfers.negotiateCompression(handshakePacket.getArg(PacketArgKey.COMPRESSION));
+            ackPacket.setArg(PacketArgKey.COMPRESSION, compression.name());
+            Logging.consoleLog("Using " + compression + " compression for the new slave\n");
+        }
+        if (!out.writePacket(ackPacket)) {
+            Logging.consoleLogAndAppendToGUILogs("Error starting slave input / output threads - unable to send the wire format to the slave - slave not added to system\n", logsTextArea);
+            return false;
+        }
+        if (requestedWireFormat) {
+            out.setWireFormat(wireFormat);
+            Logging.consoleLog("Using the " + wireFormat + " wire format for the new slave\n");
+        }
+        return true;
+    }
 }
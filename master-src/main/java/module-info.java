@@ -7,7 +7,8 @@ module main.master {
     opens main.classes to javafx.fxml;
     exports main.classes;
     opens main.enums;
-    exports main.enums to javafx.fxml;
+    exports main.enums;
+    exports main.scheduling;
     exports PacketCommunication.enums;
     opens PacketCommunication.enums to javafx.fxml;
     exports PacketCommunication;
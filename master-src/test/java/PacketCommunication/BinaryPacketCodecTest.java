@@ -0,0 +1,152 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.PacketArgKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryPacketCodecTest {
+    /**
+     * Encode the given packet and decode it again, skipping the length field as the frame decoder does
+     */
+    private static PacketDecoder roundTrip(PacketEncoder packet) {
+        byte[] bytes = BinaryPacketCodec.encode(packet);
+        assertEquals(bytes.length - BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES, BinaryPacketCodec.readLengthField(bytes, 0));
+        return BinaryPacketCodec.decode(bytes, BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES, bytes.length - BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES);
+    }
+
+    @Test
+    void roundTripsEachArgType() {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.REQUEST_TYPE, "JOB");
+        packet.setArg(PacketArgKey.PARALLELISM, -17);
+        packet.setArg(PacketArgKey.COMPLETED, true);
+        packet.setArg(PacketArgKey.JOB_SUCCEEDED, false);
+        packet.setArg(PacketArgKey.JOB_ID, (1L << 47) + 5);
+        packet.setArg(PacketArgKey.MISSING_PACKET_NUMS, new Integer[]{3, 9});
+        packet.setMessage("h\u00e9llo\nworld");
+
+        PacketDecoder decoded = roundTrip(packet);
+        assertEquals("JOB", decoded.getArg(PacketArgKey.REQUEST_TYPE));
+        assertEquals(-17, decoded.getIntArg(PacketArgKey.PARALLELISM));
+        assertTrue(decoded.getBooleanArg(PacketArgKey.COMPLETED));
+        assertFalse(decoded.getBooleanArg(PacketArgKey.JOB_SUCCEEDED));
+        assertEquals((1L << 47) + 5, decoded.getLongArg(PacketArgKey.JOB_ID));
+        assertArrayEquals(new int[]{3, 9}, decoded.getIntArrayArg(PacketArgKey.MISSING_PACKET_NUMS));
+        assertEquals("h\u00e9llo\nworld", decoded.getMessage());
+    }
+
+    @Test
+    void roundTripsExtremeNumbers() {
+        for (long value : new long[]{0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L,
+                Integer.MIN_VALUE - 1L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            PacketEncoder packet = new PacketEncoder();
+            packet.setArg(PacketArgKey.JOB_ID, value);
+            assertEquals(value, roundTrip(packet).getLongArg(PacketArgKey.JOB_ID));
+        }
+    }
+
+    @Test
+    void encodesLongsAsVarlongs() {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, (1L << 40) + 1);
+        long[] ids = new long[100];
+        Arrays.setAll(ids, i -> (1L << 40) + i);
+        packet.setArg(PacketArgKey.MESSAGE_LENGTHS, ids);
+
+        PacketDecoder decoded = roundTrip(packet);
+        assertEquals((1L << 40) + 1, decoded.getLongArg(PacketArgKey.JOB_ID));
+        assertArrayEquals(ids, decoded.getLongArrayArg(PacketArgKey.MESSAGE_LENGTHS));
+        // each id takes up 6 bytes as a zigzag varlong, rather than 13 digits and a separator as a String
+        assertTrue(BinaryPacketCodec.encode(packet).length < 700);
+    }
+
+    @Test
+    void writesLongArraysAsTextArrays() {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, new long[]{1L << 40, 2});
+        PacketDecoder decoded = new PacketDecoder(packet.getPacketString());
+        assertArrayEquals(new long[]{1L << 40, 2}, decoded.getLongArrayArg(PacketArgKey.JOB_ID));
+        assertEquals("[1099511627776,2]", roundTrip(packet).getArg(PacketArgKey.JOB_ID));
+    }
+
+    @Test
+    void roundTripsPayloadChunk() {
+        byte[] payload = new byte[300];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.SEQUENCE_NUM, 2);
+        packet.setPayload(payload, 100, 250);
+
+        byte[] bytes = BinaryPacketCodec.encode(packet);
+        assertTrue(bytes.length < 150 + 16);  // the chunk is sent as raw bytes, not hex
+        PacketDecoder decoded = roundTrip(packet);
+        assertArrayEquals(Arrays.copyOfRange(payload, 100, 250), decoded.getPayload());
+    }
+
+    @Test
+    void roundTripsEmptyPacket() {
+        PacketDecoder decoded = roundTrip(new PacketEncoder());
+        assertNull(decoded.getArg(PacketArgKey.JOB_ID));
+        assertEquals("", decoded.getMessage());
+    }
+
+    @Test
+    void rejectsWrongMagicByte() {
+        byte[] bytes = BinaryPacketCodec.encode(new PacketEncoder());
+        bytes[BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> BinaryPacketCodec.decode(bytes, BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES,
+                bytes.length - BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES));
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, Long.MAX_VALUE);
+        packet.setArg(PacketArgKey.MESSAGE_LENGTHS, new long[]{1, 2, 3});
+        packet.setArg(PacketArgKey.JOB_TYPE, "TYPE_A");
+        packet.setMessage("message");
+        byte[] bytes = BinaryPacketCodec.encode(packet);
+        for (int length = 0; length < bytes.length - BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES; length++) {
+            int truncatedLength = length;
+            assertThrows(IllegalArgumentException.class,
+                    () -> BinaryPacketCodec.decode(bytes, BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES, truncatedLength));
+        }
+    }
+
+    @Test
+    void rejectsInvalidArgKeyAndType() {
+        // magic, no flags, 1 arg with the given key ordinal and type byte, followed by an empty message
+        byte[] invalidKey = {(byte) 0xB1, 0, 1, 127, 1, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> BinaryPacketCodec.decode(invalidKey, 0, invalidKey.length));
+        byte[] invalidType = {(byte) 0xB1, 0, 1, 0, 9, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> BinaryPacketCodec.decode(invalidType, 0, invalidType.length));
+    }
+
+    @Test
+    void rejectsOversizedLongArrayCount() {
+        // magic, no flags, 1 arg (JOB_ID) holding a long array whose count is far larger than the packet
+        byte[] bytes = {(byte) 0xB1, 0, 1, (byte) PacketArgKey.JOB_ID.ordinal(), 4, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F};
+        assertThrows(IllegalArgumentException.class, () -> BinaryPacketCodec.decode(bytes, 0, bytes.length));
+    }
+
+    @Test
+    void rejectsMalformedVarlong() {
+        byte[] bytes = new byte[16];
+        bytes[0] = (byte) 0xB1;
+        bytes[2] = 1;
+        bytes[3] = (byte) PacketArgKey.JOB_ID.ordinal();
+        bytes[4] = 3;
+        Arrays.fill(bytes, 5, bytes.length, (byte) 0x80);  // no byte ends the varlong
+        assertThrows(IllegalArgumentException.class, () -> BinaryPacketCodec.decode(bytes, 0, bytes.length));
+    }
+}
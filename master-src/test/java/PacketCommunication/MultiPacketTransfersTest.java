@@ -0,0 +1,190 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.Compression;
+import PacketCommunication.enums.PacketArgKey;
+import PacketCommunication.enums.WireFormat;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiPacketTransfersTest {
+    private static final String ID = "7";
+    private static final int MAX_CHUNK_LENGTH = 1000;
+
+    /**
+     * A sender and a receiver, connected by a queue of packets in each direction
+     */
+    private static class Link {
+        final MultiPacketTransfers sender;
+        final MultiPacketTransfers receiver;
+        final WireFormat wireFormat;
+        final ArrayDeque<PacketDecoder> toReceiver = new ArrayDeque<>();
+        final ArrayDeque<PacketDecoder> toSender = new ArrayDeque<>();
+        final List<Integer> sequenceNumsSent = new ArrayList<>();
+        Predicate<Integer> corruptPacket = sequenceNum -> false;  // called with the sequence number of each packet sent
+
+        Link(MultiPacketTransfers sender, MultiPacketTransfers receiver, WireFormat wireFormat) {
+            this.sender = sender;
+            this.receiver = receiver;
+            this.wireFormat = wireFormat;
+        }
+
+        boolean sendToReceiver(PacketEncoder packet) {
+            int sequenceNum = (Integer) packet.getArgValues().get(PacketArgKey.SEQUENCE_NUM);
+            sequenceNumsSent.add(sequenceNum);
+            if (corruptPacket.test(sequenceNum)) {
+                // cut the chunk short, so that the receiver can't use it
+                packet.setPayload(packet.getPayload(), packet.getPayloadFrom(), packet.getPayloadTo() - 1);
+            }
+            toReceiver.add(transmit(packet, wireFormat));
+            return true;
+        }
+
+        boolean sendToSender(PacketEncoder packet) {
+            toSender.add(transmit(packet, wireFormat));
+            return true;
+        }
+
+        /**
+         * Send the payload, announced by a packet of its own, and deliver packets until neither side has any left
+         * @return the transfer as the receiver finished it, or <code>null</code> if it never did
+         */
+        MultiPacketTransfers.ReceivedTransfer transfer(byte[] payload) {
+            PacketEncoder firstPacket = new PacketEncoder();
+            firstPacket.setArg(PacketArgKey.JOB_ID, ID);
+            byte[] sentPayload = sender.compress(payload, firstPacket);
+            assertTrue(receiver.startReceiving(ID, transmit(firstPacket, wireFormat), payload.length));
+
+            HashMap<PacketArgKey, String> args = new HashMap<>();
+            args.put(PacketArgKey.JOB_ID, ID);
+            assertTrue(sender.send(ID, new MultiPacketEncoder(args, new HashMap<>(), sentPayload, MAX_CHUNK_LENGTH), this::sendToReceiver));
+            MultiPacketTransfers.ReceivedTransfer done = null;
+            while (!toReceiver.isEmpty() || !toSender.isEmpty()) {
+                while (!toReceiver.isEmpty()) {
+                    MultiPacketTransfers.ReceivedTransfer transfer = receiver.onTransferPacket(toReceiver.poll(), this::sendToSender);
+                    if (transfer != null) {
+                        done = transfer;
+                    }
+                }
+                while (!toSender.isEmpty()) {
+                    assertTrue(sender.onMissingPacketsPacket(toSender.poll(), this::sendToReceiver));
+                }
+            }
+            return done;
+        }
+    }
+
+    private static PacketDecoder transmit(PacketEncoder packet, WireFormat wireFormat) {
+        if (wireFormat == WireFormat.TEXT) {
+            return new PacketDecoder(packet.getPacketString());
+        }
+        byte[] bytes = BinaryPacketCodec.encode(packet);
+        return BinaryPacketCodec.decode(bytes, BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES, bytes.length - BinaryPacketCodec.LENGTH_FIELD_NUM_BYTES);
+    }
+
+    private static byte[] getRandomPayload(int length) {
+        byte[] payload = new byte[length];
+        new Random(length).nextBytes(payload);
+        return payload;
+    }
+
+    @Test
+    void transfersPayloadInEachWireFormat() {
+        for (WireFormat wireFormat : WireFormat.values()) {
+            byte[] payload = getRandomPayload(10 * MAX_CHUNK_LENGTH + 1);
+            Link link = new Link(new MultiPacketTransfers(MAX_CHUNK_LENGTH), new MultiPacketTransfers(MAX_CHUNK_LENGTH), wireFormat);
+            MultiPacketTransfers.ReceivedTransfer transfer = link.transfer(payload);
+            assertNotNull(transfer);
+            assertArrayEquals(payload, transfer.getPayload());
+            assertEquals(11, link.sequenceNumsSent.size());
+        }
+    }
+
+    @Test
+    void resendsOnlyMissingPackets() {
+        byte[] payload = getRandomPayload(10 * MAX_CHUNK_LENGTH);
+        Link link = new Link(new MultiPacketTransfers(MAX_CHUNK_LENGTH), new MultiPacketTransfers(MAX_CHUNK_LENGTH), WireFormat.BINARY);
+        boolean[] corrupted = new boolean[10];
+        link.corruptPacket = sequenceNum -> {
+            if ((sequenceNum == 2 || sequenceNum == 5) && !corrupted[sequenceNum]) {
+                corrupted[sequenceNum] = true;
+                return true;
+            }
+            return false;
+        };
+        MultiPacketTransfers.ReceivedTransfer transfer = link.transfer(payload);
+        assertNotNull(transfer);
+        assertArrayEquals(payload, transfer.getPayload());
+        assertEquals(List.of(2, 5), link.sequenceNumsSent.subList(10, link.sequenceNumsSent.size()).stream().sorted().toList());
+    }
+
+    @Test
+    void givesUpAfterMaxMissingPacketsRequests() {
+        byte[] payload = getRandomPayload(4 * MAX_CHUNK_LENGTH);
+        Link link = new Link(new MultiPacketTransfers(MAX_CHUNK_LENGTH), new MultiPacketTransfers(MAX_CHUNK_LENGTH), WireFormat.TEXT);
+        link.corruptPacket = sequenceNum -> sequenceNum == 1;
+        MultiPacketTransfers.ReceivedTransfer transfer = link.transfer(payload);
+        assertNotNull(transfer);
+        assertFalse(transfer.isComplete());
+        assertNull(transfer.getPayload());
+        assertEquals(4 + MultiPacketTransfers.MAX_MISSING_PACKETS_REQUESTS, link.sequenceNumsSent.size());
+    }
+
+    @Test
+    void compressesOnceNegotiated() {
+        byte[] payload = "A job result that repeats itself. ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        MultiPacketTransfers sender = new MultiPacketTransfers(MAX_CHUNK_LENGTH, Compression.DEFLATE, MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD);
+        MultiPacketTransfers receiver = new MultiPacketTransfers(MAX_CHUNK_LENGTH, Compression.DEFLATE, MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD);
+        assertEquals(Compression.DEFLATE, receiver.negotiateCompression(Compression.DEFLATE.name()));
+        assertEquals(Compression.DEFLATE, sender.negotiateCompression(Compression.DEFLATE.name()));
+        Link link = new Link(sender, receiver, WireFormat.BINARY);
+
+        MultiPacketTransfers.ReceivedTransfer transfer = link.transfer(payload);
+        assertNotNull(transfer);
+        assertTrue(transfer.getFirstPacket().containsArg(PacketArgKey.COMPRESSED_LENGTH));
+        assertArrayEquals(payload, transfer.getPayload());
+        assertTrue(link.sequenceNumsSent.size() < payload.length / MAX_CHUNK_LENGTH / 10);
+    }
+
+    @Test
+    void leavesSmallOrUnnegotiatedPayloadsUncompressed() {
+        MultiPacketTransfers transfers = new MultiPacketTransfers(MAX_CHUNK_LENGTH, Compression.DEFLATE, MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD);
+        byte[] payload = new byte[10 * MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD];
+        PacketEncoder firstPacket = new PacketEncoder();
+        assertEquals(payload, transfers.compress(payload, firstPacket));  // the peer hasn't agreed to any compression yet
+
+        assertEquals(Compression.NONE, transfers.negotiateCompression("ZSTD"));
+        assertEquals(payload, transfers.compress(payload, firstPacket));
+        assertEquals(Compression.DEFLATE, transfers.negotiateCompression(Compression.DEFLATE.name()));
+        byte[] smallPayload = new byte[MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD - 1];
+        assertEquals(smallPayload, transfers.compress(smallPayload, firstPacket));
+        assertTrue(firstPacket.getArgValues().isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidLengths() {
+        MultiPacketTransfers transfers = new MultiPacketTransfers(MAX_CHUNK_LENGTH);
+        PacketEncoder firstPacket = new PacketEncoder();
+        firstPacket.setArg(PacketArgKey.JOB_ID, ID);
+        assertFalse(transfers.startReceiving(ID, transmit(firstPacket, WireFormat.BINARY), -1));
+        assertFalse(transfers.startReceiving(ID, transmit(firstPacket, WireFormat.BINARY), MultiPacketTransfers.MAX_PAYLOAD_LENGTH + 1));
+
+        firstPacket.setArg(PacketArgKey.COMPRESSED_LENGTH, MultiPacketTransfers.MAX_PAYLOAD_LENGTH + 1);
+        assertFalse(transfers.startReceiving(ID, transmit(firstPacket, WireFormat.BINARY), 100));
+        firstPacket.setArg(PacketArgKey.COMPRESSED_LENGTH, "abc");
+        assertFalse(transfers.startReceiving(ID, transmit(firstPacket, WireFormat.TEXT), 100));
+    }
+}
@@ -0,0 +1,92 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.PacketArgKey;
+import PacketCommunication.enums.WireFormat;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketFrameDecoderTest {
+    @Test
+    void decodesLargeTextBatchPacket() {
+        int numJobs = 5000;
+        Object[] jobIds = new Object[numJobs];
+        Object[] jobTypes = new Object[numJobs];
+        Object[] jobsSucceeded = new Object[numJobs];
+        Object[] messageLengths = new Object[numJobs];
+        long[] expectedIds = new long[numJobs];
+        for (int i = 0; i < numJobs; i++) {
+            expectedIds[i] = (1L << 40) + i;
+            jobIds[i] = expectedIds[i];
+            jobTypes[i] = i % 2 == 0 ? "A" : "B";
+            jobsSucceeded[i] = false;
+            messageLengths[i] = 0;
+        }
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, jobIds);
+        packet.setArg(PacketArgKey.JOB_TYPE, jobTypes);
+        packet.setArg(PacketArgKey.JOB_SUCCEEDED, jobsSucceeded);
+        packet.setArg(PacketArgKey.MESSAGE_LENGTHS, messageLengths);
+        byte[] bytes = packet.getPacketString().getBytes(StandardCharsets.UTF_8);
+
+        int frameLength = PacketFrameDecoder.getFrameLength(bytes, 0, bytes.length, WireFormat.TEXT);
+        assertEquals(bytes.length, frameLength);
+        PacketDecoder decoded = PacketFrameDecoder.decode(bytes, 0, frameLength, WireFormat.TEXT);
+        assertNotNull(decoded);
+        assertArrayEquals(expectedIds, decoded.getLongArrayArg(PacketArgKey.JOB_ID));
+        assertEquals(numJobs, decoded.getIntArrayArg(PacketArgKey.MESSAGE_LENGTHS).length);
+    }
+
+    @Test
+    void reportsIncompleteTextFrame() {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, 7);
+        packet.setMessage("result");
+        byte[] bytes = packet.getPacketString().getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(PacketFrameDecoder.INCOMPLETE, PacketFrameDecoder.getFrameLength(bytes, 0, bytes.length - 1, WireFormat.TEXT));
+        assertEquals(bytes.length, PacketFrameDecoder.getFrameLength(bytes, 0, bytes.length, WireFormat.TEXT));
+    }
+
+    @Test
+    void rejectsFrameWithoutLengthIndicator() {
+        byte[] bytes = "JOB_ID:7\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> PacketFrameDecoder.getFrameLength(bytes, 0, bytes.length, WireFormat.TEXT));
+    }
+
+    @Test
+    void rejectsTextLengthOverMax() {
+        byte[] bytes = ("(" + (BinaryPacketCodec.MAX_PACKET_LENGTH + 1)).getBytes(StandardCharsets.UTF_8);
+        // rejected before the length indicator is even complete, rather than waiting for the packet's bytes
+        assertThrows(IllegalArgumentException.class, () -> PacketFrameDecoder.getFrameLength(bytes, 0, bytes.length, WireFormat.TEXT));
+        byte[] maxLength = ("(" + BinaryPacketCodec.MAX_PACKET_LENGTH + ")").getBytes(StandardCharsets.UTF_8);
+        assertEquals(PacketFrameDecoder.INCOMPLETE, PacketFrameDecoder.getFrameLength(maxLength, 0, maxLength.length, WireFormat.TEXT));
+    }
+
+    @Test
+    void rejectsMalformedTextPacket() {
+        byte[] bytes = "(17)JOB_ID:[1,,2]\nmsg".getBytes(StandardCharsets.UTF_8);
+        assertNull(PacketFrameDecoder.decode(bytes, 0, bytes.length, WireFormat.TEXT));
+    }
+
+    @Test
+    void acceptsEveryPrefixOfValidTextPacket() {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, 5);
+        packet.setArg(PacketArgKey.MISSING_PACKET_NUMS, new Integer[]{1, 7});
+        packet.setMessage("line1\nline2");
+        String packetString = packet.getPacketString();
+        for (int length = 1; length <= packetString.length(); length++) {
+            assertTrue(new PacketDecoder(packetString.substring(0, length)).isValidPacketSoFar(), packetString.substring(0, length));
+        }
+        assertFalse(new PacketDecoder("(5)JOB-ID").isValidPacketSoFar());
+    }
+}
@@ -0,0 +1,41 @@
+package PacketCommunication;
+
+import PacketCommunication.enums.PacketArgKey;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PacketFrameReaderTest {
+    private static PacketFrameReader getReader(String packets) {
+        return new PacketFrameReader(new ByteArrayInputStream(packets.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsConsecutiveTextPackets() throws IOException {
+        PacketEncoder first = new PacketEncoder();
+        first.setArg(PacketArgKey.JOB_ID, 1);
+        first.setMessage("r\u00e9sult");
+        PacketEncoder second = new PacketEncoder();
+        second.setArg(PacketArgKey.JOB_ID, 2);
+        PacketFrameReader reader = getReader(first.getPacketString() + second.getPacketString());
+
+        PacketDecoder packet = reader.readPacket();
+        assertEquals(1, packet.getIntArg(PacketArgKey.JOB_ID));
+        assertEquals("r\u00e9sult", packet.getMessage());
+        assertEquals(2, reader.readPacket().getIntArg(PacketArgKey.JOB_ID));
+        assertNull(reader.readPacket());
+    }
+
+    @Test
+    void rejectsTextLengthOverMaxBeforeAllocating() {
+        PacketFrameReader reader = getReader("(" + (BinaryPacketCodec.MAX_PACKET_LENGTH + 1) + ")JOB_ID:1\n");
+        assertThrows(IOException.class, reader::readPacket);
+        assertThrows(IOException.class, () -> getReader("(999999999)JOB_ID:1\n").readPacket());
+    }
+}
@@ -0,0 +1,70 @@
+package PacketCommunication.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionTest {
+    private static byte[] getRepetitiveData(int length) {
+        byte[] data = new byte[length];
+        byte[] pattern = "JOB_RESULT_".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < length; i++) {
+            data[i] = pattern[i % pattern.length];
+        }
+        return data;
+    }
+
+    @Test
+    void roundTripsDeflate() {
+        byte[] data = getRepetitiveData(100_000);
+        byte[] compressed = Compression.DEFLATE.compress(data);
+        assertNotNull(compressed);
+        assertTrue(compressed.length < data.length / 10);
+        assertArrayEquals(data, Compression.DEFLATE.decompress(compressed, data.length));
+    }
+
+    @Test
+    void skipsDataThatDoesNotShrink() {
+        byte[] data = new byte[4096];
+        new Random(42).nextBytes(data);
+        assertNull(Compression.DEFLATE.compress(data));
+        assertNull(Compression.DEFLATE.compress(new byte[0]));
+        assertNull(Compression.NONE.compress(getRepetitiveData(4096)));
+    }
+
+    @Test
+    void rejectsWrongLength() {
+        byte[] data = getRepetitiveData(10_000);
+        byte[] compressed = Compression.DEFLATE.compress(data);
+        assertNull(Compression.DEFLATE.decompress(compressed, data.length - 1));
+        assertNull(Compression.DEFLATE.decompress(compressed, data.length + 1));
+        assertNull(Compression.NONE.decompress(data, data.length + 1));
+        assertArrayEquals(data, Compression.NONE.decompress(data, data.length));
+    }
+
+    @Test
+    void rejectsTruncatedAndCorruptData() {
+        byte[] data = getRepetitiveData(10_000);
+        byte[] compressed = Compression.DEFLATE.compress(data);
+        assertNull(Compression.DEFLATE.decompress(Arrays.copyOf(compressed, compressed.length / 2), data.length));
+        byte[] corrupt = compressed.clone();
+        corrupt[0] ^= (byte) 0xFF;  // the zlib header
+        assertNull(Compression.DEFLATE.decompress(corrupt, data.length));
+        assertNull(Compression.DEFLATE.decompress(new byte[0], data.length));
+    }
+
+    @Test
+    void fallsBackToNoneForUnknownNames() {
+        assertEquals(Compression.DEFLATE, Compression.valueOfOrNone("DEFLATE"));
+        assertEquals(Compression.NONE, Compression.valueOfOrNone("ZSTD"));
+        assertEquals(Compression.NONE, Compression.valueOfOrNone(null));
+    }
+}
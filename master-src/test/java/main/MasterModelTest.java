@@ -0,0 +1,106 @@
+package main;
+
+import PacketCommunication.IPConnection;
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextArea;
+import main.classes.MasterJob;
+import main.classes.Slave;
+import main.enums.JobType;
+import main.tasks.DelegateJobsTask;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MasterModelTest {
+    private static final int NUM_JOBS = 1000;
+
+    @BeforeAll
+    static void startToolkit() {
+        // the model updates its GUI with Platform.runLater, which needs the JavaFX toolkit to be running
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException ignored) {  // already started
+        }
+    }
+
+    private static MasterModel getModel() {
+        return new MasterModel(new ListView<>(), new ListView<>(), new Label(), new Label(), new Label());
+    }
+
+    private static List<MasterJob> requestJobs(MasterModel model) {
+        List<MasterJob> jobs = new ArrayList<>();
+        for (int i = 0; i < NUM_JOBS; i++) {
+            jobs.add(new MasterJob(i, i % 2 == 0 ? JobType.A : JobType.B));
+        }
+        model.enqueueJobsRequested(jobs);
+        return jobs;
+    }
+
+    /**
+     * Run a DelegateJobsTask until the jobs in flight drop to 0, or a few seconds pass
+     */
+    private static void delegateUntilNoneInFlight(MasterModel model, int batchSize) throws InterruptedException {
+        DelegateJobsTask task = new DelegateJobsTask(model, new TextArea(), batchSize, 1);
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (model.getNumJobsInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        task.cancel();
+        thread.interrupt();
+    }
+
+    @Test
+    void dropsJobsRequestedWithoutSlaves() throws InterruptedException {
+        MasterModel model = getModel();
+        requestJobs(model);
+        assertEquals(NUM_JOBS, model.getNumJobsInFlight());
+        delegateUntilNoneInFlight(model, 1);
+        assertEquals(0, model.getNumJobsInFlight());
+    }
+
+    @Test
+    void dropsBatchesRequestedWithoutSlaves() throws InterruptedException {
+        MasterModel model = getModel();
+        requestJobs(model);
+        delegateUntilNoneInFlight(model, 64);
+        assertEquals(0, model.getNumJobsInFlight());
+    }
+
+    @Test
+    void dropsJobsOfRemovedSlave() throws InterruptedException {
+        MasterModel model = getModel();
+        Slave slave = new Slave(1, new IPConnection("127.0.0.1", 1), JobType.A);
+        model.addActiveSlave(slave);
+        List<MasterJob> jobs = requestJobs(model);
+        for (MasterJob job : jobs) {
+            slave.enqueueJobToRun(job);
+        }
+        assertEquals(NUM_JOBS, model.getNumJobsInFlight());
+        assertTrue(slave.getJobsInProgressIds().contains(jobs.get(0).getInternalId()));
+
+        model.removeActiveSlave(slave);
+        assertEquals(0, model.getNumJobsInFlight());
+    }
+
+    @Test
+    void dropsDuplicateResults() throws InterruptedException {
+        MasterModel model = getModel();
+        List<MasterJob> jobs = requestJobs(model);
+        MasterJob result = new MasterJob(jobs.get(0));
+        assertTrue(model.enqueueJobCompleted(result));
+        assertFalse(model.enqueueJobCompleted(new MasterJob(result)));
+        assertEquals(NUM_JOBS - 1, model.getNumJobsInFlight());
+    }
+}
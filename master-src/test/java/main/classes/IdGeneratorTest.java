@@ -0,0 +1,103 @@
+package main.classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGeneratorTest {
+    private static final long STARTUP_MILLIS = 1760000000000L;  // 2025-10-09
+
+    @Test
+    void prefixesIdsWithNodeId() {
+        for (int nodeId : new int[]{0, 1, 12345, IdGenerator.MAX_NODE_ID}) {
+            IdGenerator generator = new IdGenerator(nodeId, STARTUP_MILLIS);
+            for (int i = 0; i < 1000; i++) {
+                long id = generator.nextId();
+                assertTrue(id >= 0);
+                assertEquals(nodeId, IdGenerator.getNodeId(id));
+            }
+        }
+    }
+
+    @Test
+    void handsOutIncreasingIds() {
+        IdGenerator generator = new IdGenerator(3, STARTUP_MILLIS);
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertEquals(previous + 1, id);
+            previous = id;
+        }
+    }
+
+    @Test
+    void continuesPastPreviousRunAfterRestart() {
+        IdGenerator firstRun = new IdGenerator(7, STARTUP_MILLIS);
+        long lastId = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            lastId = firstRun.nextId();
+        }
+        // the first run handed out fewer than 2^17 ids per second, so a restart 10 seconds later starts past its ids
+        IdGenerator secondRun = new IdGenerator(7, STARTUP_MILLIS + 10_000);
+        assertTrue(secondRun.nextId() > lastId);
+    }
+
+    @Test
+    void neverCollidesAcrossNodes() {
+        IdGenerator first = new IdGenerator(1, STARTUP_MILLIS);
+        IdGenerator second = new IdGenerator(2, STARTUP_MILLIS);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+    }
+
+    @Test
+    void handsOutUniqueIdsConcurrently() throws Exception {
+        IdGenerator generator = new IdGenerator(9);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int numThreads = 8;
+        int idsPerThread = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(numThreads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void rejectsInvalidNodeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void clampsStartupBeforeEpoch() {
+        IdGenerator generator = new IdGenerator(5, 0);
+        assertEquals(5L << 48, generator.nextId());
+    }
+}
@@ -0,0 +1,128 @@
+package main.classes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory benchmark of the InFlightJobTable against the ConcurrentHashMap&lt;Long, MasterJob&gt; it replaced, with
+ * 10M jobs in flight. For each, it measures:
+ * <ul>
+ *     <li>The heap retained by the table per job, once all jobs are added</li>
+ *     <li>The bytes allocated per job while adding the jobs, and per lookup and per remove afterwards</li>
+ * </ul>
+ * All entries map to the same job, so that only the table itself is measured. This is not a JUnit test, so it isn't
+ * run with the tests; it is run on its own, with a heap big enough for both tables, e.g.
+ * <code>java -Xmx3g -cp &lt;test classes&gt;:&lt;master classes&gt; main.classes.InFlightJobTableBenchmark [numJobs]</code>
+ */
+public class InFlightJobTableBenchmark {
+    private static final int DEFAULT_NUM_JOBS = 10_000_000;
+    private static final long FIRST_ID = 1L << 48;  // ids as handed out by the IdGenerator for node 1
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The operations measured, so that both tables run the same code
+     */
+    private interface Table {
+        void put(long id, MasterJob job);
+
+        MasterJob get(long id);
+
+        MasterJob remove(long id);
+    }
+
+    public static void main(String[] args) {
+        int numJobs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_JOBS;
+        MasterJob job = new MasterJob(0);
+
+        InFlightJobTable inFlightJobTable = new InFlightJobTable();
+        run("InFlightJobTable", new Table() {
+            public void put(long id, MasterJob job) {
+                inFlightJobTable.put(id, job);
+            }
+
+            public MasterJob get(long id) {
+                return inFlightJobTable.get(id);
+            }
+
+            public MasterJob remove(long id) {
+                return inFlightJobTable.remove(id);
+            }
+        }, inFlightJobTable, numJobs, job);
+
+        Map<Long, MasterJob> concurrentHashMap = new ConcurrentHashMap<>();
+        run("ConcurrentHashMap", new Table() {
+            public void put(long id, MasterJob job) {
+                concurrentHashMap.put(id, job);
+            }
+
+            public MasterJob get(long id) {
+                return concurrentHashMap.get(id);
+            }
+
+            public MasterJob remove(long id) {
+                return concurrentHashMap.remove(id);
+            }
+        }, concurrentHashMap, numJobs, job);
+    }
+
+    private static void run(String name, Table table, Object tableInstance, int numJobs, MasterJob job) {
+        long heapBefore = getUsedHeapAfterGc();
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < numJobs; i++) {
+            table.put(FIRST_ID + i, job);
+        }
+        long putNanos = System.nanoTime() - start;
+        long putAllocated = getAllocatedBytes() - allocatedBefore;
+        long heapRetained = getUsedHeapAfterGc() - heapBefore;
+
+        allocatedBefore = getAllocatedBytes();
+        start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < numJobs; i++) {
+            if (table.get(FIRST_ID + i) != null) {
+                found++;
+            }
+        }
+        long getNanos = System.nanoTime() - start;
+        long getAllocated = getAllocatedBytes() - allocatedBefore;
+
+        allocatedBefore = getAllocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < numJobs; i++) {
+            if (table.remove(FIRST_ID + i) != null) {
+                found++;
+            }
+        }
+        long removeNanos = System.nanoTime() - start;
+        long removeAllocated = getAllocatedBytes() - allocatedBefore;
+        Reference.reachabilityFence(tableInstance);
+
+        if (found != numJobs * 2) {
+            throw new IllegalStateException(name + " lost jobs: found " + found + " of " + numJobs * 2);
+        }
+        System.out.printf("%s, %,d jobs:%n", name, numJobs);
+        System.out.printf("  heap retained: %,d MB (%.1f bytes/job)%n", heapRetained >> 20,
+                (double) heapRetained / numJobs);
+        System.out.printf("  put:    %.1f bytes allocated/job, %.0f ns/job%n",
+                (double) putAllocated / numJobs, (double) putNanos / numJobs);
+        System.out.printf("  get:    %.1f bytes allocated/job, %.0f ns/job%n",
+                (double) getAllocated / numJobs, (double) getNanos / numJobs);
+        System.out.printf("  remove: %.1f bytes allocated/job, %.0f ns/job%n",
+                (double) removeAllocated / numJobs, (double) removeNanos / numJobs);
+    }
+
+    private static long getAllocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long getUsedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
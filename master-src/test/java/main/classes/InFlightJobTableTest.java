@@ -0,0 +1,112 @@
+package main.classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class InFlightJobTableTest {
+    /**
+     * Apply the same random puts, gets and removes to the table and a HashMap, with ids drawn from the given
+     * (small, so that they are often repeated) range above <code>firstId</code>
+     */
+    private static void checkAgainstHashMap(InFlightJobTable table, long firstId, int idRange, long seed) {
+        Random random = new Random(seed);
+        HashMap<Long, MasterJob> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long id = firstId + random.nextInt(idRange);
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                MasterJob job = new MasterJob();
+                assertSame(expected.put(id, job), table.put(id, job));
+            } else if (operation == 1) {
+                assertSame(expected.get(id), table.get(id));
+            } else {
+                assertSame(expected.remove(id), table.remove(id));
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, MasterJob> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void matchesHashMapWithSequentialIds() {
+        checkAgainstHashMap(new InFlightJobTable(1), 0, 5_000, 1);
+        checkAgainstHashMap(new InFlightJobTable(), (1L << 48) * 3 + (1L << 40), 5_000, 2);
+    }
+
+    @Test
+    void matchesHashMapWithExtremeIds() {
+        checkAgainstHashMap(new InFlightJobTable(4), Long.MAX_VALUE - 3_000, 3_000, 3);
+        checkAgainstHashMap(new InFlightJobTable(4), Long.MIN_VALUE, 3_000, 4);
+        checkAgainstHashMap(new InFlightJobTable(4), -1_500, 3_000, 5);
+    }
+
+    @Test
+    void growsAndShrinks() {
+        InFlightJobTable table = new InFlightJobTable(1);
+        List<MasterJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            MasterJob job = new MasterJob();
+            jobs.add(job);
+            assertNull(table.put(job.getInternalId(), job));
+        }
+        assertEquals(jobs.size(), table.size());
+        for (MasterJob job : jobs) {
+            assertSame(job, table.remove(job.getInternalId()));
+            assertNull(table.remove(job.getInternalId()));
+        }
+        assertEquals(0, table.size());
+        assertNull(table.get(jobs.get(0).getInternalId()));
+    }
+
+    @Test
+    void handlesConcurrentUse() throws Exception {
+        InFlightJobTable table = new InFlightJobTable();
+        int numThreads = 8;
+        int jobsPerThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<List<MasterJob>>> results = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                results.add(executor.submit(() -> {
+                    // each thread adds its own jobs, and removes every other one again
+                    List<MasterJob> kept = new ArrayList<>();
+                    for (int i = 0; i < jobsPerThread; i++) {
+                        MasterJob job = new MasterJob();
+                        assertNull(table.put(job.getInternalId(), job));
+                        assertSame(job, table.get(job.getInternalId()));
+                        if (i % 2 == 0) {
+                            assertSame(job, table.remove(job.getInternalId()));
+                        } else {
+                            kept.add(job);
+                        }
+                    }
+                    return kept;
+                }));
+            }
+            List<MasterJob> kept = new ArrayList<>();
+            for (Future<List<MasterJob>> result : results) {
+                kept.addAll(result.get());
+            }
+            assertEquals(kept.size(), table.size());
+            for (MasterJob job : kept) {
+                assertSame(job, table.get(job.getInternalId()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
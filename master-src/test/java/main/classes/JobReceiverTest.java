@@ -0,0 +1,46 @@
+package main.classes;
+
+import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketEncoder;
+import PacketCommunication.enums.PacketArgKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JobReceiverTest {
+    private static PacketDecoder getBatchPacket(Integer[] messageLengths, String message) {
+        PacketEncoder packet = new PacketEncoder();
+        packet.setArg(PacketArgKey.JOB_ID, new long[]{(1L << 40), (1L << 40) + 1});
+        packet.setArg(PacketArgKey.JOB_TYPE, new Object[]{"A", "B"});
+        packet.setArg(PacketArgKey.JOB_SUCCEEDED, new Object[]{true, false});
+        packet.setArg(PacketArgKey.MESSAGE_LENGTHS, messageLengths);
+        packet.setMessage(message);
+        return new PacketDecoder(packet.getPacketString());
+    }
+
+    @Test
+    void splitsMessageIntoResults() {
+        List<MasterJob> jobs = JobReceiver.getJobsFromBatchPacket(getBatchPacket(new Integer[]{2, 3}, "abcde"), true);
+        assertNotNull(jobs);
+        assertEquals(2, jobs.size());
+        assertEquals((1L << 40) + 1, jobs.get(1).getInternalId());
+        assertEquals("ab", jobs.get(0).getResult());
+        assertEquals("cde", jobs.get(1).getResult());
+    }
+
+    @Test
+    void rejectsLengthsThatOverflowTheOffset() {
+        assertNull(JobReceiver.getJobsFromBatchPacket(getBatchPacket(new Integer[]{1, Integer.MAX_VALUE}, "a"), true));
+    }
+
+    @Test
+    void rejectsLengthsThatDontMatchTheMessage() {
+        assertNull(JobReceiver.getJobsFromBatchPacket(getBatchPacket(new Integer[]{2, 4}, "abcde"), true));
+        assertNull(JobReceiver.getJobsFromBatchPacket(getBatchPacket(new Integer[]{2, 2}, "abcde"), true));
+        assertNull(JobReceiver.getJobsFromBatchPacket(getBatchPacket(new Integer[]{-1, 6}, "abcde"), true));
+    }
+}
@@ -0,0 +1,25 @@
+package PacketCommunication.enums;
+
+/**
+ * The formats a packet can be sent in. Peers start out using TEXT and may agree on a different format while connecting.
+ * <ul>
+ *     <li>TEXT - the original '(length)KEY:VALUE,...\nmessage' format</li>
+ *     <li>BINARY - a length-prefixed format with args keyed by ordinal and ints written as varints (see BinaryPacketCodec)</li>
+ * </ul>
+ */
+public enum WireFormat {
+    TEXT,
+    BINARY;
+
+    /**
+     * @return the wire format with the given name, or TEXT if there is no such format (e.g., one from a newer peer)
+     */
+    public static WireFormat valueOfOrText(String name) {
+        for (WireFormat wireFormat : values()) {
+            if (wireFormat.name().equals(name)) {
+                return wireFormat;
+            }
+        }
+        return TEXT;
+    }
+}
@@ -26,6 +26,7 @@ public class SlaveApplication extends Application {
     private FXMLLoader fxmlLoader;
     private Stage stage;
     private JobType slaveType;
+    private SlaveSettings settings;
     private Label label;
     private ChoiceBox<JobType> slaveTypeChoiceBox;
     private Button setSlaveTypeButton;
@@ -43,6 +44,7 @@ public class SlaveApplication extends Application {
     public void start(Stage stage) throws IOException {
         fxmlLoader = new FXMLLoader(SlaveApplication.class.getResource("slave-view.fxml"));
         this.stage = stage;
+        settings = SlaveSettings.fromNamedParameters(getParameters().getNamed());
 
         // Retrieve the job type that this slave is optimized for by reading the first command-line argument
         // If a command-line argument is not provided or an invalid one is provided, display a popup to get it
@@ -67,7 +69,7 @@ public class SlaveApplication extends Application {
         stage.setTitle("Slave - Type " + slaveType);
         stage.setScene(scene);
         SlaveController controller = fxmlLoader.getController();
-        controller.init(slaveType);
+        controller.init(slaveType, settings);
         stage.show();
     }
 
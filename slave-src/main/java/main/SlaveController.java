@@ -7,6 +7,8 @@ import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import main.enums.JobType;
+import main.handlers.JobHandlers;
+import main.kernels.BenchmarkKernels;
 import main.tasks.ConnectToMasterTask;
 import main.tasks.ExecuteJobsTask;
 
@@ -18,6 +20,8 @@ public class SlaveController {
     private final int PORT_NUM = 30000;  // slaves communicate on a different port number than clients so that they don't interfere
     private IPConnection ipConnection;
     private SlaveModel slaveModel;
+    private SlaveSettings settings;
+    private JobHandlers jobHandlers;  // the handler used to execute the jobs of each JobType
     private ConnectToMasterTask connectToMasterTask;
     private ExecuteJobsTask executeJobsTask;
 
@@ -40,12 +44,16 @@ public class SlaveController {
     public ListView<String> completedJobsListView;
 
     /**
-     * Instantiates the slave model with the job type that it is optimized for.
+     * Instantiates the slave model with the job type that it is optimized for, and loads the job handlers.
      * This is called by the SlaveApplication class when the application is started.
      * (we specifically call our own 'init' method as opposed to FXML's initialize so that we can have it run after the
-     * application is fully started and so that we can pass in the jobtype)
+     * application is fully started and so that we can pass in the jobtype and settings)
      * */
-    public void init(JobType jobType) {
+    public void init(JobType jobType, SlaveSettings settings) {
+        this.settings = settings;
+        this.jobHandlers = JobHandlers.load();
+        Logging.consoleLog("Benchmark jobs will use " + (BenchmarkKernels.isUsingVectorApi() ? "the Vector API" : "scalar kernels")
+                + "\n");
         slaveModel = new SlaveModel(jobType, pendingJobsListView, completedJobsListView, pendingJobsHeaderLabel, completedJobsHeaderLabel);
     }
 
@@ -84,7 +92,7 @@ public class SlaveController {
      * terminated.
      * */
     private ConnectToMasterTask getConnectToMasterTask() {
-        ConnectToMasterTask task = new ConnectToMasterTask(ipConnection, slaveModel, statusLogsTextArea);
+        ConnectToMasterTask task = new ConnectToMasterTask(ipConnection, slaveModel, settings, statusLogsTextArea);
         // disable controls prior to running task and re-enable if connection isn't established or is
         // terminated at any point
         masterIpTextField.setDisable(true);
@@ -105,7 +113,7 @@ public class SlaveController {
      * @return the ExecuteJobsTask, responsible for executing the jobs received from the Master
      * */
     private ExecuteJobsTask getExecuteJobsTask() {
-        ExecuteJobsTask executeJobsTask = new ExecuteJobsTask(slaveModel, statusLogsTextArea);
+        ExecuteJobsTask executeJobsTask = new ExecuteJobsTask(slaveModel, jobHandlers, settings.getParallelism(), statusLogsTextArea);
         statusLabel.textProperty().bind(executeJobsTask.messageProperty());
         return executeJobsTask;
     }
@@ -7,15 +7,20 @@ import javafx.scene.control.ListView;
 import main.classes.Job;
 import main.enums.JobType;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class holds all the Job data for the Slave's core operations.
  * This includes <code><i>BlockingQueues</i></code> for the jobs requested as well as for the jobs that have
  * already been completed.
+ * Only the number of jobs requested and completed is kept for good. The completed jobs list in the GUI shows only the
+ * most recent MAX_COMPLETED_JOBS_SHOWN jobs, so that the slave's memory doesn't grow with its uptime.
  */
 public class SlaveModel {
+    public static final int MAX_COMPLETED_JOBS_SHOWN = 1000;
     /**
      * Holds all the jobs requested that have not yet been executed.
      * The queue is <i>enqueued</i> as new job requests are received (handled by the ReceiveJobRequestsTask).
@@ -28,8 +33,8 @@ public class SlaveModel {
      * The queue is <i>dequeued</i> when a job is ready to be sent back to the master (handled by the SendJobResultsTask).
      */
     private final LinkedBlockingQueue<Job> jobsToSendQueue = new LinkedBlockingQueue<>();
-    private final ArrayList<Job> allJobsRequested = new ArrayList<>();
-    private final ArrayList<Job> allJobsCompleted = new ArrayList<>();
+    private final LongAdder numJobsRequested = new LongAdder();
+    private final LongAdder numJobsCompleted = new LongAdder();
     private final JobType slaveOptimizedForType;
 
     // GUI items
@@ -55,9 +60,7 @@ public class SlaveModel {
      */
     public void enqueueJobToRun(Job jobToRun) throws InterruptedException {
         jobsToRunQueue.put(new Job(jobToRun));  // synchronization not needed here because the queue is thread-safe
-        synchronized (allJobsRequested) {
-            allJobsRequested.add(new Job(jobToRun));
-        }
+        numJobsRequested.increment();
         Platform.runLater(() -> {
             pendingJobsListView.getItems().add(jobToRun.toString());
             pendingJobsHeaderLabel.setText("Pending Jobs (" + pendingJobsListView.getItems().size() + ")");
@@ -76,13 +79,14 @@ public class SlaveModel {
      */
     public void enqueueJobToSend(Job jobCompleted) throws InterruptedException {
         jobsToSendQueue.put(new Job(jobCompleted));
-        synchronized (allJobsCompleted) {
-            allJobsCompleted.add(new Job(jobCompleted));
-        }
+        numJobsCompleted.increment();
         Platform.runLater(() -> {
             completedJobsListView.getItems().add(0, jobCompleted.toString());
+            if (completedJobsListView.getItems().size() > MAX_COMPLETED_JOBS_SHOWN) {
+                completedJobsListView.getItems().remove(MAX_COMPLETED_JOBS_SHOWN);
+            }
             pendingJobsListView.getItems().removeIf(jobStr -> jobCompleted.equals(new Job(jobStr)));
-            completedJobsHeaderLabel.setText("Completed Jobs (" + completedJobsListView.getItems().size() + ")");
+            completedJobsHeaderLabel.setText("Completed Jobs (" + numJobsCompleted.sum() + ")");
             pendingJobsHeaderLabel.setText("Pending Jobs" + (!pendingJobsListView.getItems().isEmpty() ? " (" +
                     pendingJobsListView.getItems().size() + ")" : ""));
         });
@@ -94,4 +98,42 @@ public class SlaveModel {
     public Job dequeJobToSend() throws InterruptedException {
         return jobsToSendQueue.take();
     }
+
+    /**
+     * @return the number of jobs ever requested from this slave
+     */
+    public long getNumJobsRequested() {
+        return numJobsRequested.sum();
+    }
+
+    /**
+     * @return the number of jobs ever completed by this slave
+     */
+    public long getNumJobsCompleted() {
+        return numJobsCompleted.sum();
+    }
+
+    /**
+     * Deque a batch of completed jobs to be returned to the master together. This waits for at least one job, and
+     * then takes any other jobs already completed, waiting up to <code>maxWaitMicros</code> for more to complete,
+     * until there are <code>maxJobs</code> jobs.
+     *
+     * @param jobs the collection to add the jobs to
+     * @return the number of jobs added
+     */
+    public int dequeJobsToSend(Collection<Job> jobs, int maxJobs, long maxWaitMicros) throws InterruptedException {
+        jobs.add(jobsToSendQueue.take());
+        int numJobs = 1 + jobsToSendQueue.drainTo(jobs, maxJobs - 1);
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        long remainingNanos;
+        while (numJobs < maxJobs && (remainingNanos = deadline - System.nanoTime()) > 0) {
+            Job job = jobsToSendQueue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+            if (job == null) {
+                break;
+            }
+            jobs.add(job);
+            numJobs += 1 + jobsToSendQueue.drainTo(jobs, maxJobs - numJobs - 1);
+        }
+        return numJobs;
+    }
 }
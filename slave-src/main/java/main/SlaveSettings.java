@@ -0,0 +1,156 @@
+package main;
+
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.enums.Compression;
+import PacketCommunication.enums.WireFormat;
+import main.classes.JobSender;
+
+import java.util.Map;
+
+/**
+ * This class holds the Slave's optional settings, which are read from named command-line arguments, e.g.,
+ * <code>--wireFormat=TEXT</code>. Any setting that is not provided, or is invalid, keeps its default value.
+ * <ul>
+ *     <li><code>wireFormat</code> - the wire format to ask the master to use for this slave's connection.
+ *     Defaults to BINARY. TEXT is never negotiated, so a slave set to TEXT can connect to a master that does not support
+ *     negotiating a wire format.</li>
+ *     <li><code>parallelism</code> - the number of jobs this slave executes at once, each on its own thread of a fixed
+ *     pool. Defaults to 1. The parallelism is sent to the master in the handshake packet, so that it can estimate how
+ *     soon this slave completes the jobs assigned to it.</li>
+ *     <li><code>maxChunkLength</code> - the maximum length of each chunk of a job's result sent in packets of its own
+ *     (see MultiPacketTransfers). Results no longer than this are sent in the job's own packet. Defaults to
+ *     MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH.</li>
+ *     <li><code>compression</code> - the compression to ask the master to use for the inputs and results sent in
+ *     packets of their own (see Compression). Defaults to NONE, which is never negotiated, so that this slave can
+ *     connect to a master that does not support compression.</li>
+ *     <li><code>compressionThreshold</code> - the minimum length, in bytes, of a result to compress. Defaults to
+ *     MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD.</li>
+ *     <li><code>resultBatchSize</code> - the maximum number of completed jobs sent to the master together, as one batch
+ *     (see SendJobResultsTask). Defaults to 1, i.e., each job is sent on its own, as soon as it is completed, and is
+ *     at most JobSender.MAX_BATCH_SIZE. Batches are only understood by masters that support them.</li>
+ *     <li><code>resultBatchMaxWait</code> - how long, in microseconds, to wait for more jobs to fill up a batch once
+ *     the first job of the batch is completed. Defaults to 0, i.e., a batch is only made up of jobs already
+ *     completed.</li>
+ *     <li><code>credits</code> - the number of jobs the master may send this slave before it gets their results back,
+ *     i.e., the jobs running plus those waiting in this slave's queue. The credits are granted in the handshake
+ *     packet, and the master keeps any other jobs assigned to this slave in its own queues, where they can still be
+ *     moved to other slaves. Defaults to twice the parallelism, so that each of this slave's threads has its next job
+ *     at hand as soon as it completes one. 0 grants no credits, i.e., the master sends jobs as soon as it assigns
+ *     them, and lets this slave connect to a master that does not support credits.</li>
+ * </ul>
+ */
+public class SlaveSettings {
+    private WireFormat wireFormat = WireFormat.BINARY;
+    private int parallelism = 1;
+    private int maxChunkLength = MultiPacketEncoder.DEFAULT_MAX_CHUNK_LENGTH;
+    private Compression compression = Compression.NONE;
+    private int compressionThreshold = MultiPacketTransfers.DEFAULT_COMPRESSION_THRESHOLD;
+    private int resultBatchSize = 1;
+    private long resultBatchMaxWaitMicros = 0;
+    private Integer credits = null;  // null until set, so that it defaults to twice the parallelism
+
+    /**
+     * Create the settings from the application's named parameters
+     */
+    public static SlaveSettings fromNamedParameters(Map<String, String> namedParameters) {
+        SlaveSettings settings = new SlaveSettings();
+        String wireFormat = namedParameters.get("wireFormat");
+        if (wireFormat != null) {
+            try {
+                settings.wireFormat = WireFormat.valueOf(wireFormat.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logging.consoleLog("Invalid wireFormat '" + wireFormat + "' - using " + settings.wireFormat + "\n");
+            }
+        }
+        String parallelism = namedParameters.get("parallelism");
+        if (parallelism != null) {
+            try {
+                settings.parallelism = Math.max(1, Integer.parseInt(parallelism));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid parallelism '" + parallelism + "' - using " + settings.parallelism + "\n");
+            }
+        }
+        String maxChunkLength = namedParameters.get("maxChunkLength");
+        if (maxChunkLength != null) {
+            try {
+                settings.maxChunkLength = Math.max(1, Integer.parseInt(maxChunkLength));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid maxChunkLength '" + maxChunkLength + "' - using " + settings.maxChunkLength + "\n");
+            }
+        }
+        String compression = namedParameters.get("compression");
+        if (compression != null) {
+            try {
+                settings.compression = Compression.valueOf(compression.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logging.consoleLog("Invalid compression '" + compression + "' - using " + settings.compression + "\n");
+            }
+        }
+        String compressionThreshold = namedParameters.get("compressionThreshold");
+        if (compressionThreshold != null) {
+            try {
+                settings.compressionThreshold = Math.max(0, Integer.parseInt(compressionThreshold));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid compressionThreshold '" + compressionThreshold + "' - using " + settings.compressionThreshold + "\n");
+            }
+        }
+        String resultBatchSize = namedParameters.get("resultBatchSize");
+        if (resultBatchSize != null) {
+            try {
+                settings.resultBatchSize = Math.min(JobSender.MAX_BATCH_SIZE, Math.max(1, Integer.parseInt(resultBatchSize)));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid resultBatchSize '" + resultBatchSize + "' - using " + settings.resultBatchSize + "\n");
+            }
+        }
+        String resultBatchMaxWaitMicros = namedParameters.get("resultBatchMaxWait");
+        if (resultBatchMaxWaitMicros != null) {
+            try {
+                settings.resultBatchMaxWaitMicros = Math.max(0, Long.parseLong(resultBatchMaxWaitMicros));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid resultBatchMaxWait '" + resultBatchMaxWaitMicros + "' - using " + settings.resultBatchMaxWaitMicros + "\n");
+            }
+        }
+        String credits = namedParameters.get("credits");
+        if (credits != null) {
+            try {
+                settings.credits = Math.max(0, Integer.parseInt(credits));
+            } catch (NumberFormatException e) {
+                Logging.consoleLog("Invalid credits '" + credits + "' - using " + settings.getCredits() + "\n");
+            }
+        }
+        return settings;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxChunkLength() {
+        return maxChunkLength;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public int getResultBatchSize() {
+        return resultBatchSize;
+    }
+
+    public long getResultBatchMaxWaitMicros() {
+        return resultBatchMaxWaitMicros;
+    }
+
+    public int getCredits() {
+        return credits != null ? credits : 2 * parallelism;
+    }
+}
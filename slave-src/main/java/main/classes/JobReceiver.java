@@ -1,13 +1,17 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.MultiPacketTransfers.ReceivedTransfer;
 import PacketCommunication.PacketDecoder;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import PacketCommunication.enums.PacketArgKey;
 import javafx.scene.control.TextArea;
 import main.Logging;
+import main.enums.JobKind;
 import main.enums.JobType;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 
 /**
@@ -15,16 +19,57 @@ import java.io.IOException;
  */
 public abstract class JobReceiver extends PacketReceiver {
     /**
-     * Receive a job from a packet read from the given BufferedReader
+     * Receive a job from the packets read from the given PacketFrameReader. If the job has an input, the job is only
+     * returned once the input's packets have been received. In the meantime, packets of other jobs' inputs, and packets
+     * about the results sent over the same connection, are handled as they are read (see MultiPacketTransfers).
+     * @param out the PacketFrameWriter of the same connection, to acknowledge inputs or request their missing packets
      * */
-    public Job receiveJob(BufferedReader in, TextArea logsTextArea) throws IOException {
-        PacketDecoder packetDecoder = receiveOnePacket(in);
-        if (packetDecoder == null) {
-            Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
-                    " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
-            return null;
+    public Job receiveJob(PacketFrameReader in, PacketFrameWriter out, MultiPacketTransfers transfers,
+                          TextArea logsTextArea) throws IOException {
+        while (true) {
+            PacketDecoder packetDecoder = receiveOnePacket(in);
+            if (packetDecoder == null) {
+                Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
+                        " Received packet with invalid structure, packet likely corrupt.\n", logsTextArea);
+                return null;
+            }
+            if (MultiPacketTransfers.isMissingPacketsPacket(packetDecoder)) {
+                transfers.onMissingPacketsPacket(packetDecoder, out::writePacket);
+                continue;
+            }
+            if (MultiPacketTransfers.isTransferPacket(packetDecoder)) {
+                ReceivedTransfer transfer = transfers.onTransferPacket(packetDecoder, out::writePacket);
+                if (transfer == null) {
+                    continue;
+                }
+                Job job = getJobFromPacket(transfer.getFirstPacket(), logsTextArea);
+                byte[] input = transfer.getPayload();
+                if (job == null || input == null) {
+                    Logging.consoleLogAndAppendToGUILogs("Error while receiving the input of job #" +
+                            packetDecoder.getArg(PacketArgKey.JOB_ID) + ". Some of the input's packets were invalid\n", logsTextArea);
+                    return null;
+                }
+                job.setInput(input);
+                return job;
+            }
+            Job job = receiveJobPacket(packetDecoder, logsTextArea);
+            if (job == null || !packetDecoder.containsArg(PacketArgKey.INPUT_LENGTH)) {
+                return job;
+            }
+            int inputLength = getInputLength(packetDecoder);
+            if (inputLength <= 0 || !transfers.startReceiving(packetDecoder.getArg(PacketArgKey.JOB_ID), packetDecoder, inputLength)) {
+                Logging.consoleLogAndAppendToGUILogs("Error while receiving job #" +
+                        packetDecoder.getArg(PacketArgKey.JOB_ID) + " - invalid input length\n", logsTextArea);
+                return null;
+            }
         }
+    }
 
+    /**
+     * Receive a job from its own packet
+     * @return the job, or <code>null</code> if the packet is invalid
+     * */
+    private Job receiveJobPacket(PacketDecoder packetDecoder, TextArea logsTextArea) {
         if (!packetContainsValidJob(packetDecoder)) {
             Logging.consoleLogAndAppendToGUILogs("Error while receiving Job. Received " +
                     "Packet without expected args\n", logsTextArea);
@@ -36,10 +81,22 @@ public abstract class JobReceiver extends PacketReceiver {
             Logging.consoleLogAndAppendToGUILogs("Error while parsing args in packet." +
                     " Received packet with invalid structure, packet likely corrupt.\n\tPacket: '" +
                     packetDecoder.getPacketString() + "'\n", logsTextArea);
+            return null;
         }
         return job;
     }
 
+    /**
+     * @return the length of the input given in the job's packet, or -1 if the length is invalid
+     * */
+    private static int getInputLength(PacketDecoder jobPacket) {
+        try {
+            return jobPacket.getIntArg(PacketArgKey.INPUT_LENGTH);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private boolean packetContainsValidJob(PacketDecoder packetDecoder) {
         return packetDecoder.containsArg(PacketArgKey.JOB_ID) && packetDecoder.containsArg(PacketArgKey.JOB_SUCCEEDED);
     }
@@ -47,10 +104,16 @@ public abstract class JobReceiver extends PacketReceiver {
     private Job getJobFromPacket(PacketDecoder packetDecoder, TextArea logsTextArea) {
         Job job = new Job();
         try {
-            job.setJobId(Integer.parseInt(packetDecoder.getArg(PacketArgKey.JOB_ID)));
+            job.setJobId(packetDecoder.getLongArg(PacketArgKey.JOB_ID));
             job.setJobType(JobType.valueOf(packetDecoder.getArg(PacketArgKey.JOB_TYPE)));
-            job.setSucceeded(Boolean.parseBoolean(packetDecoder.getArg(PacketArgKey.JOB_SUCCEEDED)));
+            job.setSucceeded(packetDecoder.getBooleanArg(PacketArgKey.JOB_SUCCEEDED));
             job.setResult(packetDecoder.getMessage());
+            if (packetDecoder.containsArg(PacketArgKey.JOB_KIND)) {
+                job.setJobKind(JobKind.valueOf(packetDecoder.getArg(PacketArgKey.JOB_KIND)));
+            }
+            if (packetDecoder.containsArg(PacketArgKey.JOB_SIZE)) {
+                job.setJobSize(packetDecoder.getIntArg(PacketArgKey.JOB_SIZE));
+            }
             return job;
         } catch (IllegalArgumentException e) {
             // unknown jobId or jobType, we can't process this packet, restart from the beginning of the while loop to read another packet
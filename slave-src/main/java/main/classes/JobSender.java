@@ -1,28 +1,112 @@
 // Avromi Schneierson - 1/10/2024
 package main.classes;
 
+import PacketCommunication.MultiPacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
 import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameWriter;
 import PacketCommunication.enums.PacketArgKey;
 import javafx.concurrent.Task;
 
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * This abstract class is used for sending a job as a packet
  */
 public abstract class JobSender extends Task<Void> {
+    public static final int MAX_BATCH_SIZE = 4096;  // the most jobs sent in one batch packet, as the master rejects larger batches
+
     /**
-     * Pack the given job into a packet and output it to the given PrintWriter
+     * Pack the given job into a packet and write it to the given PacketFrameWriter. A result longer than the transfers'
+     * max chunk length is replaced in the packet by its length, and is sent as UTF-8 in the packets that follow (see
+     * MultiPacketTransfers), compressed if the transfers compress it.
      * */
-    public boolean sendJob(Job jobToSend, PrintWriter out) {
+    public boolean sendJob(Job jobToSend, PacketFrameWriter out, MultiPacketTransfers transfers) {
+        PacketEncoder packetEncoder = new PacketEncoder();
+        packetEncoder.setArg(PacketArgKey.JOB_ID, jobToSend.getJobId());
+        packetEncoder.setArg(PacketArgKey.JOB_TYPE, String.valueOf(jobToSend.getJobType()));
+        packetEncoder.setArg(PacketArgKey.JOB_SUCCEEDED, jobToSend.getSucceeded());
+        String result = jobToSend.getResult();
+        if (result == null || result.length() <= transfers.getMaxChunkLength()) {
+            packetEncoder.setMessage(result);
+            return out.writePacket(packetEncoder);
+        }
+
+        byte[] resultPayload = result.getBytes(StandardCharsets.UTF_8);
+        packetEncoder.setArg(PacketArgKey.RESULT_LENGTH, resultPayload.length);
+        byte[] sentPayload = transfers.compress(resultPayload, packetEncoder);
+        if (!out.writePacket(packetEncoder)) {
+            return false;
+        }
         HashMap<PacketArgKey, String> args = new HashMap<>();
         args.put(PacketArgKey.JOB_ID, String.valueOf(jobToSend.getJobId()));
-        args.put(PacketArgKey.JOB_TYPE, String.valueOf(jobToSend.getJobType()));
-        args.put(PacketArgKey.JOB_SUCCEEDED, String.valueOf(jobToSend.getSucceeded()));
-        PacketEncoder packetEncoder = new PacketEncoder(args);
-        packetEncoder.setMessage(jobToSend.getResult());
-        out.print(packetEncoder);
-        return !out.checkError();
+        MultiPacketEncoder resultPackets = new MultiPacketEncoder(args, new HashMap<>(), sentPayload, transfers.getMaxChunkLength());
+        return transfers.send(String.valueOf(jobToSend.getJobId()), resultPackets, out::writePacket);
+    }
+
+    /**
+     * Pack the given jobs into as few packets as possible and write them to the given PacketFrameWriter. Jobs whose
+     * results fit in a packet are packed together into batch packets, each holding the jobs' ids, types and successes
+     * as array args, and their results one after the other as its message, with the length of each result in the
+     * MESSAGE_LENGTHS arg. A batch packet holds at most MAX_BATCH_SIZE jobs, and its message is at most the transfers'
+     * max chunk length. Jobs with longer results, and batches of a single job, are sent on their own (see sendJob).
+     * @return <code>true</code> if all the jobs were written, else <code>false</code>
+     * */
+    public boolean sendJobs(List<Job> jobsToSend, PacketFrameWriter out, MultiPacketTransfers transfers) {
+        List<Job> batch = new ArrayList<>();
+        int batchMessageLength = 0;
+        for (Job job : jobsToSend) {
+            int resultLength = job.getResult() != null ? job.getResult().length() : 0;
+            if (resultLength > transfers.getMaxChunkLength()) {
+                if (!sendJob(job, out, transfers)) {
+                    return false;
+                }
+                continue;
+            }
+            if ((batchMessageLength + resultLength > transfers.getMaxChunkLength() || batch.size() == MAX_BATCH_SIZE)
+                    && !batch.isEmpty()) {
+                if (!sendBatch(batch, out, transfers)) {
+                    return false;
+                }
+                batch.clear();
+                batchMessageLength = 0;
+            }
+            batch.add(job);
+            batchMessageLength += resultLength;
+        }
+        return batch.isEmpty() || sendBatch(batch, out, transfers);
+    }
+
+    /**
+     * Write the given jobs, whose results all fit in one packet together, as one batch packet (see sendJobs)
+     * */
+    private boolean sendBatch(List<Job> batch, PacketFrameWriter out, MultiPacketTransfers transfers) {
+        if (batch.size() == 1) {
+            return sendJob(batch.get(0), out, transfers);
+        }
+        long[] jobIds = new long[batch.size()];
+        Object[] jobTypes = new Object[batch.size()];
+        Object[] jobsSucceeded = new Object[batch.size()];
+        Object[] messageLengths = new Object[batch.size()];
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            Job job = batch.get(i);
+            String result = job.getResult() != null ? job.getResult() : "";
+            jobIds[i] = job.getJobId();
+            jobTypes[i] = job.getJobType();
+            jobsSucceeded[i] = job.getSucceeded();
+            messageLengths[i] = result.length();
+            message.append(result);
+        }
+        PacketEncoder packetEncoder = new PacketEncoder();
+        packetEncoder.setArg(PacketArgKey.JOB_ID, jobIds);
+        packetEncoder.setArg(PacketArgKey.JOB_TYPE, jobTypes);
+        packetEncoder.setArg(PacketArgKey.JOB_SUCCEEDED, jobsSucceeded);
+        packetEncoder.setArg(PacketArgKey.MESSAGE_LENGTHS, messageLengths);
+        packetEncoder.setMessage(message.toString());
+        return out.writePacket(packetEncoder);
     }
 }
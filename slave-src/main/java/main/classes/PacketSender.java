@@ -2,16 +2,14 @@
 package main.classes;
 
 import PacketCommunication.PacketEncoder;
+import PacketCommunication.PacketFrameWriter;
 import javafx.concurrent.Task;
 
-import java.io.PrintWriter;
-
 /**
- * This abstract class is used for sending a packet to a PrintWriter
+ * This abstract class is used for sending a packet to a PacketFrameWriter
  */
 public abstract class PacketSender extends Task<Void> {
-    protected boolean sendPacket(PrintWriter out, PacketEncoder packetEncoder) {
-        out.print(packetEncoder);
-        return !out.checkError();
+    protected boolean sendPacket(PacketFrameWriter out, PacketEncoder packetEncoder) {
+        return out.writePacket(packetEncoder);
     }
 }
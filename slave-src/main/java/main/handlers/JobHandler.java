@@ -0,0 +1,33 @@
+package main.handlers;
+
+import main.enums.JobType;
+
+/**
+ * A JobHandler executes the jobs of one JobType on the slave. Handlers are discovered with a ServiceLoader when the slave
+ * starts up (see JobHandlers), so they can be added by putting a module or jar providing this interface on the slave's
+ * module path or classpath. JobTypes without a handler are executed by the SleepJobHandler, which only simulates work.
+ * <p>
+ * Jobs are executed by several threads at once when the slave's parallelism is more than 1, so handlers must be
+ * thread-safe.
+ * </p>
+ */
+public interface JobHandler {
+    /**
+     * @return the JobType of the jobs this handler executes
+     */
+    JobType getJobType();
+
+    /**
+     * Execute a job.
+     * For slaves using the TEXT wire format, the result may only contain word characters (letters, digits and '_') and
+     * line breaks.
+     *
+     * @param input                    the job's input payload, as sent by the client (empty if there is none). This must
+     *                                 not be modified.
+     * @param slaveOptimizedForJobType whether this slave is optimized for the job's JobType
+     * @return the job's result payload
+     * @throws InterruptedException if the slave is stopped while the job is executing
+     * @throws Exception            if the job failed. The job is returned to the client as not succeeded.
+     */
+    String execute(byte[] input, boolean slaveOptimizedForJobType) throws Exception;
+}
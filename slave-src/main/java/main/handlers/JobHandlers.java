@@ -0,0 +1,57 @@
+package main.handlers;
+
+import main.Logging;
+import main.enums.JobType;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * This class holds the JobHandler for each JobType. The handlers are discovered with a ServiceLoader once, when the
+ * slave starts up; any JobType without a handler uses the SleepJobHandler.
+ */
+public class JobHandlers {
+    private final EnumMap<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+
+    private JobHandlers() {
+    }
+
+    /**
+     * Load the JobHandlers provided on the module path or classpath. If more than one handler is provided for a
+     * JobType, the first one found is used.
+     */
+    public static JobHandlers load() {
+        JobHandlers jobHandlers = new JobHandlers();
+        Iterator<JobHandler> providers = ServiceLoader.load(JobHandler.class).iterator();
+        while (true) {
+            JobHandler handler;
+            try {
+                if (!providers.hasNext()) break;
+                handler = providers.next();
+            } catch (ServiceConfigurationError e) {
+                Logging.consoleLog("Unable to load job handler - skipping it\nException: " + e + "\n");
+                continue;
+            }
+            if (jobHandlers.handlers.containsKey(handler.getJobType())) {
+                Logging.consoleLog("More than one job handler provided for JobType " + handler.getJobType() + " - ignoring "
+                        + handler.getClass().getName() + "\n");
+                continue;
+            }
+            jobHandlers.handlers.put(handler.getJobType(), handler);
+            Logging.consoleLog("Using job handler " + handler.getClass().getName() + " for JobType " + handler.getJobType() + "\n");
+        }
+        for (JobType jobType : JobType.values()) {
+            jobHandlers.handlers.putIfAbsent(jobType, new SleepJobHandler(jobType));
+        }
+        return jobHandlers;
+    }
+
+    /**
+     * @return the handler for jobs of the given JobType
+     */
+    public JobHandler getHandler(JobType jobType) {
+        return handlers.get(jobType);
+    }
+}
@@ -0,0 +1,34 @@
+package main.handlers;
+
+import main.enums.JobType;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The default JobHandler. This 'executes' a job by sleeping a different amount of time based on if the slave is
+ * optimized for the job or not, and returns a randomized, positive int as the 'result'.
+ */
+public class SleepJobHandler implements JobHandler {
+    private final long PROCESSING_TIME_OPTIMIZED_MS = 2000;
+    private final long PROCESSING_TIME_NOT_OPTIMIZED_MS = 10000;
+    private final JobType jobType;
+
+    public SleepJobHandler(JobType jobType) {
+        this.jobType = jobType;
+    }
+
+    @Override
+    public JobType getJobType() {
+        return jobType;
+    }
+
+    @Override
+    public String execute(byte[] input, boolean slaveOptimizedForJobType) throws InterruptedException {
+        if (slaveOptimizedForJobType) {
+            Thread.sleep(PROCESSING_TIME_OPTIMIZED_MS);
+        } else {
+            Thread.sleep(PROCESSING_TIME_NOT_OPTIMIZED_MS);
+        }
+        return String.valueOf(ThreadLocalRandom.current().nextInt(0, Integer.MAX_VALUE));
+    }
+}
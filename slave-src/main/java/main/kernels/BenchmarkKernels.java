@@ -0,0 +1,171 @@
+package main.kernels;
+
+import main.Logging;
+import main.enums.JobKind;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+
+/**
+ * This class executes the built-in benchmark job kinds (see JobKind). Each kernel works on data generated from a fixed
+ * seed, so that the same job returns the same result on every slave, and slaves of different CPUs can be compared by
+ * their process times alone. Results only contain word characters, so they can be sent in either wire format.
+ * The matrix multiply and Monte Carlo pi kernels use the Vector API (jdk.incubator.vector) when the module is
+ * available (the slave has to be run with <code>--add-modules jdk.incubator.vector</code>), and otherwise fall back to
+ * scalar loops that compute exactly the same results.
+ */
+public final class BenchmarkKernels {
+    private static final long SEED = 42;
+    private static final int MAX_SHA256_SIZE = 16_384;  // 16 GB of data takes around 15 seconds to digest on a recent CPU
+    private static final int MAX_MATRIX_SIZE = 4096;  // 3 matrices of 4096 x 4096 floats take 192 MB
+    private static final int MAX_SORT_SIZE = 50_000;  // 50 million ints take 200 MB
+    private static final int MAX_MONTE_CARLO_PI_SIZE = 10_000;  // 10 billion points take around 15 seconds on a recent CPU
+    private static final int BYTES_PER_MB = 1 << 20;
+    private static volatile boolean useVectorApi = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private BenchmarkKernels() {
+    }
+
+    public static boolean isUsingVectorApi() {
+        return useVectorApi;
+    }
+
+    /**
+     * Execute the given job kind
+     *
+     * @param size the job's size in the kind's unit (see JobKind), or 0 for the kind's default size
+     * @return the result of the job
+     * @throws IllegalArgumentException if the job kind is DEFAULT, or the size is out of range
+     */
+    public static String run(JobKind jobKind, int size) {
+        if (size == 0) {
+            size = jobKind.getDefaultSize();
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid size for " + jobKind + " job: " + size);
+        }
+        return switch (jobKind) {
+            case SHA256 -> sha256(checkSize(size, MAX_SHA256_SIZE));
+            case MATRIX_MULTIPLY -> String.valueOf(matrixMultiply(checkSize(size, MAX_MATRIX_SIZE)));
+            case SORT -> sort(checkSize(size, MAX_SORT_SIZE));
+            case MONTE_CARLO_PI -> String.valueOf(monteCarloPi(checkSize(size, MAX_MONTE_CARLO_PI_SIZE)));
+            case DEFAULT -> throw new IllegalArgumentException("DEFAULT jobs are executed by the JobType's JobHandler");
+        };
+    }
+
+    private static int checkSize(int size, int maxSize) {
+        if (size > maxSize) {
+            throw new IllegalArgumentException("Size " + size + " exceeds the maximum of " + maxSize);
+        }
+        return size;
+    }
+
+    /**
+     * @return the hex SHA-256 digest of <code>numMB</code> MB of generated data. Each MB is the same generated block,
+     * with the MB's index written over its first bytes.
+     */
+    private static String sha256(int numMB) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+        byte[] block = new byte[BYTES_PER_MB];
+        new SplittableRandom(SEED).nextBytes(block);
+        for (int mb = 0; mb < numMB; mb++) {
+            block[0] = (byte) mb;
+            block[1] = (byte) (mb >>> 8);
+            block[2] = (byte) (mb >>> 16);
+            block[3] = (byte) (mb >>> 24);
+            digest.update(block);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Multiply two generated n x n matrices
+     *
+     * @return the sum of the product's elements, rounded
+     */
+    static long matrixMultiply(int n) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        float[] a = new float[n * n];
+        float[] b = new float[n * n];
+        float[] c = new float[n * n];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) random.nextDouble();
+            b[i] = (float) random.nextDouble();
+        }
+
+        if (!useVectorApi || !runVectorKernel(() -> VectorKernels.matrixMultiply(a, b, c, n))) {
+            // the i-k-j order, so that the inner loop goes through b and c sequentially
+            for (int i = 0; i < n; i++) {
+                for (int k = 0; k < n; k++) {
+                    float aik = a[i * n + k];
+                    int bRow = k * n;
+                    int cRow = i * n;
+                    for (int j = 0; j < n; j++) {
+                        c[cRow + j] = Math.fma(aik, b[bRow + j], c[cRow + j]);
+                    }
+                }
+            }
+        }
+
+        double sum = 0;
+        for (float value : c) {
+            sum += value;
+        }
+        return Math.round(sum);
+    }
+
+    /**
+     * Sort <code>numThousand</code> thousand generated ints with Arrays.parallelSort
+     *
+     * @return a hex hash of the sorted ints
+     */
+    private static String sort(int numThousand) {
+        int[] values = new SplittableRandom(SEED).ints(numThousand * 1000L).toArray();
+        Arrays.parallelSort(values);
+        long hash = 0;
+        for (int value : values) {
+            hash = 31 * hash + value;
+        }
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Estimate pi from <code>numMillion</code> million points, generated by MonteCarloPi.NUM_STREAMS independent
+     * streams (see MonteCarloPi)
+     *
+     * @return the estimate of pi, in millionths
+     */
+    static long monteCarloPi(int numMillion) {
+        long numPoints = numMillion * 1_000_000L;
+        long numSteps = numPoints / MonteCarloPi.NUM_STREAMS;
+        long[] numInside = new long[1];
+        if (!useVectorApi || !runVectorKernel(() -> numInside[0] = VectorKernels.monteCarloPiNumInside(numSteps))) {
+            numInside[0] = MonteCarloPi.numInside(numSteps);
+        }
+        return Math.round(4.0 * numInside[0] / (numSteps * MonteCarloPi.NUM_STREAMS) * 1_000_000);
+    }
+
+    /**
+     * Run a kernel that uses the Vector API. If the Vector API can't be used after all, it is not used again.
+     *
+     * @return false if the kernel couldn't be run, and the scalar version of the kernel needs to be run instead
+     */
+    private static boolean runVectorKernel(Runnable kernel) {
+        try {
+            kernel.run();
+            return true;
+        } catch (LinkageError | UnsupportedOperationException e) {
+            Logging.consoleLog("Unable to use the Vector API - using scalar kernels\nException: " + e + "\n");
+            useVectorApi = false;
+            return false;
+        }
+    }
+}
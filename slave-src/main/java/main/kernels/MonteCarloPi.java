@@ -0,0 +1,43 @@
+package main.kernels;
+
+/**
+ * The scalar Monte Carlo pi kernel, and the constants shared with its Vector API version.
+ * The points are generated by NUM_STREAMS independent linear congruential generators, each seeded differently. Each
+ * step, every stream generates one point, as 2 consecutive values whose top 24 bits are taken as the point's
+ * coordinates in [0, 1). As the streams don't depend on each other, they can be run in vector lanes, and the same
+ * points (and so the same result) are generated either way.
+ */
+final class MonteCarloPi {
+    static final int NUM_STREAMS = 16;
+    static final int MULTIPLIER = 1664525;
+    static final int INCREMENT = 1013904223;
+    static final float COORDINATE_SCALE = 1.0f / (1 << 24);
+
+    private MonteCarloPi() {
+    }
+
+    static int getSeed(int stream) {
+        return stream * 0x9E3779B9 + 1;
+    }
+
+    /**
+     * @return the number of generated points inside the quarter circle of radius 1
+     */
+    static long numInside(long numSteps) {
+        long numInside = 0;
+        for (int stream = 0; stream < NUM_STREAMS; stream++) {
+            int state = getSeed(stream);
+            for (long step = 0; step < numSteps; step++) {
+                int x = state * MULTIPLIER + INCREMENT;
+                int y = x * MULTIPLIER + INCREMENT;
+                state = y;
+                float fx = (x >>> 8) * COORDINATE_SCALE;
+                float fy = (y >>> 8) * COORDINATE_SCALE;
+                if (fx * fx + fy * fy <= 1.0f) {
+                    numInside++;
+                }
+            }
+        }
+        return numInside;
+    }
+}
@@ -0,0 +1,87 @@
+package main.kernels;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API versions of the vectorizable benchmark kernels. This class must only be used when the
+ * jdk.incubator.vector module is available (see BenchmarkKernels), as it can't be loaded otherwise.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Multiply the n x n matrices a and b into c, in the same order as the scalar kernel, so that the fused
+     * multiply-adds give the same result
+     */
+    static void matrixMultiply(float[] a, float[] b, float[] c, int n) {
+        int loopBound = FLOAT_SPECIES.loopBound(n);
+        for (int i = 0; i < n; i++) {
+            int cRow = i * n;
+            for (int k = 0; k < n; k++) {
+                float aik = a[cRow + k];
+                FloatVector aikVector = FloatVector.broadcast(FLOAT_SPECIES, aik);
+                int bRow = k * n;
+                int j = 0;
+                for (; j < loopBound; j += FLOAT_SPECIES.length()) {
+                    FloatVector bVector = FloatVector.fromArray(FLOAT_SPECIES, b, bRow + j);
+                    FloatVector cVector = FloatVector.fromArray(FLOAT_SPECIES, c, cRow + j);
+                    aikVector.fma(bVector, cVector).intoArray(c, cRow + j);
+                }
+                for (; j < n; j++) {
+                    c[cRow + j] = Math.fma(aik, b[bRow + j], c[cRow + j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The Vector API version of MonteCarloPi.numInside, which runs as many streams at once as there are lanes
+     *
+     * @throws UnsupportedOperationException if the streams can't be split evenly over the lanes
+     */
+    static long monteCarloPiNumInside(long numSteps) {
+        int numLanes = INT_SPECIES.length();
+        if (numLanes > MonteCarloPi.NUM_STREAMS || MonteCarloPi.NUM_STREAMS % numLanes != 0) {
+            throw new UnsupportedOperationException("Unsupported number of int lanes: " + numLanes);
+        }
+        int[] seeds = new int[MonteCarloPi.NUM_STREAMS];
+        for (int stream = 0; stream < seeds.length; stream++) {
+            seeds[stream] = MonteCarloPi.getSeed(stream);
+        }
+
+        long numInside = 0;
+        IntVector one = IntVector.broadcast(INT_SPECIES, 1);
+        for (int firstStream = 0; firstStream < MonteCarloPi.NUM_STREAMS; firstStream += numLanes) {
+            IntVector state = IntVector.fromArray(INT_SPECIES, seeds, firstStream);
+            for (long step = 0; step < numSteps; ) {
+                // count in the lanes, and only add up the lanes before their counts could overflow
+                long stepsEnd = Math.min(numSteps, step + Integer.MAX_VALUE);
+                IntVector laneNumInside = IntVector.zero(INT_SPECIES);
+                for (; step < stepsEnd; step++) {
+                    IntVector x = state.mul(MonteCarloPi.MULTIPLIER).add(MonteCarloPi.INCREMENT);
+                    IntVector y = x.mul(MonteCarloPi.MULTIPLIER).add(MonteCarloPi.INCREMENT);
+                    state = y;
+                    FloatVector fx = toCoordinate(x);
+                    FloatVector fy = toCoordinate(y);
+                    VectorMask<Integer> inside = fx.mul(fx).add(fy.mul(fy)).compare(VectorOperators.LE, 1.0f).cast(INT_SPECIES);
+                    laneNumInside = laneNumInside.add(one, inside);
+                }
+                numInside += laneNumInside.reduceLanesToLong(VectorOperators.ADD);
+            }
+        }
+        return numInside;
+    }
+
+    private static FloatVector toCoordinate(IntVector value) {
+        return ((FloatVector) value.lanewise(VectorOperators.LSHR, 8).convert(VectorOperators.I2F, 0))
+                .mul(MonteCarloPi.COORDINATE_SCALE);
+    }
+}
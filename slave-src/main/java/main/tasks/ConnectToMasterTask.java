@@ -2,17 +2,21 @@
 package main.tasks;
 
 import PacketCommunication.IPConnection;
+import PacketCommunication.PacketDecoder;
 import PacketCommunication.PacketEncoder;
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
+import PacketCommunication.enums.Compression;
 import PacketCommunication.enums.PacketArgKey;
+import PacketCommunication.enums.WireFormat;
 import javafx.scene.control.TextArea;
 import main.SlaveModel;
+import main.SlaveSettings;
 import main.Logging;
 import main.classes.PacketSender;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 
 /**
@@ -23,14 +27,16 @@ public class ConnectToMasterTask extends PacketSender {
     private final IPConnection ipConnection;
     private final TextArea logsTextArea;
     private final SlaveModel slaveModel;
+    private final SlaveSettings settings;
     private ReceiveJobRequestsTask receiveJobRequestsTask;
     private SendJobResultsTask sendJobResultsTask;
     private Thread receiveJobRequestThread;
     private Thread sendJobResultsThread;
 
-    public ConnectToMasterTask(IPConnection ipConnection, SlaveModel slaveModel, TextArea logsTextArea) {
+    public ConnectToMasterTask(IPConnection ipConnection, SlaveModel slaveModel, SlaveSettings settings, TextArea logsTextArea) {
         this.ipConnection = ipConnection;
         this.slaveModel = slaveModel;
+        this.settings = settings;
         this.logsTextArea = logsTextArea;
     }
 
@@ -43,17 +49,24 @@ public class ConnectToMasterTask extends PacketSender {
         updateMessage("Connecting to Master...");
         Logging.consoleLogAndAppendToGUILogs("Connecting to Master...\n", logsTextArea);
         try (Socket socket = new Socket(ipConnection.getIp(), ipConnection.getPort());
-             PrintWriter masterOut = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader masterIn = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             PacketFrameWriter masterOut = new PacketFrameWriter(socket.getOutputStream());
+             PacketFrameReader masterIn = new PacketFrameReader(socket.getInputStream());
             ) {
             updateMessage("Connected to Master");
             Logging.consoleLogAndAppendToGUILogs("Connected to Master\nReady to receive packet\n", logsTextArea);
 
+            MultiPacketTransfers transfers = new MultiPacketTransfers(settings.getMaxChunkLength(), settings.getCompression(),
+                    settings.getCompressionThreshold());
             notifyMasterOfSlaveType(masterOut);
+            if (!receiveAcknowledgement(masterIn, masterOut, transfers)) {
+                updateMessage("Unable to connect to Master. Please try again");
+                return null;
+            }
 
             // launch threads for input and output to the master:
-            receiveJobRequestsTask = new ReceiveJobRequestsTask(slaveModel, masterIn, logsTextArea);
-            sendJobResultsTask = new SendJobResultsTask(slaveModel, masterOut, logsTextArea);
+            receiveJobRequestsTask = new ReceiveJobRequestsTask(slaveModel, masterIn, masterOut, transfers, logsTextArea);
+            sendJobResultsTask = new SendJobResultsTask(slaveModel, masterOut, transfers, logsTextArea,
+                    settings.getResultBatchSize(), settings.getResultBatchMaxWaitMicros());
             receiveJobRequestThread = new Thread(receiveJobRequestsTask, "Thread-ReceiveJobRequests");
             sendJobResultsThread = new Thread(sendJobResultsTask, "Thread-SendJobResults");
 
@@ -98,12 +111,61 @@ public class ConnectToMasterTask extends PacketSender {
     }
 
     /**
-     * Send a packet to notify the master of this slave's type
+     * Send a packet to notify the master of this slave's type, of the wire format and compression this slave would
+     * like to use (if they are not the default TEXT format and no compression), of the number of jobs this slave
+     * executes at once (if more than one), and of the credits this slave grants the master (if any). Args that are not
+     * sent by default are left out, so that a TEXT slave that grants no credits can still connect to older masters.
      * @return <code>true</code> if successful, else <code>false</code>
      * */
-    private boolean notifyMasterOfSlaveType(PrintWriter masterOut) {
+    private boolean notifyMasterOfSlaveType(PacketFrameWriter masterOut) {
         PacketEncoder packetEncoder = new PacketEncoder();
         packetEncoder.setArg(PacketArgKey.OPTIMIZED_FOR_JOB_TYPE, slaveModel.getSlaveOptimizedForType().toString());
+        if (settings.getWireFormat() != WireFormat.TEXT) {
+            packetEncoder.setArg(PacketArgKey.WIRE_FORMAT, settings.getWireFormat().name());
+        }
+        if (settings.getCompression() != Compression.NONE) {
+            packetEncoder.setArg(PacketArgKey.COMPRESSION, settings.getCompression().name());
+        }
+        if (settings.getParallelism() != 1) {
+            packetEncoder.setArg(PacketArgKey.PARALLELISM, settings.getParallelism());
+        }
+        if (settings.getCredits() > 0) {
+            packetEncoder.setArg(PacketArgKey.CREDITS, settings.getCredits());
+        }
         return sendPacket(masterOut, packetEncoder);
     }
+
+    /**
+     * If this slave asked for a wire format or a compression, wait for the master to acknowledge the ones to use, and
+     * switch to them
+     * @param transfers the transfers of the connection, which compress with the compression acknowledged
+     * @return <code>true</code> if the wire format and compression were set (or didn't need to be), else
+     * <code>false</code>
+     * */
+    private boolean receiveAcknowledgement(PacketFrameReader masterIn, PacketFrameWriter masterOut,
+                                           MultiPacketTransfers transfers) throws IOException {
+        boolean requestedWireFormat = settings.getWireFormat() != WireFormat.TEXT;
+        boolean requestedCompression = settings.getCompression() != Compression.NONE;
+        if (!requestedWireFormat && !requestedCompression) {
+            return true;
+        }
+        PacketDecoder ackPacket = masterIn.readPacket();
+        if (ackPacket == null || (requestedWireFormat && !ackPacket.containsArg(PacketArgKey.WIRE_FORMAT))) {
+            Logging.consoleLogAndAppendToGUILogs("Master did not acknowledge the " + settings.getWireFormat()
+                    + " wire format or " + settings.getCompression() + " compression. If the master is an older version, "
+                    + "restart this slave with '--wireFormat=TEXT --compression=NONE'\n", logsTextArea);
+            return false;
+        }
+        if (requestedCompression) {
+            Compression compression = transfers.negotiateCompression(ackPacket.getArg(PacketArgKey.COMPRESSION));
+            Logging.consoleLogAndAppendToGUILogs("Using " + compression + " compression\n", logsTextArea);
+        }
+        if (requestedWireFormat) {
+            WireFormat wireFormat = WireFormat.valueOf(ackPacket.getArg(PacketArgKey.WIRE_FORMAT));
+            masterIn.setWireFormat(wireFormat);
+            masterOut.setWireFormat(wireFormat);
+            Logging.consoleLogAndAppendToGUILogs("Using the " + wireFormat + " wire format\n", logsTextArea);
+        }
+        return true;
+    }
 }
\ No newline at end of file
@@ -6,53 +6,103 @@ import javafx.scene.control.TextArea;
 import main.SlaveModel;
 import main.Logging;
 import main.classes.Job;
+import main.enums.JobKind;
+import main.handlers.JobHandler;
+import main.handlers.JobHandlers;
+import main.kernels.BenchmarkKernels;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * This class is responsible for 'executing' a job of any type. The execution runs faster if the JobType matches the type
- * of this slave.
+ * This class is responsible for executing a job of any type, with the JobHandler for the job's JobType. By default,
+ * jobs are only 'executed' by the SleepJobHandler, which runs faster if the JobType matches the type of this slave.
+ * Jobs of any kind other than DEFAULT are instead executed by the built-in BenchmarkKernels.
+ * Up to <code>parallelism</code> jobs are executed at once, each by its own thread of a fixed pool. Each thread takes
+ * the next job from the SlaveModel's queue as soon as it is done with its previous job.
  * */
 public class ExecuteJobsTask extends Task<Void> {
-    private final long PROCESSING_TIME_OPTIMIZED_MS = 2000;
-    private final long PROCESSING_TIME_NOT_OPTIMIZED_MS = 10000;
     private SlaveModel slaveModel;
+    private final JobHandlers jobHandlers;
+    private final int parallelism;
     private TextArea logsTextArea;
-    public ExecuteJobsTask(SlaveModel slaveModel, TextArea logsTextArea) {
+    public ExecuteJobsTask(SlaveModel slaveModel, JobHandlers jobHandlers, int parallelism, TextArea logsTextArea) {
         this.slaveModel = slaveModel;
+        this.jobHandlers = jobHandlers;
+        this.parallelism = parallelism;
         this.logsTextArea = logsTextArea;
     }
 
-    /**
-     * 'Execute' the job by sleeping a different amount of time based on if this slave is optimized for the job or not
-     * @return the 'result' (a randomized, positive int) of the job execution, or -1 if an error occurred
-     * */
     @Override
     protected Void call() {
+        if (parallelism == 1) {  // no need for a pool, execute the jobs on this task's thread
+            executeJobs();
+            return null;
+        }
+        AtomicInteger threadNum = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "Thread-ExecuteJobs-" + threadNum.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Callable<Void>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(() -> {
+                executeJobs();
+                return null;
+            });
+        }
+        try {
+            executor.invokeAll(workers);  // the workers only return once this task is cancelled
+        } catch (InterruptedException e) {
+            Logging.consoleLogAndAppendToGUILogs("Execute job task interrupted - stopping all execute job threads\n", logsTextArea);
+        } finally {
+            executor.shutdownNow();
+        }
+        return null;
+    }
+
+    /**
+     * Execute jobs, as they become available, with the JobHandler for each job's JobType (or the benchmark kernel for
+     * the job's JobKind). A job whose handler fails - including with an Error, such as running out of memory - is returned
+     * with no result, as not succeeded.
+     * */
+    private void executeJobs() {
         Job jobToExecute = null;
         try {
             while (!isCancelled()) {
                 jobToExecute = slaveModel.dequeJobToRun();  // retrieve a job to execute when it becomes available
-                Logging.consoleLogAndAppendToGUILogs("Executing job #" + jobToExecute.getJobId() + " [Type " + jobToExecute.getJobType() + "]\n", logsTextArea);
+                Logging.consoleLogAndAppendToGUILogs("Executing job #" + jobToExecute.getJobId() + " [Type " + jobToExecute.getJobType() + "]"
+                        + (jobToExecute.getJobKind() != JobKind.DEFAULT ? " [" + jobToExecute.getJobKind() + " benchmark]" : "") + "\n", logsTextArea);
                 updateMessage("Executing job #" + jobToExecute.getJobId() + " [Type " + jobToExecute.getJobType() + "]...\n");
 
-                if (jobToExecute.getJobType() == slaveModel.getSlaveOptimizedForType()) {
-                    Thread.sleep(PROCESSING_TIME_OPTIMIZED_MS);
-                } else {
-                    Thread.sleep(PROCESSING_TIME_NOT_OPTIMIZED_MS);
+                JobHandler jobHandler = jobHandlers.getHandler(jobToExecute.getJobType());
+                boolean slaveOptimizedForJobType = jobToExecute.getJobType() == slaveModel.getSlaveOptimizedForType();
+                try {
+                    if (jobToExecute.getJobKind() != JobKind.DEFAULT) {
+                        jobToExecute.setResult(BenchmarkKernels.run(jobToExecute.getJobKind(), jobToExecute.getJobSize()));
+                    } else {
+                        jobToExecute.setResult(jobHandler.execute(jobToExecute.getInput(), slaveOptimizedForJobType));
+                    }
+                    jobToExecute.setSucceeded(true);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Throwable e) {  // e.g., an OutOfMemoryError from a large job, which shouldn't stop the task
+                    Logging.consoleLogAndAppendToGUILogs("Job #" + jobToExecute.getJobId() + " failed: " + e + "\n", logsTextArea);
+                    jobToExecute.setResult("");
+                    jobToExecute.setSucceeded(false);
                 }
                 updateMessage("");
 
-                int result = ThreadLocalRandom.current().nextInt(0, Integer.MAX_VALUE);
-                jobToExecute.setResult(String.valueOf(result));
-                jobToExecute.setSucceeded(true);
                 slaveModel.enqueueJobToSend(jobToExecute);  // put the result in the queue, wait if no space available
             }
             Logging.consoleLogAndAppendToGUILogs("Execute job task cancelled by Slave program\n", logsTextArea);
-            return null;
         } catch (InterruptedException e) {
             Logging.consoleLogAndAppendToGUILogs("Error while executing job: '" + jobToExecute + "'\n", logsTextArea);
-            return null;
         }
     }
 }
@@ -1,13 +1,15 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameReader;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.SlaveModel;
 import main.Logging;
 import main.classes.Job;
 import main.classes.JobReceiver;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 
 /**
@@ -16,12 +18,17 @@ import java.io.IOException;
  */
 public class ReceiveJobRequestsTask extends JobReceiver {
     private final SlaveModel slaveModel;
-    private final BufferedReader socketIn;
+    private final PacketFrameReader socketIn;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
 
-    public ReceiveJobRequestsTask(SlaveModel slaveModel, BufferedReader socketIn, TextArea logsTextArea) {
+    public ReceiveJobRequestsTask(SlaveModel slaveModel, PacketFrameReader socketIn, PacketFrameWriter socketOut,
+                                  MultiPacketTransfers transfers, TextArea logsTextArea) {
         this.slaveModel = slaveModel;
         this.socketIn = socketIn;
+        this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
     }
 
@@ -32,7 +39,7 @@ public class ReceiveJobRequestsTask extends JobReceiver {
     protected Void call() {
         try (socketIn) {
             while (!isCancelled()) {
-                Job job = receiveJob(socketIn, logsTextArea);
+                Job job = receiveJob(socketIn, socketOut, transfers, logsTextArea);
                 if (job == null) {
                     Logging.consoleLogAndAppendToGUILogs("Error while trying to receive job request from master\n", logsTextArea);
                     continue;
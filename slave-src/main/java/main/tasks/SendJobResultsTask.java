@@ -1,26 +1,38 @@
 // Avromi Schneierson - 1/10/2024
 package main.tasks;
 
+import PacketCommunication.MultiPacketTransfers;
+import PacketCommunication.PacketFrameWriter;
 import javafx.scene.control.TextArea;
 import main.SlaveModel;
 import main.Logging;
 import main.classes.Job;
 import main.classes.JobSender;
 
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * This task is responsible for sending the jobs results to the master
+ * This task is responsible for sending the jobs results to the master.
+ * When the batch size is more than 1, the jobs completed are instead taken in batches, and sent together in as few
+ * packets as possible (see JobSender.sendJobs), so that many short jobs don't each cost a write and a packet.
  */
 public class SendJobResultsTask extends JobSender {
     private final SlaveModel slaveModel;
-    private final PrintWriter socketOut;
+    private final PacketFrameWriter socketOut;
+    private final MultiPacketTransfers transfers;
     private final TextArea logsTextArea;
+    private final int batchSize;  // the maximum number of jobs sent together
+    private final long batchMaxWaitMicros;  // how long to wait for a batch to fill up once its first job is completed
 
-    public SendJobResultsTask(SlaveModel slaveModel, PrintWriter socketOut, TextArea logsTextArea) {
+    public SendJobResultsTask(SlaveModel slaveModel, PacketFrameWriter socketOut, MultiPacketTransfers transfers, TextArea logsTextArea,
+                              int batchSize, long batchMaxWaitMicros) {
         this.slaveModel = slaveModel;
         this.socketOut = socketOut;
+        this.transfers = transfers;
         this.logsTextArea = logsTextArea;
+        this.batchSize = batchSize;
+        this.batchMaxWaitMicros = batchMaxWaitMicros;
     }
 
     /**
@@ -31,6 +43,9 @@ public class SendJobResultsTask extends JobSender {
      */
     @Override
     protected Void call() {
+        if (batchSize > 1) {
+            return sendJobResultBatches();
+        }
         Job jobToSend = null;
         try (socketOut) {
             while (!isCancelled()) {
@@ -43,7 +58,7 @@ public class SendJobResultsTask extends JobSender {
                 }
 
                 if (jobToSend != null) {
-                    boolean succeeded = sendJob(jobToSend, socketOut);
+                    boolean succeeded = sendJob(jobToSend, socketOut, transfers);
                     if (succeeded) {
                         Logging.consoleLogAndAppendToGUILogs("Sent job result to master: [" + jobToSend + "]\n", logsTextArea);
                     } else {
@@ -58,4 +73,35 @@ public class SendJobResultsTask extends JobSender {
             return null;
         }
     }
+
+    /**
+     * Send job results to the Master in batches of up to batchSize jobs, until cancelled or an error occurs
+     */
+    private Void sendJobResultBatches() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        try (socketOut) {
+            while (!isCancelled()) {
+                batch.clear();
+                try {
+                    slaveModel.dequeJobsToSend(batch, batchSize, batchMaxWaitMicros);
+                } catch (InterruptedException e) {
+                    Logging.consoleLogAndAppendToGUILogs("Thread interrupted or cancelled while waiting to dequeue" +
+                            "the next jobs to send:\n" + e.getMessage() + "\n", logsTextArea);
+                    if (isCancelled()) break;
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                if (sendJobs(batch, socketOut, transfers)) {
+                    Logging.consoleLogAndAppendToGUILogs("Sent " + batch.size() + " job results to master: " + batch + "\n", logsTextArea);
+                } else {
+                    Logging.consoleLogAndAppendToGUILogs(("Unable to connect to master and send job results -> " + batch + "\n"), logsTextArea);
+                }
+            }
+            Logging.consoleLog("Send job result task cancelled by Slave program\n");
+            socketOut.close();
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 module main.slave {
     requires javafx.controls;
     requires javafx.fxml;
+    requires static jdk.incubator.vector;  // only used when the slave is run with --add-modules jdk.incubator.vector
 
     opens main to javafx.fxml;
     exports main;
     opens main.classes to javafx.fxml;
     exports main.classes;
+    exports main.handlers;
+    uses main.handlers.JobHandler;
 
     opens main.enums;
     exports main.enums to javafx.fxml;